@@ -1,6 +1,8 @@
 package org.huebert.iotfsdb;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -8,12 +10,15 @@ import org.huebert.iotfsdb.api.schema.NumberType;
 import org.huebert.iotfsdb.api.schema.PartitionPeriod;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.persistence.FlushPolicy;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 
 /**
  * Configuration properties for IoTFSDB
@@ -130,17 +135,237 @@ public class IotfsdbProperties {
         @NotNull
         private Path root = Path.of("memory");
 
+        /**
+         * Directories that series are spread across, for example one per disk, so that their files are read and written in parallel.
+         * New series are placed by consistent hashing of their ID, so adding a directory moves the placement of few series.
+         * Existing series stay in the directory they are found in, which may also be root.
+         * The write-ahead log is always kept in root.
+         * Ignored when the root is "memory" or a zip file.
+         * Default: none, which stores every series in root
+         */
+        @NotNull
+        private List<Path> roots = List.of();
+
         /**
          * Configuration for the partition cache using Caffeine cache syntax.
          * Format: comma-separated list of key=value pairs.
          * Common options:
          * - expireAfterAccess: Duration after which entries are expired if not accessed
-         * - maximumSize: Maximum number of entries in the cache
-         * - softValues: Whether to use soft references for values
-         * Default: "expireAfterAccess=5m,maximumSize=10000,softValues"
+         * - maximumSize: Maximum number of partition time ranges in the cache. Ignored for open partition files, which
+         *   are limited by partitionCacheMemory instead.
+         * - softValues: Whether to use soft references for values. Ignored for open partition files, which are
+         *   unmapped explicitly when they are evicted.
+         * Default: "expireAfterAccess=5m,maximumSize=10000"
+         */
+        @NotNull
+        private String partitionCache = "expireAfterAccess=5m,maximumSize=10000";
+
+        /**
+         * Maximum number of bytes of open partition files kept in the partition cache.
+         * Partitions that are used least often are closed first when the limit is reached.
+         * Use 0 for a quarter of the physical memory.
+         * Minimum value: 0
+         * Default: 0
+         */
+        @Min(0)
+        private long partitionCacheMemory = 0;
+
+        /**
+         * Fraction of the maximum heap still in use after garbage collection above which the partition cache memory is halved.
+         * The limit is restored gradually once heap usage falls again.
+         * Default: 0.85
+         */
+        @DecimalMin("0.1")
+        @DecimalMax("1.0")
+        private double partitionCacheHeapLimit = 0.85;
+
+        /**
+         * Fraction of physical memory used by direct and mapped buffers above which the partition cache memory is halved.
+         * Mapped partition files, memory partitions and archived partitions all count as direct or mapped buffers.
+         * The limit is restored gradually once usage falls again.
+         * Default: 0.5
+         */
+        @DecimalMin("0.1")
+        @DecimalMax("1.0")
+        private double partitionCacheOffHeapLimit = 0.5;
+
+        /**
+         * Number of threads that open and map partition files when they are missing from the partition cache.
+         * Queries that need a partition being opened wait for it without holding up other partitions.
+         * Minimum value: 1
+         * Default: 4
+         */
+        @Min(1)
+        private int ioThreads = 4;
+
+        /**
+         * Whether the partitions containing the current time are kept open outside of the partition cache.
+         * Pinned partitions are never evicted and do not count towards partitionCacheMemory.
+         * Default: true
+         */
+        private boolean pinActive = true;
+
+        /**
+         * How long a partition stays pinned after its end, so that late values do not reopen it.
+         * Default: 0s
+         */
+        @NotNull
+        private Duration pinLookback = Duration.ZERO;
+
+        /**
+         * How long before the start of the next period its partitions are created for series written in the current period.
+         * Pre-created partitions are pinned, so they are already mapped when the period starts.
+         * Use 0 to disable pre-creation.
+         * Default: 0s
          */
         @NotNull
-        private String partitionCache = "expireAfterAccess=5m,maximumSize=10000,softValues";
+        private Duration precreateAhead = Duration.ZERO;
+
+        /**
+         * Maximum number of partitions pre-created per second, which keeps pre-creation from competing with inserts.
+         * Minimum value: 1
+         * Default: 50
+         */
+        @Min(1)
+        private int precreateRate = 50;
+
+        /**
+         * Maximum number of off-heap bytes used for partitions when the root is "memory".
+         * Creating a partition beyond the limit fails.
+         * Use 0 for no limit.
+         * Minimum value: 0
+         * Default: 0
+         */
+        @Min(0)
+        private long memoryLimit = 0;
+
+        /**
+         * Largest number of off-heap bytes allocated at a time for the partitions of a series when the root is "memory".
+         * The first slab of a series is the size of its first partition and each following slab doubles up to this size.
+         * Partitions larger than half a slab are allocated on their own.
+         * Minimum value: 4096
+         * Default: 1048576
+         */
+        @Min(4096)
+        private int memorySlabSize = 1048576;
+
+        /**
+         * Number of slots summarized by each block of the zone map kept next to every partition.
+         * Aggregate queries read fully covered blocks from the zone map and skip blocks without values.
+         * Use 0 to disable zone maps.
+         * Minimum value: 0
+         * Default: 256
+         */
+        @Min(0)
+        private int zoneMapBlockSize = 256;
+
+        /**
+         * Age after the end of a partition at which it is sealed into a compressed read-only form.
+         * Floating point partitions are XOR encoded and integer partitions are delta encoded.
+         * A sealed partition is restored to its raw form when it is written to again.
+         * Use 0 to disable sealing.
+         * Default: 0
+         */
+        @NotNull
+        private Duration sealAfter = Duration.ZERO;
+
+        /**
+         * Directories on slower storage that partitions are migrated to once they are older than migrateAfter.
+         * The root keeps the series definitions, the write-ahead log and recent partitions. Partitions are read from
+         * whichever directory holds them and are migrated to the cold root with the most usable space.
+         * Ignored when the root is "memory" or a zip file.
+         * Default: none
+         */
+        @NotNull
+        private List<Path> coldRoots = List.of();
+
+        /**
+         * Age after the end of a partition at which it is migrated with its sidecars to a cold root.
+         * Use 0 to disable migration.
+         * Default: 0
+         */
+        @NotNull
+        private Duration migrateAfter = Duration.ZERO;
+
+        /**
+         * When the regions of memory mapped partitions that were written are forced to disk.
+         * NEVER leaves them to the operating system, PERIODIC forces them every flush interval and when a partition is closed,
+         * ON_CLOSE forces them whenever a partition is closed and ON_EVICTION only when a partition is evicted from the partition cache.
+         * Default: ON_CLOSE
+         */
+        @NotNull
+        private FlushPolicy flushPolicy = FlushPolicy.ON_CLOSE;
+
+        /**
+         * Interval at which written regions are forced when the flush policy is PERIODIC.
+         * Default: 1m
+         */
+        @NotNull
+        private Duration flushInterval = Duration.ofMinutes(1);
+
+        /**
+         * Indicates whether a snapshot of every series definition and partition is kept in a single file in the root, so
+         * that a restart only reads the definitions and lists the partitions of series whose files changed since. The
+         * snapshot is written every catalog interval and on shutdown. It is ignored for zip roots.
+         * Default: true
+         */
+        private boolean catalog = true;
+
+        /**
+         * Interval at which the catalog snapshot is written.
+         * Default: 10m
+         */
+        @NotNull
+        private Duration catalogInterval = Duration.ofMinutes(10);
+
+        /**
+         * Whether to pass access hints for partition files to the kernel with madvise.
+         * Scanned ranges are read ahead, new partitions disable read-ahead and evicted partitions release their pages.
+         * Only supported on Linux and ignored elsewhere.
+         * Default: false
+         */
+        private boolean accessHints = false;
+
+        /**
+         * Write-ahead log configuration.
+         * Controls whether inserts are durable before they return.
+         */
+        @NotNull
+        @Valid
+        @NestedConfigurationProperty
+        private WalProperties wal = new WalProperties();
+    }
+
+    /**
+     * Configuration properties for the write-ahead log.
+     */
+    @Data
+    @Validated
+    public static class WalProperties {
+
+        /**
+         * Whether every insert is recorded in a write-ahead log that is synced before the insert returns.
+         * The log is replayed on startup and partitions are forced to disk when the log is checkpointed.
+         * Only used with file-based storage.
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum time a record waits for other records to be synced with it.
+         * Default: 10ms
+         */
+        @NotNull
+        private Duration commitInterval = Duration.ofMillis(10);
+
+        /**
+         * Number of pending bytes that causes a sync before the commit interval has passed.
+         * Minimum value: 1
+         * Default: 1048576
+         */
+        @Min(1)
+        private int commitSize = 1048576;
+
     }
 
     /**
@@ -160,6 +385,31 @@ public class IotfsdbProperties {
         @Min(1)
         private int maxSize = 1000;
 
+        /**
+         * Whether to aggregate partitions using the SIMD scan kernels from the Java Vector API.
+         * Requires the JVM to be started with --add-modules jdk.incubator.vector.
+         * Scalar kernels are used when the module is not available.
+         * Default: false
+         */
+        private boolean vectorized = false;
+
+        /**
+         * Number of partitions to open and load in the background ahead of the partition a query is reading.
+         * Use 0 to disable prefetching.
+         * Minimum value: 0
+         * Default: 0
+         */
+        @Min(0)
+        private int prefetchPartitions = 0;
+
+        /**
+         * Maximum number of partitions prefetched at the same time across all queries.
+         * Minimum value: 1
+         * Default: 8
+         */
+        @Min(1)
+        private int prefetchConcurrency = 8;
+
     }
 
     /**
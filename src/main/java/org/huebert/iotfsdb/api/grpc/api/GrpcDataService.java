@@ -1,5 +1,6 @@
 package org.huebert.iotfsdb.api.grpc.api;
 
+import com.google.common.collect.Range;
 import com.google.protobuf.ByteString;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,7 @@ import org.huebert.iotfsdb.service.ExportService;
 import org.huebert.iotfsdb.service.ImportService;
 import org.huebert.iotfsdb.service.InsertService;
 import org.huebert.iotfsdb.service.ParallelUtil;
+import org.huebert.iotfsdb.service.PruneService;
 import org.huebert.iotfsdb.service.QueryService;
 import org.huebert.iotfsdb.service.TimeConverter;
 import org.huebert.iotfsdb.stats.CaptureStats;
@@ -41,11 +43,14 @@ public class GrpcDataService extends DataServiceGrpc.DataServiceImplBase {
 
     private final ImportService importService;
 
-    public GrpcDataService(InsertService insertService, QueryService queryService, ExportService exportService, ImportService importService) {
+    private final PruneService pruneService;
+
+    public GrpcDataService(InsertService insertService, QueryService queryService, ExportService exportService, ImportService importService, PruneService pruneService) {
         this.insertService = insertService;
         this.queryService = queryService;
         this.exportService = exportService;
         this.importService = importService;
+        this.pruneService = pruneService;
     }
 
     @CaptureStats(group = "grpc", type = "data", operation = "find", javaClass = GrpcDataService.class, javaMethod = "findData")
@@ -126,8 +131,18 @@ public class GrpcDataService extends DataServiceGrpc.DataServiceImplBase {
     @CaptureStats(group = "grpc", type = "data", operation = "prune", javaClass = GrpcDataService.class, javaMethod = "pruneData")
     @Override
     public void pruneData(DataServiceProto.PruneDataRequest request, StreamObserver<DataServiceProto.PruneDataResponse> responseObserver) {
-        // TODO : Implement pruning logic
-        super.pruneData(request, responseObserver);
+        DataServiceProto.PruneDataResponse.Builder builder = DataServiceProto.PruneDataResponse.newBuilder();
+        try {
+            ZonedDateTime start = MAPPER.fromProto(request.getTimeRange().getStart());
+            ZonedDateTime end = MAPPER.fromProto(request.getTimeRange().getEnd());
+            pruneService.prune(request.getId(), TimeConverter.toUtc(Range.closed(start, end)));
+            builder.setStatus(CommonMapper.SUCCESS_STATUS);
+        } catch (Exception e) {
+            log.error("Error pruning data", e);
+            builder.setStatus(MAPPER.getFailedStatus(e));
+        }
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
     }
 
 }
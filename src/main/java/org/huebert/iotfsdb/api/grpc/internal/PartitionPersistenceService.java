@@ -9,6 +9,7 @@ import org.huebert.iotfsdb.api.grpc.proto.v1.internal.PartitionPersistenceServic
 import org.huebert.iotfsdb.persistence.PartitionByteBuffer;
 import org.huebert.iotfsdb.persistence.PersistenceAdapter;
 import org.huebert.iotfsdb.service.PartitionKey;
+import org.huebert.iotfsdb.service.PruneService;
 import org.huebert.iotfsdb.stats.CaptureStats;
 import org.mapstruct.factory.Mappers;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
@@ -25,8 +26,11 @@ public class PartitionPersistenceService extends PartitionPersistenceServiceGrpc
 
     private final PersistenceAdapter persistenceAdapter;
 
-    public PartitionPersistenceService(PersistenceAdapter persistenceAdapter) {
+    private final PruneService pruneService;
+
+    public PartitionPersistenceService(PersistenceAdapter persistenceAdapter, PruneService pruneService) {
         this.persistenceAdapter = persistenceAdapter;
+        this.pruneService = pruneService;
     }
 
     private static PartitionKey fromGrpc(PartitionPersistenceServiceProto.PartitionKey key) {
@@ -94,8 +98,17 @@ public class PartitionPersistenceService extends PartitionPersistenceServiceGrpc
     @CaptureStats(group = "internal", type = "partition", operation = "delete", javaClass = PartitionPersistenceService.class, javaMethod = "deletePartition")
     @Override
     public void deletePartition(PartitionPersistenceServiceProto.DeletePartitionRequest request, StreamObserver<PartitionPersistenceServiceProto.DeletePartitionResponse> responseObserver) {
-        // TODO : Implement delete logic
-        super.deletePartition(request, responseObserver);
+        PartitionPersistenceServiceProto.DeletePartitionResponse.Builder builder = PartitionPersistenceServiceProto.DeletePartitionResponse.newBuilder();
+        try {
+            // Deleted through the data service so that the partition is also closed and forgotten by the running instance
+            pruneService.deletePartition(fromGrpc(request.getKey()));
+            builder.setStatus(CommonMapper.SUCCESS_STATUS);
+        } catch (Exception e) {
+            log.error("Error deleting partition", e);
+            builder.setStatus(MAPPER.getFailedStatus(e));
+        }
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
     }
 
     @CaptureStats(group = "internal", type = "partition", operation = "update", javaClass = PartitionPersistenceService.class, javaMethod = "updatePartition")
@@ -0,0 +1,37 @@
+package org.huebert.iotfsdb.api.rest;
+
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.api.schema.HealthResponse;
+import org.huebert.iotfsdb.service.DataService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Validated
+@Slf4j
+@RestController
+@RequestMapping("/v2/health")
+@ConditionalOnExpression("${iotfsdb.api.rest:true}")
+public class HealthController {
+
+    private final DataService dataService;
+
+    public HealthController(@NotNull DataService dataService) {
+        this.dataService = dataService;
+    }
+
+    @Operation(tags = "Health", summary = "Reports whether startup has finished listing the partitions of every series")
+    @GetMapping
+    public HealthResponse getHealth() {
+        return HealthResponse.builder()
+            .ready(dataService.isReady())
+            .series(dataService.getSeries().size())
+            .loadedSeries(dataService.getLoadedSeriesCount())
+            .build();
+    }
+
+}
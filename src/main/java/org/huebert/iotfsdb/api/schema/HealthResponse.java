@@ -0,0 +1,25 @@
+package org.huebert.iotfsdb.api.schema;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Startup state of the database")
+public class HealthResponse {
+
+    @Schema(description = "Indicates whether the partitions of every series have been listed. Inserts and queries are accepted before then.")
+    private boolean ready;
+
+    @Schema(description = "Number of series")
+    private int series;
+
+    @Schema(description = "Number of series whose partitions have been listed")
+    private int loadedSeries;
+
+}
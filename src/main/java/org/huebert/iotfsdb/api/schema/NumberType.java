@@ -1,19 +1,32 @@
 package org.huebert.iotfsdb.api.schema;
 
+import lombok.Getter;
+
 public enum NumberType {
-    CURVED1,
-    CURVED2,
-    CURVED4,
-    FLOAT1,
-    FLOAT2,
-    FLOAT3,
-    FLOAT4,
-    FLOAT8,
-    INTEGER1,
-    INTEGER2,
-    INTEGER4,
-    INTEGER8,
-    MAPPED1,
-    MAPPED2,
-    MAPPED4
+    CURVED1(1),
+    CURVED2(2),
+    CURVED4(4),
+    FLOAT1(1),
+    FLOAT2(2),
+    FLOAT3(3),
+    FLOAT4(4),
+    FLOAT8(8),
+    INTEGER1(1),
+    INTEGER2(2),
+    INTEGER4(4),
+    INTEGER8(8),
+    MAPPED1(1),
+    MAPPED2(2),
+    MAPPED4(4);
+
+    /**
+     * Number of bytes used to store each value.
+     */
+    @Getter
+    private final int size;
+
+    NumberType(int size) {
+        this.size = size;
+    }
+
 }
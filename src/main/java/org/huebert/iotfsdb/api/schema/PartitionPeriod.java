@@ -2,6 +2,7 @@ package org.huebert.iotfsdb.api.schema;
 
 import lombok.Getter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
@@ -17,6 +18,12 @@ public enum PartitionPeriod {
 
     YEAR(Period.ofYears(1), DateTimeFormatter.ofPattern("yyyy"), Pattern.compile("\\d{4}"));
 
+    private static final String SIDECAR_SEPARATOR = ".";
+
+    private static final Pattern SIDECAR_SUFFIX = Pattern.compile("[a-z0-9]+");
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
     @Getter
     private final Period period;
 
@@ -34,6 +41,30 @@ public enum PartitionPeriod {
         return pattern.matcher(filename).matches();
     }
 
+    /**
+     * Indicates whether the filename belongs to a sidecar file of a partition, such as a rollup or zone map.
+     */
+    public boolean matchesSidecar(String filename) {
+        int separator = filename.lastIndexOf(SIDECAR_SEPARATOR);
+        return separator > 0 && matches(filename.substring(0, separator)) && SIDECAR_SUFFIX.matcher(filename.substring(separator + 1)).matches();
+    }
+
+    public static String getSidecarFilename(String filename, String suffix) {
+        return filename + SIDECAR_SEPARATOR + suffix;
+    }
+
+    public static boolean isSidecarFilename(String filename) {
+        return filename.contains(SIDECAR_SEPARATOR);
+    }
+
+    /**
+     * Returns the filename of the partition that a sidecar file belongs to, or the filename itself if it is a partition.
+     */
+    public static String getPartitionFilename(String filename) {
+        int separator = filename.indexOf(SIDECAR_SEPARATOR);
+        return separator < 0 ? filename : filename.substring(0, separator);
+    }
+
     public LocalDateTime getStart(LocalDateTime dateTime) {
         int year = dateTime.getYear();
         int month = this == YEAR ? 1 : dateTime.getMonthValue();
@@ -42,7 +73,61 @@ public enum PartitionPeriod {
     }
 
     public String getFilename(LocalDateTime dateTime) {
-        return formatter.format(dateTime);
+        return getFilename(getOrdinal(dateTime));
+    }
+
+    /**
+     * Returns the number of the period that contains the time, counted in days since the epoch, in months since year 0 or
+     * in years. Consecutive periods have consecutive ordinals.
+     */
+    public long getOrdinal(LocalDateTime dateTime) {
+        return switch (this) {
+            case DAY -> dateTime.toLocalDate().toEpochDay();
+            case MONTH -> dateTime.getYear() * 12L + dateTime.getMonthValue() - 1;
+            case YEAR -> dateTime.getYear();
+        };
+    }
+
+    /**
+     * Returns the ordinal of the period that contains a time in milliseconds since the epoch in UTC.
+     */
+    public long getOrdinal(long epochMillis) {
+        long epochDay = Math.floorDiv(epochMillis, DAY_MILLIS);
+        if (this == DAY) {
+            return epochDay;
+        }
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return this == MONTH ? date.getYear() * 12L + date.getMonthValue() - 1 : date.getYear();
+    }
+
+    /**
+     * Returns the start of the period with the ordinal in milliseconds since the epoch in UTC.
+     */
+    public long getStartMillis(long ordinal) {
+        return switch (this) {
+            case DAY -> ordinal * DAY_MILLIS;
+            case MONTH -> LocalDate.of((int) Math.floorDiv(ordinal, 12), (int) Math.floorMod(ordinal, 12) + 1, 1).toEpochDay() * DAY_MILLIS;
+            case YEAR -> LocalDate.of((int) ordinal, 1, 1).toEpochDay() * DAY_MILLIS;
+        };
+    }
+
+    /**
+     * Formats the filename of a period from its ordinal with arithmetic rather than a {@link DateTimeFormatter}.
+     */
+    public String getFilename(long ordinal) {
+        return switch (this) {
+            case DAY -> {
+                LocalDate date = LocalDate.ofEpochDay(ordinal);
+                yield pad(date.getYear() * 10000L + date.getMonthValue() * 100L + date.getDayOfMonth(), 8);
+            }
+            case MONTH -> pad(Math.floorDiv(ordinal, 12) * 100 + Math.floorMod(ordinal, 12) + 1, 6);
+            case YEAR -> pad(ordinal, 4);
+        };
+    }
+
+    private static String pad(long value, int width) {
+        String digits = Long.toString(value);
+        return digits.length() >= width ? digits : "0".repeat(width - digits.length()) + digits;
     }
 
     public LocalDateTime parseStart(String filename) {
@@ -18,7 +18,9 @@ import lombok.NoArgsConstructor;
 import java.time.Duration;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @Data
@@ -37,10 +39,22 @@ public class SeriesDefinition {
 
     private static final Map<PartitionPeriod, Long> MAX_INTERVALS = new EnumMap<>(PartitionPeriod.class);
 
+    private static final Map<PartitionPeriod, Long> MAX_PERIODS = new EnumMap<>(PartitionPeriod.class);
+
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    /**
+     * Partitions are read through {@link java.nio.ByteBuffer}s, which are indexed by an {@code int}.
+     */
+    public static final long MAX_PARTITION_BYTES = Integer.MAX_VALUE;
+
     static {
         MAX_INTERVALS.put(PartitionPeriod.DAY, Duration.ofDays(1).toMillis());
         MAX_INTERVALS.put(PartitionPeriod.MONTH, Duration.ofDays(28).toMillis());
         MAX_INTERVALS.put(PartitionPeriod.YEAR, Duration.ofDays(365).toMillis());
+        MAX_PERIODS.put(PartitionPeriod.DAY, Duration.ofDays(1).toMillis());
+        MAX_PERIODS.put(PartitionPeriod.MONTH, Duration.ofDays(31).toMillis());
+        MAX_PERIODS.put(PartitionPeriod.YEAR, Duration.ofDays(366).toMillis());
     }
 
     @Schema(description = "Series ID")
@@ -67,6 +81,13 @@ public class SeriesDefinition {
     @Schema(description = "Maximum supported value when using a mapped range type. Values to be stored will be constrained to this maximum value.")
     private Double max;
 
+    @Schema(description = "Optional rollup intervals in milliseconds. The count, sum, minimum and maximum of each rollup interval are maintained on insert and used to answer long range queries. Each rollup interval must be a multiple of the preceding interval, starting with the series interval, and must exactly divide a day.")
+    private List<Long> rollups;
+
+    @Schema(description = "Optional retention in milliseconds. Partitions that end before the retention are deleted in the background, so values are kept for at least the retention and at most one partition period longer.")
+    @Positive
+    private Long retention;
+
     @JsonIgnore
     @AssertTrue
     public boolean isTypeValid() {
@@ -85,9 +106,41 @@ public class SeriesDefinition {
         return maxInterval != null && interval <= maxInterval;
     }
 
+    @JsonIgnore
+    @AssertTrue(message = "partition size must not exceed " + MAX_PARTITION_BYTES + " bytes, use a longer interval, a smaller type or a shorter partition period")
+    public boolean isPartitionSizeValid() {
+        Long maxPeriod = MAX_PERIODS.get(partition);
+        if (maxPeriod == null || type == null || interval == null || interval <= 0) {
+            return true;
+        }
+        // The longest partition, such as a leap year, must fit
+        return Math.ceilDiv(maxPeriod, interval) * type.getSize() <= MAX_PARTITION_BYTES;
+    }
+
+    @JsonIgnore
+    @AssertTrue
+    public boolean isRollupsValid() {
+        if (rollups == null || interval == null) {
+            return true;
+        }
+        long previous = interval;
+        for (Long rollup : rollups) {
+            if (rollup == null || rollup <= previous || rollup % previous != 0 || DAY_MILLIS % rollup != 0) {
+                return false;
+            }
+            previous = rollup;
+        }
+        return true;
+    }
+
     @JsonIgnore
     public Duration getIntervalDuration() {
         return Duration.ofMillis(interval);
     }
 
+    @JsonIgnore
+    public Optional<Duration> getRetentionDuration() {
+        return Optional.ofNullable(retention).map(Duration::ofMillis);
+    }
+
 }
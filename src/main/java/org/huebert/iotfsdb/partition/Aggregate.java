@@ -0,0 +1,57 @@
+package org.huebert.iotfsdb.partition;
+
+import lombok.Getter;
+
+/**
+ * Running count, sum, minimum and maximum of the non-null values found while scanning one or more slot ranges.
+ */
+@Getter
+public class Aggregate {
+
+    private long slots = 0;
+
+    private long count = 0;
+
+    private double sum = 0;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void addSlots(long slots) {
+        this.slots += slots;
+    }
+
+    public void accumulate(double value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void accumulate(long count, double sum, double min, double max) {
+        if (count == 0) {
+            return;
+        }
+        this.count += count;
+        this.sum += sum;
+        this.min = Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+    }
+
+    public Aggregate combine(Aggregate other) {
+        slots += other.slots;
+        accumulate(other.count, other.sum, other.min, other.max);
+        return this;
+    }
+
+    /**
+     * Treats every scanned slot that held a null as if it contained {@code value}.
+     */
+    public Aggregate fillNulls(double value) {
+        long nulls = slots - count;
+        accumulate(nulls, nulls * value, value, value);
+        return this;
+    }
+
+}
@@ -5,6 +5,16 @@ import java.util.stream.Stream;
 
 public class BytePartition implements PartitionAdapter {
 
+    private final ScanKernel kernel;
+
+    public BytePartition() {
+        this(ScanKernels.SCALAR);
+    }
+
+    public BytePartition(ScanKernel kernel) {
+        this.kernel = kernel;
+    }
+
     @Override
     public int getTypeSize() {
         return Byte.BYTES;
@@ -19,9 +29,39 @@ public class BytePartition implements PartitionAdapter {
         ).asStream();
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        for (int i = 0; i < length; i++) {
+            byte value = buffer.get(index + i);
+            nulls[i] = value == Byte.MIN_VALUE;
+            values[i] = nulls[i] ? Double.NaN : value;
+        }
+    }
+
+    @Override
+    public void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        kernel.aggregateBytes(buffer, index, length, aggregate);
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         buffer.put(index, NumberConverter.toByte(value));
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        byte[] encoded = new byte[length];
+        for (int i = 0; i < length; i++) {
+            double value = values[offset + i];
+            encoded[i] = Double.isNaN(value) ? Byte.MIN_VALUE : (byte) value;
+        }
+        buffer.put(index, encoded);
+    }
+
+    @Override
+    public double quantize(double value) {
+        byte encoded = (byte) value;
+        return Double.isNaN(value) || encoded == Byte.MIN_VALUE ? Double.NaN : encoded;
+    }
+
 }
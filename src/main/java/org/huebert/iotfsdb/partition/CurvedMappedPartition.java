@@ -37,6 +37,16 @@ public class CurvedMappedPartition implements PartitionAdapter {
             });
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        innerAdapter.getDoubles(buffer, index, length, values, nulls);
+        for (int i = 0; i < length; i++) {
+            if (!nulls[i]) {
+                values[i] = mapper.decode(decurve(values[i] / encodedRange));
+            }
+        }
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         Double result = null;
@@ -47,6 +57,16 @@ public class CurvedMappedPartition implements PartitionAdapter {
         innerAdapter.put(buffer, index, result);
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        double[] encoded = new double[length];
+        for (int i = 0; i < length; i++) {
+            double value = values[offset + i];
+            encoded[i] = Double.isNaN(value) ? Double.NaN : Math.rint(curve(mapper.encode(value)) * encodedRange);
+        }
+        innerAdapter.putDoubles(buffer, index, length, encoded, 0);
+    }
+
     private static double curve(double value) {
         double e = Math.exp(-2.0 * value);
         return (1.0 - e) / (1.0 + e);
@@ -1,10 +1,21 @@
 package org.huebert.iotfsdb.partition;
 
 import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.stream.Stream;
 
 public class DoublePartition implements PartitionAdapter {
 
+    private final ScanKernel kernel;
+
+    public DoublePartition() {
+        this(ScanKernels.SCALAR);
+    }
+
+    public DoublePartition(ScanKernel kernel) {
+        this.kernel = kernel;
+    }
+
     @Override
     public int getTypeSize() {
         return Double.BYTES;
@@ -19,9 +30,33 @@ public class DoublePartition implements PartitionAdapter {
         ).asStream();
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
+        for (int i = 0; i < length; i++) {
+            values[i] = doubleBuffer.get(index + i);
+            nulls[i] = Double.isNaN(values[i]);
+        }
+    }
+
+    @Override
+    public void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        kernel.aggregateDoubles(buffer, index, length, aggregate);
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         buffer.asDoubleBuffer().put(index, NumberConverter.toDouble(value));
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        buffer.asDoubleBuffer().put(index, values, offset, length);
+    }
+
+    @Override
+    public double quantize(double value) {
+        return value;
+    }
+
 }
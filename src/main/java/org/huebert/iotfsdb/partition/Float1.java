@@ -182,6 +182,10 @@ public final class Float1 extends Number {
 
     @Override
     public double doubleValue() {
+        return toDouble(value);
+    }
+
+    public static double toDouble(byte value) {
 
         int sign = value & 0x80;
         int exponent = (value & 0x78) >>> 3;
@@ -24,6 +24,14 @@ public class Float1Partition implements PartitionAdapter {
         return value.isNaN() ? null : value;
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        for (int i = 0; i < length; i++) {
+            values[i] = Float1.toDouble(buffer.get((index + i) * Float1.BYTES));
+            nulls[i] = Double.isNaN(values[i]);
+        }
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         Float1 float1 = value == null ? Float1.NaN : Float1.fromDouble(value.doubleValue());
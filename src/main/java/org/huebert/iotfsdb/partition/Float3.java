@@ -191,10 +191,14 @@ public final class Float3 extends Number {
 
     @Override
     public double doubleValue() {
+        return toDouble(bytes[0], bytes[1], bytes[2]);
+    }
 
-        int sign = bytes[0] & 0x80;
-        int exponent = bytes[0] & 0x7F;
-        int mantissa = ((bytes[1] << 8) & 0xFF00) | bytes[2] & 0xFF;
+    public static double toDouble(byte b0, byte b1, byte b2) {
+
+        int sign = b0 & 0x80;
+        int exponent = b0 & 0x7F;
+        int mantissa = ((b1 << 8) & 0xFF00) | b2 & 0xFF;
 
         if (exponent == 0 && mantissa == 0) {
             return (sign == 0) ? 0.0 : -0.0;
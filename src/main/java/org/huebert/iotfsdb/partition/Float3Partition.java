@@ -24,6 +24,15 @@ public class Float3Partition implements PartitionAdapter {
         return value.isNaN() ? null : value;
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        for (int i = 0; i < length; i++) {
+            int offset = (index + i) * Float3.BYTES;
+            values[i] = Float3.toDouble(buffer.get(offset), buffer.get(offset + 1), buffer.get(offset + 2));
+            nulls[i] = Double.isNaN(values[i]);
+        }
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         Float3 float3 = value == null ? Float3.NaN : Float3.fromDouble(value.doubleValue());
@@ -1,10 +1,21 @@
 package org.huebert.iotfsdb.partition;
 
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.stream.Stream;
 
 public class FloatPartition implements PartitionAdapter {
 
+    private final ScanKernel kernel;
+
+    public FloatPartition() {
+        this(ScanKernels.SCALAR);
+    }
+
+    public FloatPartition(ScanKernel kernel) {
+        this.kernel = kernel;
+    }
+
     @Override
     public int getTypeSize() {
         return Float.BYTES;
@@ -19,9 +30,37 @@ public class FloatPartition implements PartitionAdapter {
         ).asStream();
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        FloatBuffer floatBuffer = buffer.asFloatBuffer();
+        for (int i = 0; i < length; i++) {
+            values[i] = floatBuffer.get(index + i);
+            nulls[i] = Double.isNaN(values[i]);
+        }
+    }
+
+    @Override
+    public void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        kernel.aggregateFloats(buffer, index, length, aggregate);
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         buffer.asFloatBuffer().put(index, NumberConverter.toFloat(value));
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        float[] encoded = new float[length];
+        for (int i = 0; i < length; i++) {
+            encoded[i] = (float) values[offset + i];
+        }
+        buffer.asFloatBuffer().put(index, encoded);
+    }
+
+    @Override
+    public double quantize(double value) {
+        return (float) value;
+    }
+
 }
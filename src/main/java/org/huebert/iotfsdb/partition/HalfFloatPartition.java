@@ -1,6 +1,7 @@
 package org.huebert.iotfsdb.partition;
 
 import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 import java.util.stream.Stream;
 
 public class HalfFloatPartition implements PartitionAdapter {
@@ -19,9 +20,27 @@ public class HalfFloatPartition implements PartitionAdapter {
         ).asStream();
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        ShortBuffer shortBuffer = buffer.asShortBuffer();
+        for (int i = 0; i < length; i++) {
+            values[i] = Float.float16ToFloat(shortBuffer.get(index + i));
+            nulls[i] = Double.isNaN(values[i]);
+        }
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         buffer.asShortBuffer().put(index, NumberConverter.toHalfFloat(value));
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        short[] encoded = new short[length];
+        for (int i = 0; i < length; i++) {
+            encoded[i] = Float.floatToFloat16((float) values[offset + i]);
+        }
+        buffer.asShortBuffer().put(index, encoded);
+    }
+
 }
@@ -1,10 +1,21 @@
 package org.huebert.iotfsdb.partition;
 
 import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.stream.Stream;
 
 public class IntegerPartition implements PartitionAdapter {
 
+    private final ScanKernel kernel;
+
+    public IntegerPartition() {
+        this(ScanKernels.SCALAR);
+    }
+
+    public IntegerPartition(ScanKernel kernel) {
+        this.kernel = kernel;
+    }
+
     @Override
     public int getTypeSize() {
         return Integer.BYTES;
@@ -19,10 +30,40 @@ public class IntegerPartition implements PartitionAdapter {
         ).asStream();
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        IntBuffer intBuffer = buffer.asIntBuffer();
+        for (int i = 0; i < length; i++) {
+            int value = intBuffer.get(index + i);
+            nulls[i] = value == Integer.MIN_VALUE;
+            values[i] = nulls[i] ? Double.NaN : value;
+        }
+    }
+
+    @Override
+    public void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        kernel.aggregateInts(buffer, index, length, aggregate);
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         buffer.asIntBuffer().put(index, NumberConverter.toInt(value));
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        int[] encoded = new int[length];
+        for (int i = 0; i < length; i++) {
+            double value = values[offset + i];
+            encoded[i] = Double.isNaN(value) ? Integer.MIN_VALUE : (int) value;
+        }
+        buffer.asIntBuffer().put(index, encoded);
+    }
+
+    @Override
+    public double quantize(double value) {
+        int encoded = (int) value;
+        return Double.isNaN(value) || encoded == Integer.MIN_VALUE ? Double.NaN : encoded;
+    }
 
 }
@@ -1,10 +1,21 @@
 package org.huebert.iotfsdb.partition;
 
 import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.util.stream.Stream;
 
 public class LongPartition implements PartitionAdapter {
 
+    private final ScanKernel kernel;
+
+    public LongPartition() {
+        this(ScanKernels.SCALAR);
+    }
+
+    public LongPartition(ScanKernel kernel) {
+        this.kernel = kernel;
+    }
+
     @Override
     public int getTypeSize() {
         return Long.BYTES;
@@ -19,6 +30,29 @@ public class LongPartition implements PartitionAdapter {
         ).asStream();
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        LongBuffer longBuffer = buffer.asLongBuffer();
+        for (int i = 0; i < length; i++) {
+            long value = longBuffer.get(index + i);
+            nulls[i] = value == Long.MIN_VALUE;
+            values[i] = nulls[i] ? Double.NaN : value;
+        }
+    }
+
+    @Override
+    public void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        kernel.aggregateLongs(buffer, index, length, aggregate);
+    }
+
+    /**
+     * Longs beyond 2^53 are not represented exactly by a double.
+     */
+    @Override
+    public boolean isDoubleExact() {
+        return false;
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         buffer.asLongBuffer().put(index, NumberConverter.toLong(value));
@@ -35,6 +35,23 @@ public class MappedPartition implements PartitionAdapter {
             });
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        innerAdapter.getDoubles(buffer, index, length, values, nulls);
+        for (int i = 0; i < length; i++) {
+            if (!nulls[i]) {
+                values[i] = mapper.decode(values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        Aggregate encoded = new Aggregate();
+        innerAdapter.aggregate(buffer, index, length, encoded);
+        aggregate.combine(mapper.decode(encoded));
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         Double result = null;
@@ -44,4 +61,14 @@ public class MappedPartition implements PartitionAdapter {
         innerAdapter.put(buffer, index, result);
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        double[] encoded = new double[length];
+        for (int i = 0; i < length; i++) {
+            double value = values[offset + i];
+            encoded[i] = Double.isNaN(value) ? Double.NaN : Math.rint(mapper.encode(value));
+        }
+        innerAdapter.putDoubles(buffer, index, length, encoded, 0);
+    }
+
 }
@@ -1,6 +1,8 @@
 package org.huebert.iotfsdb.partition;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
 public interface PartitionAdapter {
@@ -11,4 +13,83 @@ public interface PartitionAdapter {
 
     Stream<Number> getStream(ByteBuffer buffer, int index, int length);
 
+    /**
+     * Indicates whether every value of the type is represented exactly by a double, so that values can be written with
+     * {@link #putDoubles} without losing precision.
+     */
+    default boolean isDoubleExact() {
+        return true;
+    }
+
+    /**
+     * Writes {@code length} values starting at {@code values[offset]} to consecutive slots starting at slot
+     * {@code index}. {@link Double#NaN} is written as null.
+     */
+    default void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        for (int i = 0; i < length; i++) {
+            put(buffer, index + i, NumberConverter.fromDouble(values[offset + i]));
+        }
+    }
+
+    /**
+     * Returns the value that is read back after {@code value} is written, so that values merged before they are written
+     * are rounded the same as values merged one at a time in the buffer. {@link Double#NaN} is null.
+     */
+    default double quantize(double value) {
+        ByteBuffer scratch = ByteBuffer.allocate(getTypeSize());
+        putDoubles(scratch, 0, 1, new double[] {value}, 0);
+        double[] decoded = new double[1];
+        getDoubles(scratch, 0, 1, decoded, new boolean[1]);
+        return decoded[0];
+    }
+
+    /**
+     * Writes null to {@code length} slots starting at slot {@code index}. The encoded null of a single slot is written
+     * once and then repeatedly copied in bulk, doubling the filled region each time.
+     */
+    default void putNulls(ByteBuffer buffer, int index, int length) {
+        if (length <= 0) {
+            return;
+        }
+        int typeSize = getTypeSize();
+        ByteBuffer pattern = ByteBuffer.allocate(typeSize).order(buffer.order());
+        put(pattern, 0, null);
+
+        int offset = index * typeSize;
+        int total = length * typeSize;
+        buffer.put(offset, pattern, 0, typeSize);
+        for (int filled = typeSize; filled < total; filled <<= 1) {
+            buffer.put(offset + filled, buffer, offset, Math.min(filled, total - filled));
+        }
+    }
+
+    /**
+     * Decodes {@code length} values starting at slot {@code index} into the first {@code length} elements of
+     * {@code values}. Null slots are flagged in {@code nulls} and decoded as {@link Double#NaN}.
+     */
+    void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls);
+
+    /**
+     * Decodes {@code length} values starting at slot {@code index} without boxing. Null slots are returned as {@link Double#NaN}.
+     */
+    default DoubleStream getDoubleStream(ByteBuffer buffer, int index, int length) {
+        double[] values = new double[length];
+        getDoubles(buffer, index, length, values, new boolean[length]);
+        return Arrays.stream(values);
+    }
+
+    /**
+     * Accumulates the non-null values of {@code length} slots starting at slot {@code index} into {@code aggregate}.
+     */
+    default void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        double[] values = new double[length];
+        boolean[] nulls = new boolean[length];
+        getDoubles(buffer, index, length, values, nulls);
+        for (int i = 0; i < length; i++) {
+            if (!nulls[i]) {
+                aggregate.accumulate(values[i]);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,255 @@
+package org.huebert.iotfsdb.partition;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Lossless encodings used to store sealed partitions.
+ * The encoded form starts with the codec, the slot size and the number of slots so that it can be decoded without the series definition.
+ */
+public enum PartitionCodec {
+
+    /**
+     * Gorilla style encoding of the XOR between the bit patterns of consecutive slots. Used for floating point types.
+     */
+    XOR {
+        @Override
+        void encodeSlots(ByteBuffer buffer, int typeSize, int size, BitWriter writer) {
+            long previous = 0;
+            int leading = -1;
+            int trailing = 0;
+            for (int i = 0; i < size; i++) {
+                long value = getSlot(buffer, i, typeSize);
+                long xor = value ^ previous;
+                if (xor == 0) {
+                    writer.write(0, 1);
+                } else {
+                    int lz = Long.numberOfLeadingZeros(xor);
+                    int tz = Long.numberOfTrailingZeros(xor);
+                    if (leading >= 0 && lz >= leading && tz >= trailing) {
+                        writer.write(0b10, 2);
+                        writer.write(xor >>> trailing, Long.SIZE - leading - trailing);
+                    } else {
+                        leading = lz;
+                        trailing = tz;
+                        int length = Long.SIZE - lz - tz;
+                        writer.write(0b11, 2);
+                        writer.write(lz, 6);
+                        writer.write(length - 1, 6);
+                        writer.write(xor >>> tz, length);
+                    }
+                }
+                previous = value;
+            }
+        }
+
+        @Override
+        void decodeSlots(BitReader reader, int typeSize, int size, ByteBuffer buffer) {
+            long previous = 0;
+            int leading = 0;
+            int trailing = 0;
+            for (int i = 0; i < size; i++) {
+                if (reader.read(1) != 0) {
+                    if (reader.read(1) != 0) {
+                        leading = (int) reader.read(6);
+                        trailing = Long.SIZE - leading - (int) reader.read(6) - 1;
+                    }
+                    previous ^= reader.read(Long.SIZE - leading - trailing) << trailing;
+                }
+                putSlot(buffer, i, typeSize, previous);
+            }
+        }
+    },
+
+    /**
+     * Delta-of-delta between consecutive non-null values written as zigzag varints, with nulls stored as run lengths.
+     * Used for integer types, where null is the minimum value of the slot.
+     */
+    DELTA {
+        @Override
+        void encodeSlots(ByteBuffer buffer, int typeSize, int size, BitWriter writer) {
+            long nullValue = getNullValue(typeSize);
+            long previous = 0;
+            long delta = 0;
+            int i = 0;
+            while (i < size) {
+                int nullStart = i;
+                while (i < size && getSigned(buffer, i, typeSize) == nullValue) {
+                    i++;
+                }
+                int valueStart = i;
+                while (i < size && getSigned(buffer, i, typeSize) != nullValue) {
+                    i++;
+                }
+                writer.writeVarint(valueStart - nullStart);
+                writer.writeVarint(i - valueStart);
+                for (int j = valueStart; j < i; j++) {
+                    long value = getSigned(buffer, j, typeSize);
+                    long current = value - previous;
+                    long dod = current - delta;
+                    writer.writeVarint((dod << 1) ^ (dod >> 63));
+                    delta = current;
+                    previous = value;
+                }
+            }
+        }
+
+        @Override
+        void decodeSlots(BitReader reader, int typeSize, int size, ByteBuffer buffer) {
+            long nullValue = getNullValue(typeSize);
+            long previous = 0;
+            long delta = 0;
+            int i = 0;
+            while (i < size) {
+                int nulls = (int) reader.readVarint();
+                for (int end = i + nulls; i < end; i++) {
+                    putSlot(buffer, i, typeSize, nullValue);
+                }
+                int values = (int) reader.readVarint();
+                for (int end = i + values; i < end; i++) {
+                    long zigzag = reader.readVarint();
+                    delta += (zigzag >>> 1) ^ -(zigzag & 1);
+                    previous += delta;
+                    putSlot(buffer, i, typeSize, previous);
+                }
+            }
+        }
+    };
+
+    private static final PartitionCodec[] VALUES = values();
+
+    abstract void encodeSlots(ByteBuffer buffer, int typeSize, int size, BitWriter writer);
+
+    abstract void decodeSlots(BitReader reader, int typeSize, int size, ByteBuffer buffer);
+
+    /**
+     * Encodes every slot of a raw partition buffer.
+     */
+    public byte[] encode(ByteBuffer buffer, int typeSize) {
+        int size = buffer.capacity() / typeSize;
+        BitWriter writer = new BitWriter(buffer.capacity() / 4 + 16);
+        writer.write(ordinal(), Byte.SIZE);
+        writer.write(typeSize, Byte.SIZE);
+        writer.write(size, Integer.SIZE);
+        encodeSlots(buffer, typeSize, size, writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes an encoded partition into a new raw partition buffer.
+     */
+    public static ByteBuffer decode(ByteBuffer encoded) {
+        BitReader reader = new BitReader(encoded);
+        int codec = (int) reader.read(Byte.SIZE);
+        if (codec >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown partition codec: " + codec);
+        }
+        int typeSize = (int) reader.read(Byte.SIZE);
+        int size = (int) reader.read(Integer.SIZE);
+        ByteBuffer buffer = ByteBuffer.allocate(typeSize * size);
+        VALUES[codec].decodeSlots(reader, typeSize, size, buffer);
+        return buffer;
+    }
+
+    private static long getSlot(ByteBuffer buffer, int index, int typeSize) {
+        int offset = index * typeSize;
+        long value = 0;
+        for (int i = 0; i < typeSize; i++) {
+            value = (value << Byte.SIZE) | (buffer.get(offset + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private static void putSlot(ByteBuffer buffer, int index, int typeSize, long value) {
+        int offset = index * typeSize;
+        for (int i = typeSize - 1; i >= 0; i--) {
+            buffer.put(offset + i, (byte) value);
+            value >>>= Byte.SIZE;
+        }
+    }
+
+    private static long getSigned(ByteBuffer buffer, int index, int typeSize) {
+        int shift = Long.SIZE - (typeSize * Byte.SIZE);
+        return (getSlot(buffer, index, typeSize) << shift) >> shift;
+    }
+
+    private static long getNullValue(int typeSize) {
+        return Long.MIN_VALUE >> (Long.SIZE - (typeSize * Byte.SIZE));
+    }
+
+    private static class BitWriter {
+
+        private byte[] data;
+
+        private long position;
+
+        BitWriter(int capacity) {
+            data = new byte[capacity];
+        }
+
+        void write(long value, int bits) {
+            while (bits > 0) {
+                int index = (int) (position >>> 3);
+                if (index >= data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                int free = Byte.SIZE - (int) (position & 7);
+                int count = Math.min(free, bits);
+                int chunk = (int) (value >>> (bits - count)) & ((1 << count) - 1);
+                data[index] |= (byte) (chunk << (free - count));
+                position += count;
+                bits -= count;
+            }
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((value & 0x7F) | 0x80, Byte.SIZE);
+                value >>>= 7;
+            }
+            write(value, Byte.SIZE);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, (int) ((position + 7) >>> 3));
+        }
+
+    }
+
+    private static class BitReader {
+
+        private final ByteBuffer data;
+
+        private long position;
+
+        BitReader(ByteBuffer data) {
+            this.data = data;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            while (bits > 0) {
+                int available = Byte.SIZE - (int) (position & 7);
+                int count = Math.min(available, bits);
+                int chunk = ((data.get((int) (position >>> 3)) & 0xFF) >>> (available - count)) & ((1 << count) - 1);
+                value = (value << count) | chunk;
+                position += count;
+                bits -= count;
+            }
+            return value;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                long b = read(Byte.SIZE);
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+    }
+
+}
@@ -34,7 +34,7 @@ public class RangeMapper {
         this.decodeConversion = decodedRange / encodedRange;
     }
 
-    public Double encode(double decoded) {
+    public double encode(double decoded) {
         if (constrain) {
             if (decoded < decodedMin) {
                 return encodedMin;
@@ -45,7 +45,7 @@ public class RangeMapper {
         return convert(decoded, decodedMin, encodedMin, encodeConversion);
     }
 
-    public Double decode(double encoded) {
+    public double decode(double encoded) {
         if (constrain) {
             if (encoded < encodedMin) {
                 return decodedMin;
@@ -56,6 +56,20 @@ public class RangeMapper {
         return convert(encoded, encodedMin, decodedMin, decodeConversion);
     }
 
+    /**
+     * Decodes an aggregate of encoded values. The sum is decoded as a linear transform of the count and encoded sum.
+     */
+    public Aggregate decode(Aggregate encoded) {
+        Aggregate decoded = new Aggregate();
+        decoded.addSlots(encoded.getSlots());
+        long count = encoded.getCount();
+        if (count > 0) {
+            double sum = ((encoded.getSum() - (count * encodedMin)) * decodeConversion) + (count * decodedMin);
+            decoded.accumulate(count, sum, decode(encoded.getMin()), decode(encoded.getMax()));
+        }
+        return decoded;
+    }
+
     private static double convert(double value, double inMin, double outMin, double conversion) {
         return ((value - inMin) * conversion) + outMin;
     }
@@ -0,0 +1,47 @@
+package org.huebert.iotfsdb.partition;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of a rollup partition. Each bucket stores the count, sum, minimum and maximum of the non-null values it covers.
+ * A zero-filled bucket is empty.
+ */
+public class RollupPartition {
+
+    public static final int BUCKET_SIZE = Long.BYTES + (3 * Double.BYTES);
+
+    private static final int SUM_OFFSET = Long.BYTES;
+
+    private static final int MIN_OFFSET = SUM_OFFSET + Double.BYTES;
+
+    private static final int MAX_OFFSET = MIN_OFFSET + Double.BYTES;
+
+    public static void put(ByteBuffer buffer, int index, Aggregate aggregate) {
+        int offset = index * BUCKET_SIZE;
+        boolean empty = aggregate.getCount() == 0;
+        buffer.putLong(offset, aggregate.getCount());
+        buffer.putDouble(offset + SUM_OFFSET, empty ? 0 : aggregate.getSum());
+        buffer.putDouble(offset + MIN_OFFSET, empty ? 0 : aggregate.getMin());
+        buffer.putDouble(offset + MAX_OFFSET, empty ? 0 : aggregate.getMax());
+    }
+
+    public static long getCount(ByteBuffer buffer, int index) {
+        return buffer.getLong(index * BUCKET_SIZE);
+    }
+
+    /**
+     * Combines {@code length} buckets starting at bucket {@code index} into {@code aggregate}.
+     */
+    public static void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        for (int i = index; i < index + length; i++) {
+            int offset = i * BUCKET_SIZE;
+            aggregate.accumulate(
+                buffer.getLong(offset),
+                buffer.getDouble(offset + SUM_OFFSET),
+                buffer.getDouble(offset + MIN_OFFSET),
+                buffer.getDouble(offset + MAX_OFFSET)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.huebert.iotfsdb.partition;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+public class ScalarScanKernel implements ScanKernel {
+
+    @Override
+    public void aggregateBytes(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        long count = 0;
+        long sum = 0;
+        int min = Byte.MAX_VALUE;
+        int max = Byte.MIN_VALUE;
+        for (int i = index; i < index + length; i++) {
+            byte value = buffer.get(i);
+            if (value != Byte.MIN_VALUE) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        aggregate.accumulate(count, sum, min, max);
+    }
+
+    @Override
+    public void aggregateShorts(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        ShortBuffer shortBuffer = buffer.asShortBuffer();
+        long count = 0;
+        long sum = 0;
+        int min = Short.MAX_VALUE;
+        int max = Short.MIN_VALUE;
+        for (int i = index; i < index + length; i++) {
+            short value = shortBuffer.get(i);
+            if (value != Short.MIN_VALUE) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        aggregate.accumulate(count, sum, min, max);
+    }
+
+    @Override
+    public void aggregateInts(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        IntBuffer intBuffer = buffer.asIntBuffer();
+        long count = 0;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = index; i < index + length; i++) {
+            int value = intBuffer.get(i);
+            if (value != Integer.MIN_VALUE) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        aggregate.accumulate(count, sum, min, max);
+    }
+
+    @Override
+    public void aggregateLongs(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        LongBuffer longBuffer = buffer.asLongBuffer();
+        long count = 0;
+        double sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = index; i < index + length; i++) {
+            long value = longBuffer.get(i);
+            if (value != Long.MIN_VALUE) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        aggregate.accumulate(count, sum, min, max);
+    }
+
+    @Override
+    public void aggregateFloats(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        FloatBuffer floatBuffer = buffer.asFloatBuffer();
+        long count = 0;
+        double sum = 0;
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = index; i < index + length; i++) {
+            float value = floatBuffer.get(i);
+            if (!Float.isNaN(value)) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        aggregate.accumulate(count, sum, min, max);
+    }
+
+    @Override
+    public void aggregateDoubles(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = index; i < index + length; i++) {
+            double value = doubleBuffer.get(i);
+            if (!Double.isNaN(value)) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        aggregate.accumulate(count, sum, min, max);
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.huebert.iotfsdb.partition;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Accumulates the non-null values of a slot range for each fixed-width storage type. Null sentinels are skipped.
+ */
+public interface ScanKernel {
+
+    void aggregateBytes(ByteBuffer buffer, int index, int length, Aggregate aggregate);
+
+    void aggregateShorts(ByteBuffer buffer, int index, int length, Aggregate aggregate);
+
+    void aggregateInts(ByteBuffer buffer, int index, int length, Aggregate aggregate);
+
+    void aggregateLongs(ByteBuffer buffer, int index, int length, Aggregate aggregate);
+
+    void aggregateFloats(ByteBuffer buffer, int index, int length, Aggregate aggregate);
+
+    void aggregateDoubles(ByteBuffer buffer, int index, int length, Aggregate aggregate);
+
+}
@@ -0,0 +1,40 @@
+package org.huebert.iotfsdb.partition;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Selects the {@link ScanKernel} that is passed to the partition adapters.
+ */
+@Slf4j
+public class ScanKernels {
+
+    public static final ScanKernel SCALAR = new ScalarScanKernel();
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Compiled separately with the incubator module, so that the rest of the tree does not depend on it.
+     */
+    private static final String VECTOR_KERNEL = "org.huebert.iotfsdb.partition.VectorScanKernel";
+
+    /**
+     * Returns the vectorized kernel when requested and the JVM was started with {@code --add-modules jdk.incubator.vector},
+     * and the scalar kernel otherwise.
+     */
+    public static ScanKernel select(boolean vectorized) {
+        if (vectorized && ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            log.warn("Vectorized scans requested but module {} is not available, using scalar scans", VECTOR_MODULE);
+            vectorized = false;
+        }
+        if (!vectorized) {
+            return SCALAR;
+        }
+        try {
+            return (ScanKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            log.warn("Vectorized scans requested but {} could not be loaded, using scalar scans", VECTOR_KERNEL, e);
+            return SCALAR;
+        }
+    }
+
+}
@@ -2,10 +2,21 @@ package org.huebert.iotfsdb.partition;
 
 
 import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 import java.util.stream.Stream;
 
 public class ShortPartition implements PartitionAdapter {
 
+    private final ScanKernel kernel;
+
+    public ShortPartition() {
+        this(ScanKernels.SCALAR);
+    }
+
+    public ShortPartition(ScanKernel kernel) {
+        this.kernel = kernel;
+    }
+
     @Override
     public int getTypeSize() {
         return Short.BYTES;
@@ -20,9 +31,40 @@ public class ShortPartition implements PartitionAdapter {
         ).asStream();
     }
 
+    @Override
+    public void getDoubles(ByteBuffer buffer, int index, int length, double[] values, boolean[] nulls) {
+        ShortBuffer shortBuffer = buffer.asShortBuffer();
+        for (int i = 0; i < length; i++) {
+            short value = shortBuffer.get(index + i);
+            nulls[i] = value == Short.MIN_VALUE;
+            values[i] = nulls[i] ? Double.NaN : value;
+        }
+    }
+
+    @Override
+    public void aggregate(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        kernel.aggregateShorts(buffer, index, length, aggregate);
+    }
+
     @Override
     public void put(ByteBuffer buffer, int index, Number value) {
         buffer.asShortBuffer().put(index, NumberConverter.toShort(value));
     }
 
+    @Override
+    public void putDoubles(ByteBuffer buffer, int index, int length, double[] values, int offset) {
+        short[] encoded = new short[length];
+        for (int i = 0; i < length; i++) {
+            double value = values[offset + i];
+            encoded[i] = Double.isNaN(value) ? Short.MIN_VALUE : (short) value;
+        }
+        buffer.asShortBuffer().put(index, encoded);
+    }
+
+    @Override
+    public double quantize(double value) {
+        short encoded = (short) value;
+        return Double.isNaN(value) || encoded == Short.MIN_VALUE ? Double.NaN : encoded;
+    }
+
 }
@@ -0,0 +1,35 @@
+package org.huebert.iotfsdb.persistence;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Expected access pattern of a region of a mapped partition, using the values of the Linux {@code madvise} constants.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AccessAdvice {
+
+    /**
+     * Pages are accessed in random order, so read-ahead is disabled.
+     */
+    RANDOM(1),
+
+    /**
+     * Pages are accessed in order, so read-ahead is aggressive and pages are freed soon after they are read.
+     */
+    SEQUENTIAL(2),
+
+    /**
+     * Pages are about to be accessed, so they are read ahead of time.
+     */
+    WILLNEED(3),
+
+    /**
+     * Pages are no longer needed by this mapping.
+     */
+    DONTNEED(4);
+
+    private final int value;
+
+}
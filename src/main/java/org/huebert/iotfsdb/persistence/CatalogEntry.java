@@ -0,0 +1,14 @@
+package org.huebert.iotfsdb.persistence;
+
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.service.PartitionKey;
+
+import java.util.Set;
+
+/**
+ * Definition, partitions and sidecars of a series as of the last time that its files were changed.
+ *
+ * @param modified value returned by {@link PersistenceAdapter#getModified(String)} when the entry was taken
+ */
+public record CatalogEntry(SeriesFile seriesFile, long modified, Set<PartitionKey> partitions, Set<PartitionKey> sidecars) {
+}
@@ -0,0 +1,108 @@
+package org.huebert.iotfsdb.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.service.PartitionKey;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Single file that holds the catalog entries of every series so that they can be restored with one sequential read.
+ * Entries are only trusted while the files of their series are unchanged, since the series files remain the source of
+ * truth.
+ *
+ * @param created time before the first entry was taken, in milliseconds since the epoch
+ */
+record CatalogSnapshot(long created, Map<String, CatalogEntry> entries) {
+
+    private static final int MAGIC = 0x494F5443;
+
+    private static final int VERSION = 1;
+
+    /**
+     * File systems record modification times with as little as 2 second precision, so a change made shortly after an
+     * entry was taken could leave the time unchanged.
+     */
+    private static final long MODIFIED_PRECISION = 2000;
+
+    /**
+     * Indicates whether an entry still describes the files of its series.
+     */
+    boolean isCurrent(CatalogEntry entry, long modified) {
+        return entry.modified() == modified && modified < created - MODIFIED_PRECISION;
+    }
+
+    static CatalogSnapshot decode(byte[] bytes, ObjectMapper objectMapper) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, Math.max(bytes.length - Long.BYTES, 0));
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Unsupported catalog snapshot");
+        }
+        long created = input.readLong();
+        int count = input.readInt();
+        Map<String, CatalogEntry> entries = new ConcurrentHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] json = new byte[input.readInt()];
+            input.readFully(json);
+            SeriesFile seriesFile = objectMapper.readValue(json, SeriesFile.class);
+            long modified = input.readLong();
+            Set<PartitionKey> partitions = readKeys(input, seriesFile.getId());
+            Set<PartitionKey> sidecars = readKeys(input, seriesFile.getId());
+            entries.put(seriesFile.getId(), new CatalogEntry(seriesFile, modified, partitions, sidecars));
+        }
+        if (input.readLong() != crc.getValue()) {
+            throw new IOException("Catalog snapshot is corrupt");
+        }
+        return new CatalogSnapshot(created, entries);
+    }
+
+    static byte[] encode(long created, Collection<CatalogEntry> entries, ObjectMapper objectMapper) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CRC32 crc = new CRC32();
+        DataOutputStream output = new DataOutputStream(new CheckedOutputStream(bytes, crc));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(created);
+        output.writeInt(entries.size());
+        for (CatalogEntry entry : entries) {
+            byte[] json = objectMapper.writeValueAsBytes(entry.seriesFile());
+            output.writeInt(json.length);
+            output.write(json);
+            output.writeLong(entry.modified());
+            writeKeys(output, entry.partitions());
+            writeKeys(output, entry.sidecars());
+        }
+        output.flush();
+        new DataOutputStream(bytes).writeLong(crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    private static Set<PartitionKey> readKeys(DataInputStream input, String seriesId) throws IOException {
+        int count = input.readInt();
+        Set<PartitionKey> keys = HashSet.newHashSet(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(new PartitionKey(seriesId, input.readUTF()));
+        }
+        return keys;
+    }
+
+    private static void writeKeys(DataOutputStream output, Set<PartitionKey> keys) throws IOException {
+        output.writeInt(keys.size());
+        for (PartitionKey key : keys) {
+            output.writeUTF(key.partitionId());
+        }
+    }
+
+}
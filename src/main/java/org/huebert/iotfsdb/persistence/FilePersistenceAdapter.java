@@ -5,17 +5,20 @@ import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
 import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.huebert.iotfsdb.IotfsdbProperties;
 import org.huebert.iotfsdb.api.schema.PartitionPeriod;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.PartitionCodec;
+import org.huebert.iotfsdb.service.ParallelUtil;
 import org.huebert.iotfsdb.service.PartitionKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
@@ -25,9 +28,12 @@ import org.springframework.validation.annotation.Validated;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
@@ -35,9 +41,19 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -49,13 +65,20 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
 
     private static final OpenOption[] OPEN_OPTIONS_READ = {StandardOpenOption.READ};
 
-    private static final OpenOption[] OPEN_OPTIONS_TEMP = {StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE};
-
     private static final OpenOption[] OPEN_OPTIONS_READ_WRITE = {StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DSYNC};
 
     public static final String SERIES_JSON = "series.json";
 
-    private final Path propertyRoot;
+    public static final String SEALED_EXTENSION = ".sealed";
+
+    private static final String TEMP_SUFFIX = "-tmp";
+
+    /**
+     * Starts with a character that is not allowed in series IDs so that it can never be a series directory.
+     */
+    private static final String WAL_DIRECTORY = ".wal";
+
+    private static final String CATALOG_FILE = ".catalog";
 
     private final ObjectMapper objectMapper;
 
@@ -65,18 +88,48 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
 
     private final boolean zip;
 
+    /**
+     * Roots that new series are placed in by consistent hashing of their ID.
+     */
+    private final List<Path> shardPaths;
+
+    /**
+     * Roots that are searched for series, which include the root even when it is not a shard.
+     */
+    private final List<Path> seriesPaths;
+
+    private final Map<String, Path> seriesRoots = new ConcurrentHashMap<>();
+
+    /**
+     * Roots on slower storage that old partitions are migrated to, searched after the root.
+     */
+    private final List<Path> coldPaths;
+
+    /**
+     * Catalog snapshot file, which is null when snapshots are disabled.
+     */
+    private final Path catalogPath;
+
+    /**
+     * Snapshot read by the last call to {@link #getSeries()}. Entries are removed once their partitions have been listed.
+     */
+    private volatile CatalogSnapshot catalog;
+
+    private final WriteAheadLog writeAheadLog;
+
+    private final MemoryAdvisor memoryAdvisor;
+
     @Autowired
     public FilePersistenceAdapter(@NotNull IotfsdbProperties properties, @NotNull ObjectMapper objectMapper) {
-        this(properties.getPersistence().getRoot(), objectMapper);
+        this(properties.getPersistence().getRoot(), objectMapper, properties.getPersistence());
     }
 
     public static FilePersistenceAdapter create(Path propertyRoot, ObjectMapper objectMapper) {
-        return new FilePersistenceAdapter(propertyRoot, objectMapper);
+        return new FilePersistenceAdapter(propertyRoot, objectMapper, null);
     }
 
-    private FilePersistenceAdapter(Path propertyRoot, ObjectMapper objectMapper) {
+    private FilePersistenceAdapter(Path propertyRoot, ObjectMapper objectMapper, IotfsdbProperties.PersistenceProperties persistence) {
         this.objectMapper = objectMapper;
-        this.propertyRoot = propertyRoot;
 
         if (propertyRoot == null) {
             throw new IllegalArgumentException("Root database path is null");
@@ -98,6 +151,40 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        if (zip || persistence == null) {
+            shardPaths = List.of(rootPath);
+            coldPaths = List.of();
+        } else {
+            shardPaths = persistence.getRoots().isEmpty() ? List.of(rootPath) : List.copyOf(persistence.getRoots());
+            coldPaths = List.copyOf(persistence.getColdRoots());
+            try {
+                for (Path path : Iterables.concat(shardPaths, coldPaths)) {
+                    Files.createDirectories(path);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        seriesPaths = Stream.concat(Stream.of(rootPath), shardPaths.stream()).distinct().toList();
+
+        catalogPath = !zip && persistence != null && persistence.isCatalog() ? rootPath.resolve(CATALOG_FILE) : null;
+
+        IotfsdbProperties.WalProperties wal = persistence == null ? null : persistence.getWal();
+        if (!zip && wal != null && wal.isEnabled()) {
+            writeAheadLog = new WriteAheadLog(rootPath.resolve(WAL_DIRECTORY), wal.getCommitInterval(), wal.getCommitSize());
+        } else {
+            writeAheadLog = null;
+        }
+
+        if (persistence != null && persistence.isAccessHints()) {
+            memoryAdvisor = MemoryAdvisor.create().orElse(null);
+            if (memoryAdvisor == null) {
+                log.warn("Access hints are not supported on this platform");
+            }
+        } else {
+            memoryAdvisor = null;
+        }
     }
 
     @PostConstruct
@@ -105,18 +192,39 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
         log.info("Using {}", getClass().getSimpleName());
     }
 
+    /**
+     * Roots are listed in parallel, since they are usually on separate devices.
+     */
     @Override
     public List<SeriesFile> getSeries() {
-        try (Stream<Path> stream = Files.list(rootPath)) {
-            return stream
-                .filter(Files::isDirectory)
-                .map(s -> s.resolve(SERIES_JSON))
-                .filter(Files::isRegularFile)
-                .map(this::readSeriesFile)
-                .toList();
+        catalog = readCatalog();
+        return seriesPaths.parallelStream()
+            .flatMap(root -> findSeries(root).stream())
+            .toList();
+    }
+
+    /**
+     * Series definitions are read on virtual threads, so that reads of many small files wait on the disk together.
+     */
+    private List<SeriesFile> findSeries(Path root) {
+        List<Path> directories;
+        try (Stream<Path> stream = Files.list(root)) {
+            directories = stream.filter(Files::isDirectory).toList();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        return ParallelUtil.map(directories, s -> {
+                if (!Files.isRegularFile(s.resolve(SERIES_JSON))) {
+                    return null;
+                }
+                String seriesId = s.getFileName().toString();
+                seriesRoots.putIfAbsent(seriesId, root);
+                return getCatalogEntry(seriesId)
+                    .map(CatalogEntry::seriesFile)
+                    .orElseGet(() -> readSeriesFile(s.resolve(SERIES_JSON)));
+            }).stream()
+            .filter(Objects::nonNull)
+            .toList();
     }
 
     private SeriesFile readSeriesFile(Path file) {
@@ -144,18 +252,67 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
         if (!FileSystemUtils.deleteRecursively(getSeriesRoot(seriesId).toFile())) {
             throw new RuntimeException("Unable to delete series: " + seriesId);
         }
+        seriesRoots.remove(seriesId);
+        for (Path coldPath : coldPaths) {
+            FileSystemUtils.deleteRecursively(getSeriesRoot(coldPath, seriesId).toFile());
+        }
     }
 
     @Override
     public Set<PartitionKey> getPartitions(@NotNull @Valid SeriesFile seriesFile) {
-        PartitionPeriod partitionPeriod = seriesFile.getDefinition().getPartition();
+        return getCatalogEntry(seriesFile.getId())
+            .map(CatalogEntry::partitions)
+            .orElseGet(() -> findPartitions(seriesFile));
+    }
+
+    /**
+     * The snapshot entry of the series is no longer needed once the series is listed, so it is dropped.
+     */
+    @Override
+    public PartitionListing getListing(@NotNull @Valid SeriesFile seriesFile) {
+        Optional<CatalogEntry> entry = getCatalogEntry(seriesFile.getId());
+        CatalogSnapshot snapshot = catalog;
+        if (snapshot != null) {
+            snapshot.entries().remove(seriesFile.getId());
+        }
+        if (entry.isPresent()) {
+            return new PartitionListing(entry.get().partitions(), entry.get().sidecars());
+        }
+        PartitionPeriod partition = seriesFile.getDefinition().getPartition();
+        return new PartitionListing(
+            findPartitions(seriesFile),
+            findPartitions(seriesFile, filename -> !filename.endsWith(SEALED_EXTENSION) && partition.matchesSidecar(filename))
+        );
+    }
+
+    private Set<PartitionKey> findPartitions(SeriesFile seriesFile) {
+        PartitionPeriod partition = seriesFile.getDefinition().getPartition();
+        return findPartitions(seriesFile, filename -> partition.matches(getPartitionId(filename)));
+    }
+
+    /**
+     * Partitions are searched in every root, so a partition that was interrupted while it was migrated is only returned once.
+     */
+    private Set<PartitionKey> findPartitions(SeriesFile seriesFile, Predicate<String> filenameFilter) {
         String seriesId = seriesFile.getId();
-        try (Stream<Path> stream = Files.list(getSeriesRoot(seriesId))) {
+        Set<PartitionKey> partitions = new HashSet<>(findPartitions(getSeriesRoot(seriesId), seriesId, filenameFilter));
+        for (Path coldPath : coldPaths) {
+            Path seriesRoot = getSeriesRoot(coldPath, seriesId);
+            if (Files.isDirectory(seriesRoot)) {
+                partitions.addAll(findPartitions(seriesRoot, seriesId, filenameFilter));
+            }
+        }
+        return partitions;
+    }
+
+    private static Set<PartitionKey> findPartitions(Path seriesRoot, String seriesId, Predicate<String> filenameFilter) {
+        try (Stream<Path> stream = Files.list(seriesRoot)) {
             return stream
                 .filter(Files::isRegularFile)
                 .map(Path::getFileName)
                 .map(Path::toString)
-                .filter(partitionPeriod::matches)
+                .filter(filenameFilter)
+                .map(FilePersistenceAdapter::getPartitionId)
                 .map(partitionId -> new PartitionKey(seriesId, partitionId))
                 .collect(Collectors.toSet());
         } catch (IOException e) {
@@ -181,26 +338,235 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
     @Override
     public PartitionByteBuffer openPartition(@NotNull @Valid PartitionKey key) {
         Path path = getPartitionPath(key);
-        boolean readOnly = zip || !Files.isWritable(path);
+        Path sealedPath = getSealedPath(key);
+        if (!Files.exists(path) && Files.exists(sealedPath)) {
+            return PartitionByteBuffer.wrap(readSealed(sealedPath).asReadOnlyBuffer());
+        }
+        if (zip) {
+            return new ArchivedByteBuffer(path);
+        }
+        boolean readOnly = !Files.isWritable(path);
         try {
             OpenOption[] openOptions = readOnly ? OPEN_OPTIONS_READ : OPEN_OPTIONS_READ_WRITE;
-            if (zip) {
-                String prefix = String.format("iotfsdb-%s-%s-", key.seriesId(), key.partitionId());
-                path = Files.copy(path, Files.createTempFile(propertyRoot.getParent(), prefix, ".tmp"), StandardCopyOption.REPLACE_EXISTING);
-                openOptions = OPEN_OPTIONS_TEMP;
-            }
-            // File size must be retrieved before open if it is a temp file that deletes on close
             long fileSize = Files.size(path);
             FileChannel fileChannel = FileChannel.open(path, openOptions);
-            MappedByteBuffer byteBuffer = fileChannel.map(readOnly ? READ_ONLY : READ_WRITE, 0, fileSize);
-            return new FileByteBuffer(fileChannel, byteBuffer);
+            try {
+                return new FileByteBuffer(fileChannel, readOnly ? READ_ONLY : READ_WRITE, fileSize, memoryAdvisor);
+            } catch (IOException | RuntimeException e) {
+                fileChannel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void deletePartition(@NotNull @Valid PartitionKey key) {
+        Preconditions.checkArgument(!zip);
+        try {
+            for (Path seriesRoot : getSeriesRoots(key.seriesId())) {
+                Files.deleteIfExists(seriesRoot.resolve(key.partitionId()));
+                Files.deleteIfExists(seriesRoot.resolve(key.partitionId() + SEALED_EXTENSION));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean isHot(@NotNull @Valid PartitionKey key) {
+        return !coldPaths.isEmpty() && exists(getSeriesRoot(key.seriesId()), key);
+    }
+
+    /**
+     * Copies the files of the partition and its sidecars to the cold root with the most usable space and then deletes them
+     * from the root. Each copy is synced and renamed into place before any file is deleted, and a partition is read from
+     * the root for as long as it is there, so every read sees a complete copy even if the migration is interrupted. The
+     * partition file is deleted last so that an interrupted migration is retried.
+     */
+    @Override
+    public boolean migratePartition(@NotNull @Valid PartitionKey key) {
+        if (!isHot(key)) {
+            return false;
+        }
+        Path source = getSeriesRoot(key.seriesId());
+        Path target = getSeriesRoot(getColdPath(), key.seriesId());
+        try (Stream<Path> stream = Files.list(source)) {
+            List<Path> files = stream
+                .filter(Files::isRegularFile)
+                .filter(path -> PartitionPeriod.getPartitionFilename(path.getFileName().toString()).equals(key.partitionId()))
+                .sorted(Comparator.comparing((Path path) -> getPartitionId(path.getFileName().toString()).equals(key.partitionId())))
+                .toList();
+            Files.createDirectories(target);
+            for (Path file : files) {
+                copy(file, target.resolve(file.getFileName().toString()));
+            }
+            for (Path file : files) {
+                Files.delete(file);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Path getColdPath() {
+        return coldPaths.stream()
+            .max(Comparator.comparingLong(FilePersistenceAdapter::getUsableSpace))
+            .orElseThrow();
+    }
+
+    private static long getUsableSpace(Path path) {
+        try {
+            return Files.getFileStore(path).getUsableSpace();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean isSealed(@NotNull @Valid PartitionKey key) {
+        return !Files.exists(getPartitionPath(key)) && Files.exists(getSealedPath(key));
+    }
+
+    @Override
+    public boolean sealPartition(@NotNull @Valid PartitionKey key, @NotNull byte[] encoded) {
+        if (zip) {
+            return false;
+        }
+        try {
+            Path sealedPath = getSealedPath(key);
+            replace(sealedPath, encoded);
+            Files.deleteIfExists(getPartitionPath(key));
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean unsealPartition(@NotNull @Valid PartitionKey key) {
+        if (zip || !isSealed(key)) {
+            return false;
+        }
+        try {
+            Path sealedPath = getSealedPath(key);
+            replace(getPartitionPath(key), readSealed(sealedPath).array());
+            Files.delete(sealedPath);
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ByteBuffer readSealed(Path sealedPath) {
+        try {
+            return PartitionCodec.decode(ByteBuffer.wrap(Files.readAllBytes(sealedPath)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Copies and syncs the file next to its destination first so that the destination is never left partially written.
+     */
+    private static void copy(Path source, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            fileChannel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes and syncs the file next to its destination first so that the destination is never left partially written.
+     */
+    private static void replace(Path path, byte[] bytes) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+            fileChannel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Combines the modification times of the definition and the series directories, which change when files are added to
+     * or removed from them.
+     */
+    @Override
+    public long getModified(@NotBlank String seriesId) {
+        if (catalogPath == null) {
+            return 0;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(getSeriesFilePath(seriesId)).toMillis();
+            for (Path seriesRoot : getSeriesRoots(seriesId)) {
+                if (Files.isDirectory(seriesRoot)) {
+                    modified = Math.max(modified, Files.getLastModifiedTime(seriesRoot).toMillis());
+                }
+            }
+            return modified;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void saveCatalog(long created, @NotNull Collection<CatalogEntry> entries) {
+        if (catalogPath == null) {
+            return;
+        }
+        try {
+            replace(catalogPath, CatalogSnapshot.encode(created, entries, objectMapper));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private CatalogSnapshot readCatalog() {
+        if (catalogPath == null || !Files.isRegularFile(catalogPath)) {
+            return null;
+        }
+        try {
+            return CatalogSnapshot.decode(Files.readAllBytes(catalogPath), objectMapper);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}", catalogPath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the snapshot entry of a series if its files have not changed since the entry was taken.
+     */
+    private Optional<CatalogEntry> getCatalogEntry(String seriesId) {
+        CatalogSnapshot snapshot = catalog;
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        CatalogEntry entry = snapshot.entries().get(seriesId);
+        if (entry == null || !snapshot.isCurrent(entry, getModified(seriesId))) {
+            snapshot.entries().remove(seriesId);
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    @Override
+    public Optional<WriteAheadLog> getWriteAheadLog() {
+        return Optional.ofNullable(writeAheadLog);
+    }
+
     @Override
     public void close() {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
         if (fileSystem != null) {
             try {
                 fileSystem.close();
@@ -210,11 +576,58 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
         }
     }
 
+    /**
+     * Returns the directory of a series in the root that it was found in, or in the root it is placed in by consistent
+     * hashing if it does not exist yet.
+     */
     private Path getSeriesRoot(String seriesId) {
+        if (seriesPaths.size() == 1) {
+            return getSeriesRoot(rootPath, seriesId);
+        }
+        return getSeriesRoot(seriesRoots.computeIfAbsent(seriesId, this::findSeriesPath), seriesId);
+    }
+
+    private Path findSeriesPath(String seriesId) {
+        return seriesPaths.stream()
+            .filter(path -> Files.isDirectory(getSeriesRoot(path, seriesId)))
+            .findFirst()
+            .orElseGet(() -> getShardPath(seriesId));
+    }
+
+    private Path getShardPath(String seriesId) {
+        return shardPaths.get(Hashing.consistentHash(Hashing.murmur3_128().hashString(seriesId, StandardCharsets.UTF_8), shardPaths.size()));
+    }
+
+    private static Path getSeriesRoot(Path root, String seriesId) {
         if (!seriesId.matches(SeriesDefinition.ID_PATTERN)) {
             throw new IllegalArgumentException("Series ID is malformed");
         }
-        return rootPath.resolve(seriesId);
+        return root.resolve(seriesId);
+    }
+
+    /**
+     * Returns the directory of a series in its root followed by its directories in the cold roots.
+     */
+    private List<Path> getSeriesRoots(String seriesId) {
+        return Stream.concat(Stream.of(getSeriesRoot(seriesId)), coldPaths.stream().map(coldPath -> getSeriesRoot(coldPath, seriesId))).toList();
+    }
+
+    /**
+     * Returns the directory of the series in the first root that holds the partition, or in the root if none does, which is
+     * where new partitions are created.
+     */
+    private Path getSeriesRoot(PartitionKey key) {
+        if (coldPaths.isEmpty()) {
+            return getSeriesRoot(key.seriesId());
+        }
+        return getSeriesRoots(key.seriesId()).stream()
+            .filter(seriesRoot -> exists(seriesRoot, key))
+            .findFirst()
+            .orElseGet(() -> getSeriesRoot(key.seriesId()));
+    }
+
+    private static boolean exists(Path seriesRoot, PartitionKey key) {
+        return Files.exists(seriesRoot.resolve(key.partitionId())) || Files.exists(seriesRoot.resolve(key.partitionId() + SEALED_EXTENSION));
     }
 
     private Path getSeriesFilePath(String seriesId) {
@@ -222,29 +635,210 @@ public class FilePersistenceAdapter implements PersistenceAdapter {
     }
 
     private Path getPartitionPath(PartitionKey key) {
-        return getSeriesRoot(key.seriesId()).resolve(key.partitionId());
+        return getSeriesRoot(key).resolve(key.partitionId());
+    }
+
+    private Path getSealedPath(PartitionKey key) {
+        return getSeriesRoot(key).resolve(key.partitionId() + SEALED_EXTENSION);
     }
 
-    @AllArgsConstructor
+    private static String getPartitionId(String filename) {
+        return filename.endsWith(SEALED_EXTENSION) ? filename.substring(0, filename.length() - SEALED_EXTENSION.length()) : filename;
+    }
+
+    /**
+     * Partition file mapped into its own arena so that the mapping is released as soon as the last reference is,
+     * rather than whenever the garbage collector gets to it. Series definitions limit partitions to
+     * {@link SeriesDefinition#MAX_PARTITION_BYTES}, so that they can be read through a {@link ByteBuffer}.
+     */
     private static class FileByteBuffer implements PartitionByteBuffer {
 
+        private static final long PAGE_SIZE = 4096;
+
         private final FileChannel fileChannel;
 
-        private final MappedByteBuffer byteBuffer;
+        private final Arena arena = Arena.ofShared();
+
+        private final MemorySegment segment;
+
+        private final BitSet dirtyPages = new BitSet();
+
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private final MemoryAdvisor memoryAdvisor;
+
+        /**
+         * @param memoryAdvisor advisor for access hints, or null to ignore them
+         */
+        private FileByteBuffer(FileChannel fileChannel, FileChannel.MapMode mode, long size, MemoryAdvisor memoryAdvisor) throws IOException {
+            this.fileChannel = fileChannel;
+            this.segment = fileChannel.map(mode, 0, size, arena);
+            this.memoryAdvisor = memoryAdvisor;
+        }
 
         @Override
         public ByteBuffer getByteBuffer() {
-            return byteBuffer.slice();
+            return segment.asByteBuffer();
+        }
+
+        @Override
+        public MemorySegment getSegment() {
+            return segment;
+        }
+
+        @Override
+        public synchronized void markDirty(long offset, long length) {
+            dirtyPages.set(Math.toIntExact(offset / PAGE_SIZE), Math.toIntExact((offset + length - 1) / PAGE_SIZE) + 1);
+        }
+
+        /**
+         * Forces each run of consecutive dirty pages separately so that clean pages of large partitions are not synced.
+         */
+        @Override
+        public void force() {
+            BitSet pages;
+            synchronized (this) {
+                if (dirtyPages.isEmpty()) {
+                    return;
+                }
+                pages = (BitSet) dirtyPages.clone();
+                dirtyPages.clear();
+            }
+            for (int start = pages.nextSetBit(0); start >= 0; start = pages.nextSetBit(start)) {
+                int end = pages.nextClearBit(start);
+                long offset = start * PAGE_SIZE;
+                segment.asSlice(offset, Math.min(end * PAGE_SIZE, segment.byteSize()) - offset).force();
+                start = end;
+            }
+        }
+
+        @Override
+        public void advise(AccessAdvice advice, long offset, long length) {
+            if (memoryAdvisor != null) {
+                memoryAdvisor.advise(segment, advice, offset, length);
+            }
+        }
+
+        @Override
+        public void load() {
+            segment.load();
+        }
+
+        @Override
+        public boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Unmaps the file once the last reference is released. Regions written after the buffer was closed are forced first,
+         * since the owner decided whether to force the buffer when it closed it.
+         */
+        @Override
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                try {
+                    force();
+                    arena.close();
+                    fileChannel.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
         }
 
         @Override
         public void close() {
-            try {
-                fileChannel.close();
+            if (closed.compareAndSet(false, true)) {
+                synchronized (this) {
+                    dirtyPages.clear();
+                }
+                release();
+            }
+        }
+    }
+
+    /**
+     * Entry of a zip root decompressed directly into off-heap memory, so no temporary files are needed. The memory is
+     * released once the partition cache has closed the buffer and every lease on it has been released.
+     */
+    private static class ArchivedByteBuffer implements PartitionByteBuffer {
+
+        private final Arena arena = Arena.ofShared();
+
+        private final MemorySegment segment;
+
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private ArchivedByteBuffer(Path path) {
+            try (SeekableByteChannel channel = Files.newByteChannel(path, OPEN_OPTIONS_READ)) {
+                MemorySegment allocated = arena.allocate(channel.size());
+                ByteBuffer buffer = allocated.asByteBuffer();
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the entry is fully decompressed
+                }
+                segment = allocated.asReadOnly();
             } catch (IOException e) {
+                arena.close();
                 throw new RuntimeException(e);
             }
         }
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return segment.asByteBuffer();
+        }
+
+        @Override
+        public MemorySegment getSegment() {
+            return segment;
+        }
+
+        @Override
+        public void markDirty(long offset, long length) {
+            // Do nothing
+        }
+
+        @Override
+        public void force() {
+            // Do nothing
+        }
+
+        @Override
+        public boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        @Override
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                arena.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release();
+            }
+        }
     }
 
 }
@@ -0,0 +1,37 @@
+package org.huebert.iotfsdb.persistence;
+
+/**
+ * Determines when the dirty regions of memory mapped partitions are forced to disk.
+ * Regions that are not forced are written back by the operating system on its own schedule.
+ */
+public enum FlushPolicy {
+
+    /**
+     * Dirty regions are never forced.
+     */
+    NEVER,
+
+    /**
+     * Dirty regions of open partitions are forced at a fixed interval and when a partition is closed.
+     */
+    PERIODIC,
+
+    /**
+     * Dirty regions are forced whenever a partition is closed, including when the database shuts down.
+     */
+    ON_CLOSE,
+
+    /**
+     * Dirty regions are forced only when a partition is evicted from the partition cache.
+     */
+    ON_EVICTION;
+
+    public boolean isForcedOnRemoval(boolean evicted) {
+        return switch (this) {
+            case NEVER -> false;
+            case PERIODIC, ON_CLOSE -> true;
+            case ON_EVICTION -> evicted;
+        };
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.huebert.iotfsdb.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Passes access hints for mapped partitions to the kernel by calling {@code madvise} through the Foreign Function API.
+ * Only available on Linux. Hints are best effort, so a call that the kernel rejects is ignored.
+ */
+@Slf4j
+public class MemoryAdvisor {
+
+    private static final int SC_PAGESIZE = 30;
+
+    private static final long DEFAULT_PAGE_SIZE = 4096;
+
+    private final MethodHandle madvise;
+
+    private final long pageSize;
+
+    private MemoryAdvisor(MethodHandle madvise, long pageSize) {
+        this.madvise = madvise;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns an advisor if {@code madvise} can be called on this platform.
+     */
+    public static Optional<MemoryAdvisor> create() {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux")) {
+            return Optional.empty();
+        }
+        Linker linker = Linker.nativeLinker();
+        SymbolLookup lookup = linker.defaultLookup();
+        return lookup.find("madvise").map(address -> {
+            MethodHandle madvise = linker.downcallHandle(address, FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT));
+            return new MemoryAdvisor(madvise, getPageSize(linker, lookup));
+        });
+    }
+
+    private static long getPageSize(Linker linker, SymbolLookup lookup) {
+        return lookup.find("sysconf")
+            .map(address -> linker.downcallHandle(address, FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT)))
+            .map(sysconf -> {
+                try {
+                    return (long) sysconf.invokeExact(SC_PAGESIZE);
+                } catch (Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            })
+            .filter(pageSize -> pageSize > 0)
+            .orElse(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Advises the kernel how a region of a mapped segment is about to be accessed. The region is widened to whole pages
+     * and limited to the segment.
+     */
+    public void advise(MemorySegment segment, AccessAdvice advice, long offset, long length) {
+        if (offset < 0 || offset >= segment.byteSize() || length <= 0) {
+            return;
+        }
+        long end = offset + Math.min(length, segment.byteSize() - offset);
+        long start = (segment.address() + offset) & -pageSize;
+        long size = segment.address() + end - start;
+        try {
+            int result = (int) madvise.invokeExact(MemorySegment.ofAddress(start), size, advice.getValue());
+            if (result != 0) {
+                log.debug("Unable to advise {} for {} bytes at {}", advice, size, start);
+            }
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -1,25 +1,26 @@
 package org.huebert.iotfsdb.persistence;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
 import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.IotfsdbProperties;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.service.PartitionKey;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
-import java.nio.ByteBuffer;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Validated
@@ -29,9 +30,22 @@ public class MemoryPersistenceAdapter implements PersistenceAdapter {
 
     private final ConcurrentMap<String, SeriesFile> seriesMap = new ConcurrentHashMap<>();
 
-    private final SetMultimap<String, PartitionKey> partitionMap = HashMultimap.create();
+    private final ConcurrentMap<String, Set<PartitionKey>> partitionMap = new ConcurrentHashMap<>();
 
-    private final ConcurrentMap<PartitionKey, MemoryPartitionByteBuffer> byteBufferMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PartitionKey, SlabByteBuffer> byteBufferMap = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, SlabAllocator> allocators = new ConcurrentHashMap<>();
+
+    private final AtomicLong used = new AtomicLong();
+
+    private final long slabSize;
+
+    private final long memoryLimit;
+
+    public MemoryPersistenceAdapter(@NotNull IotfsdbProperties properties) {
+        this.slabSize = properties.getPersistence().getMemorySlabSize();
+        this.memoryLimit = properties.getPersistence().getMemoryLimit();
+    }
 
     @PostConstruct
     public void postConstruct() {
@@ -51,17 +65,51 @@ public class MemoryPersistenceAdapter implements PersistenceAdapter {
     @Override
     public void deleteSeries(@NotBlank String seriesId) {
         seriesMap.remove(seriesId);
+        Set<PartitionKey> keys = partitionMap.remove(seriesId);
+        if (keys != null) {
+            keys.forEach(this::deleteBuffer);
+        }
+        SlabAllocator allocator = allocators.remove(seriesId);
+        if (allocator != null) {
+            allocator.close();
+        }
     }
 
     @Override
     public Set<PartitionKey> getPartitions(@NotNull @Valid SeriesFile seriesFile) {
-        return partitionMap.get(seriesFile.getId());
+        return findPartitions(seriesFile, false);
+    }
+
+    @Override
+    public PartitionListing getListing(@NotNull @Valid SeriesFile seriesFile) {
+        return new PartitionListing(findPartitions(seriesFile, false), findPartitions(seriesFile, true));
     }
 
+    private Set<PartitionKey> findPartitions(SeriesFile seriesFile, boolean sidecar) {
+        return partitionMap.getOrDefault(seriesFile.getId(), Set.of()).stream()
+            .filter(key -> key.isSidecar() == sidecar)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Allocates the partition from the off-heap slabs of its series. The memory is zeroed and is reused once the partition
+     * is deleted and no longer leased.
+     */
     @Override
     public void createPartition(@NotNull @Valid PartitionKey key, @Positive long size) {
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect((int) size);
-        byteBufferMap.put(key, new MemoryPartitionByteBuffer(byteBuffer));
+        byteBufferMap.computeIfAbsent(key, k -> {
+            SlabAllocator allocator = allocators.computeIfAbsent(key.seriesId(), id -> new SlabAllocator(slabSize, used, memoryLimit));
+            SlabByteBuffer buffer = new SlabByteBuffer(allocator, size);
+            partitionMap.computeIfAbsent(key.seriesId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+            return buffer;
+        });
+    }
+
+    /**
+     * Number of off-heap bytes allocated for partitions.
+     */
+    public long getUsedMemory() {
+        return used.get();
     }
 
     @Override
@@ -70,23 +118,64 @@ public class MemoryPersistenceAdapter implements PersistenceAdapter {
     }
 
     @Override
-    public void close() {
-        // Do nothing
+    public void deletePartition(@NotNull @Valid PartitionKey key) {
+        deleteBuffer(key);
+        Set<PartitionKey> keys = partitionMap.get(key.seriesId());
+        if (keys != null) {
+            keys.remove(key);
+        }
     }
 
-    @AllArgsConstructor
-    private static class MemoryPartitionByteBuffer implements PartitionByteBuffer {
+    @Override
+    public boolean isSealed(@NotNull @Valid PartitionKey key) {
+        return false;
+    }
 
-        private final ByteBuffer byteBuffer;
+    @Override
+    public boolean sealPartition(@NotNull @Valid PartitionKey key, @NotNull byte[] encoded) {
+        return false;
+    }
 
-        @Override
-        public ByteBuffer getByteBuffer() {
-            return byteBuffer.slice();
-        }
+    @Override
+    public boolean unsealPartition(@NotNull @Valid PartitionKey key) {
+        return false;
+    }
+
+    @Override
+    public boolean isHot(@NotNull @Valid PartitionKey key) {
+        return false;
+    }
+
+    @Override
+    public boolean migratePartition(@NotNull @Valid PartitionKey key) {
+        return false;
+    }
+
+    @Override
+    public long getModified(@NotBlank String seriesId) {
+        return 0;
+    }
+
+    @Override
+    public void saveCatalog(long created, @NotNull Collection<CatalogEntry> entries) {
+    }
+
+    @Override
+    public Optional<WriteAheadLog> getWriteAheadLog() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() {
+        List.copyOf(byteBufferMap.keySet()).forEach(this::deleteBuffer);
+        allocators.values().forEach(SlabAllocator::close);
+        allocators.clear();
+    }
 
-        @Override
-        public void close() {
-            // Do nothing
+    private void deleteBuffer(PartitionKey key) {
+        SlabByteBuffer buffer = byteBufferMap.remove(key);
+        if (buffer != null) {
+            buffer.delete();
         }
     }
 
@@ -1,11 +1,78 @@
 package org.huebert.iotfsdb.persistence;
 
+import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
 
 public interface PartitionByteBuffer {
 
+    /**
+     * Wraps a heap buffer that is released by the garbage collector, so closing it does nothing. Off-heap memory that must
+     * be released explicitly needs its own implementation.
+     */
+    static PartitionByteBuffer wrap(ByteBuffer byteBuffer) {
+        return new UnmanagedByteBuffer(byteBuffer);
+    }
+
     ByteBuffer getByteBuffer();
 
+    /**
+     * Returns the whole partition as a segment, which is addressed by a {@code long} offset.
+     */
+    default MemorySegment getSegment() {
+        return MemorySegment.ofBuffer(getByteBuffer());
+    }
+
+    /**
+     * Returns the number of bytes in the partition.
+     */
+    default long byteSize() {
+        return getSegment().byteSize();
+    }
+
+    /**
+     * Records that a region of the buffer was written so that it is included in the next {@link #force()}.
+     */
+    void markDirty(long offset, long length);
+
+    /**
+     * Writes the regions marked dirty since the previous call to the storage device.
+     */
+    void force();
+
+    /**
+     * Hints how a region of the buffer is about to be accessed. Does nothing unless the buffer is a file mapping and
+     * access hints are enabled.
+     */
+    default void advise(AccessAdvice advice, long offset, long length) {
+        // Do nothing
+    }
+
+    /**
+     * Reads the whole buffer into physical memory. Does nothing unless the buffer is a file mapping.
+     */
+    default void load() {
+        // Do nothing
+    }
+
+    /**
+     * Acquires a reference that keeps the buffer valid until it is released, even if the buffer is closed meanwhile.
+     *
+     * @return false if the buffer has already been released by every holder and can no longer be used
+     */
+    default boolean retain() {
+        return true;
+    }
+
+    /**
+     * Releases a reference acquired by {@link #retain()}.
+     */
+    default void release() {
+        // Do nothing
+    }
+
+    /**
+     * Releases the reference held by the owner of the buffer. The buffer is released once every other reference is.
+     */
     void close();
 
 }
@@ -0,0 +1,11 @@
+package org.huebert.iotfsdb.persistence;
+
+import org.huebert.iotfsdb.service.PartitionKey;
+
+import java.util.Set;
+
+/**
+ * Partitions and sidecars of a series, listed together so that both come from the same catalog entry or directory scan.
+ */
+public record PartitionListing(Set<PartitionKey> partitions, Set<PartitionKey> sidecars) {
+}
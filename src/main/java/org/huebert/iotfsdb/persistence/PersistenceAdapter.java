@@ -8,7 +8,9 @@ import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.service.PartitionKey;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 @Validated
@@ -22,10 +24,71 @@ public interface PersistenceAdapter {
 
     Set<PartitionKey> getPartitions(@NotNull @Valid SeriesFile seriesFile);
 
+    /**
+     * Returns the partitions and sidecars of a series together.
+     */
+    PartitionListing getListing(@NotNull @Valid SeriesFile seriesFile);
+
     void createPartition(@NotNull @Valid PartitionKey key, @Positive long size);
 
     PartitionByteBuffer openPartition(@NotNull @Valid PartitionKey key);
 
+    /**
+     * Deletes a partition in both its raw and sealed forms. Deleting a partition that does not exist does nothing.
+     */
+    void deletePartition(@NotNull @Valid PartitionKey key);
+
+    /**
+     * Indicates whether a partition is only stored in its sealed form.
+     */
+    boolean isSealed(@NotNull @Valid PartitionKey key);
+
+    /**
+     * Replaces a partition with its sealed form. Sealed partitions are opened read-only.
+     *
+     * @param encoded partition encoded by a {@link org.huebert.iotfsdb.partition.PartitionCodec}
+     * @return whether the partition was sealed
+     */
+    boolean sealPartition(@NotNull @Valid PartitionKey key, @NotNull byte[] encoded);
+
+    /**
+     * Replaces a sealed partition with its raw form so that it can be written to again.
+     *
+     * @return whether the partition was sealed
+     */
+    boolean unsealPartition(@NotNull @Valid PartitionKey key);
+
+    /**
+     * Indicates whether a partition is stored in the root and can be migrated to a cold root.
+     */
+    boolean isHot(@NotNull @Valid PartitionKey key);
+
+    /**
+     * Moves a partition and its sidecars from the root to a cold root. The partition must not be open while it is moved.
+     *
+     * @return whether the partition was moved
+     */
+    boolean migratePartition(@NotNull @Valid PartitionKey key);
+
+    /**
+     * Returns a value that changes whenever a partition of a series is added or removed or its definition is edited, or 0
+     * if the adapter does not keep a catalog snapshot.
+     */
+    long getModified(@NotBlank String seriesId);
+
+    /**
+     * Replaces the catalog snapshot, which lets the next startup restore series whose files have not changed without
+     * reading their definitions or listing their partitions. Does nothing if the adapter does not keep a snapshot.
+     *
+     * @param created time before the first entry was taken, in milliseconds since the epoch
+     */
+    void saveCatalog(long created, @NotNull Collection<CatalogEntry> entries);
+
+    /**
+     * Returns the write-ahead log when it is enabled.
+     */
+    Optional<WriteAheadLog> getWriteAheadLog();
+
     void close();
 
 }
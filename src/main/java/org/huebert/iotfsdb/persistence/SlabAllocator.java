@@ -0,0 +1,201 @@
+package org.huebert.iotfsdb.persistence;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates the partitions of a series from slabs of zeroed off-heap memory, each owned by its own arena.
+ * The first slab is only as large as the first partition, and each following slab doubles in size up to the slab size, so
+ * a series with a few small partitions does not reserve a whole slab. Partitions larger than half a slab get a slab of
+ * their own. A partition reuses the smallest freed block that fits, splitting off the rest, and a slab is released as soon
+ * as every block in it has been freed, except for the slab being filled, which starts over.
+ */
+public class SlabAllocator implements AutoCloseable {
+
+    private static final long ALIGNMENT = Long.BYTES;
+
+    private final long slabSize;
+
+    private final AtomicLong used;
+
+    private final long limit;
+
+    private final NavigableMap<Long, Slab> slabs = new TreeMap<>();
+
+    private final NavigableMap<Long, Deque<MemorySegment>> freeBlocks = new TreeMap<>();
+
+    private Slab current;
+
+    private long allocated;
+
+    private boolean closed;
+
+    /**
+     * @param used  number of bytes allocated by every allocator sharing the limit
+     * @param limit maximum number of bytes allocated by every allocator sharing {@code used}, or 0 for no limit
+     */
+    public SlabAllocator(long slabSize, AtomicLong used, long limit) {
+        this.slabSize = slabSize;
+        this.used = used;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns a zeroed block of at least {@code size} bytes, which is rounded up to the alignment.
+     */
+    public synchronized MemorySegment allocate(long size) {
+        if (closed) {
+            throw new IllegalStateException("Allocator is closed");
+        }
+        long alignedSize = align(size);
+        if (alignedSize > slabSize / 2) {
+            Slab slab = createSlab(alignedSize);
+            slab.live++;
+            return slab.segment;
+        }
+        MemorySegment block = takeFreeBlock(alignedSize);
+        if (block == null) {
+            if (current == null || current.offset + alignedSize > current.segment.byteSize()) {
+                if (current != null && current.offset < current.segment.byteSize()) {
+                    addFreeBlock(current.segment.asSlice(current.offset));
+                }
+                long previous = current == null ? 0 : current.segment.byteSize();
+                current = createSlab(Math.min(slabSize, Math.max(alignedSize, previous * 2)));
+            }
+            block = current.segment.asSlice(current.offset, alignedSize);
+            current.offset += alignedSize;
+        }
+        getSlab(block).live++;
+        return block;
+    }
+
+    /**
+     * Returns a block from {@link #allocate(long)} once nothing references it anymore.
+     */
+    public synchronized void free(MemorySegment block) {
+        Slab slab = getSlab(block);
+        slab.live--;
+        if (slab.live == 0 && slab == current && !closed) {
+            // Start the current slab over rather than releasing it, since the next partition would need a new one
+            removeFreeBlocks(slab);
+            slab.segment.asSlice(0, slab.offset).fill((byte) 0);
+            slab.offset = 0;
+        } else if (slab.live == 0) {
+            releaseSlab(slab);
+        } else if (!closed) {
+            addFreeBlock(block);
+        }
+    }
+
+    public synchronized long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Stops allocating and releases every slab whose blocks have all been freed. The other slabs are released as their
+     * last block is freed, so blocks that are still referenced stay valid.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        freeBlocks.clear();
+        current = null;
+        for (Slab slab : slabs.values().stream().filter(s -> s.live == 0).toList()) {
+            releaseSlab(slab);
+        }
+    }
+
+    private MemorySegment takeFreeBlock(long alignedSize) {
+        Map.Entry<Long, Deque<MemorySegment>> entry = freeBlocks.ceilingEntry(alignedSize);
+        if (entry == null) {
+            return null;
+        }
+        MemorySegment block = entry.getValue().pop();
+        if (entry.getValue().isEmpty()) {
+            freeBlocks.remove(entry.getKey());
+        }
+        if (block.byteSize() > alignedSize) {
+            addFreeBlock(block.asSlice(alignedSize));
+            block = block.asSlice(0, alignedSize);
+        }
+        block.fill((byte) 0);
+        return block;
+    }
+
+    private void addFreeBlock(MemorySegment block) {
+        freeBlocks.computeIfAbsent(block.byteSize(), s -> new ArrayDeque<>()).push(block);
+    }
+
+    private Slab getSlab(MemorySegment block) {
+        return slabs.floorEntry(block.address()).getValue();
+    }
+
+    private Slab createSlab(long size) {
+        long total = used.addAndGet(size);
+        if (limit > 0 && total > limit) {
+            used.addAndGet(-size);
+            throw new IllegalStateException("Memory limit of " + limit + " bytes reached");
+        }
+        allocated += size;
+        Arena arena = Arena.ofShared();
+        Slab slab = new Slab(arena, arena.allocate(size, ALIGNMENT));
+        slabs.put(slab.segment.address(), slab);
+        return slab;
+    }
+
+    private void releaseSlab(Slab slab) {
+        removeFreeBlocks(slab);
+        if (slab == current) {
+            current = null;
+        }
+        slabs.remove(slab.segment.address());
+        slab.arena.close();
+        allocated -= slab.segment.byteSize();
+        used.addAndGet(-slab.segment.byteSize());
+    }
+
+    private void removeFreeBlocks(Slab slab) {
+        long start = slab.segment.address();
+        long end = start + slab.segment.byteSize();
+        Iterator<Deque<MemorySegment>> iterator = freeBlocks.values().iterator();
+        while (iterator.hasNext()) {
+            Deque<MemorySegment> blocks = iterator.next();
+            blocks.removeIf(block -> block.address() >= start && block.address() < end);
+            if (blocks.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static class Slab {
+
+        private final Arena arena;
+
+        private final MemorySegment segment;
+
+        private long offset;
+
+        private int live;
+
+        private Slab(Arena arena, MemorySegment segment) {
+            this.arena = arena;
+            this.segment = segment;
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.huebert.iotfsdb.persistence;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Partition in a block of a {@link SlabAllocator}. The memory adapter owns the buffer for as long as the partition exists,
+ * so closing it when a cache drops it does nothing. The block is freed once the partition is deleted and every lease on
+ * it has been released, so a query or insert holding a lease keeps reading valid memory.
+ */
+class SlabByteBuffer implements PartitionByteBuffer {
+
+    private final SlabAllocator allocator;
+
+    private final MemorySegment block;
+
+    private final MemorySegment segment;
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private final AtomicBoolean deleted = new AtomicBoolean();
+
+    SlabByteBuffer(SlabAllocator allocator, long size) {
+        this.allocator = allocator;
+        this.block = allocator.allocate(size);
+        this.segment = block.asSlice(0, size);
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return segment.asByteBuffer();
+    }
+
+    @Override
+    public MemorySegment getSegment() {
+        return segment;
+    }
+
+    @Override
+    public void markDirty(long offset, long length) {
+        // Do nothing
+    }
+
+    @Override
+    public void force() {
+        // Do nothing
+    }
+
+    @Override
+    public boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    @Override
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            allocator.free(block);
+        }
+    }
+
+    @Override
+    public void close() {
+        // Do nothing
+    }
+
+    /**
+     * Releases the reference held by the adapter when the partition is deleted.
+     */
+    void delete() {
+        if (deleted.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+}
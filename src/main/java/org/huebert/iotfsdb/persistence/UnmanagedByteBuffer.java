@@ -0,0 +1,27 @@
+package org.huebert.iotfsdb.persistence;
+
+import java.nio.ByteBuffer;
+
+record UnmanagedByteBuffer(ByteBuffer byteBuffer) implements PartitionByteBuffer {
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer.slice();
+    }
+
+    @Override
+    public void markDirty(long offset, long length) {
+        // Do nothing
+    }
+
+    @Override
+    public void force() {
+        // Do nothing
+    }
+
+    @Override
+    public void close() {
+        // Do nothing
+    }
+
+}
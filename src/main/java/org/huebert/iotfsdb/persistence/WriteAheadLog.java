@@ -0,0 +1,313 @@
+package org.huebert.iotfsdb.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.service.PartitionKey;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log of every region written to a partition buffer. Records are buffered in memory and a single commit thread
+ * writes and syncs them in batches, so that concurrent writers share one sync per batch. The log is split into
+ * segments that are deleted once the partitions written by them have been forced to disk.
+ */
+@Slf4j
+public class WriteAheadLog {
+
+    private static final String SEGMENT_EXTENSION = ".log";
+
+    private final Path directory;
+
+    private final long commitIntervalNanos;
+
+    private final int commitSize;
+
+    private final Thread commitThread;
+
+    private final Object segmentLock = new Object();
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private final Set<PartitionKey> dirty = new HashSet<>();
+
+    private FileChannel segment;
+
+    private long segmentNumber;
+
+    private long appended;
+
+    private long committed;
+
+    private IOException failure;
+
+    private boolean closed;
+
+    /**
+     * @param commitInterval maximum time a record waits before it is synced
+     * @param commitSize     number of pending bytes that triggers a sync before the interval has passed
+     */
+    public WriteAheadLog(Path directory, Duration commitInterval, int commitSize) {
+        this.directory = directory;
+        this.commitIntervalNanos = commitInterval.toNanos();
+        this.commitSize = commitSize;
+        try {
+            Files.createDirectories(directory);
+            segmentNumber = getSegments().stream().mapToLong(WriteAheadLog::getSegmentNumber).max().orElse(0) + 1;
+            segment = openSegment(segmentNumber);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        commitThread = Thread.ofPlatform().name("iotfsdb-wal").daemon().start(this::runCommits);
+    }
+
+    /**
+     * Appends a record of the bytes written to a region of a partition.
+     *
+     * @return position to pass to {@link #awaitCommit(long)}
+     */
+    public long append(PartitionKey key, ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(length + 64);
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeUTF(key.seriesId());
+            out.writeUTF(key.partitionId());
+            out.writeInt(offset);
+            out.writeInt(length);
+            out.write(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(record.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            pending.writeBytes(record.toByteArray());
+            dirty.add(key);
+            appended += record.size();
+            if (pending.size() == record.size() || pending.size() >= commitSize) {
+                notifyAll();
+            }
+            return appended;
+        }
+    }
+
+    /**
+     * Blocks until every record up to the position has been synced.
+     */
+    public synchronized void awaitCommit(long position) {
+        try {
+            while (committed < position && failure == null) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (committed < position) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    /**
+     * Starts a new segment and deletes the previous ones once {@code flusher} has forced the partitions they wrote.
+     */
+    public void checkpoint(Consumer<Set<PartitionKey>> flusher) {
+        Set<PartitionKey> flushed;
+        long previous;
+        synchronized (segmentLock) {
+            try {
+                commit();
+                segment.close();
+                previous = segmentNumber;
+                segment = openSegment(++segmentNumber);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            synchronized (this) {
+                flushed = Set.copyOf(dirty);
+                dirty.clear();
+            }
+        }
+        flusher.accept(flushed);
+        try {
+            for (Path path : getSegments()) {
+                if (getSegmentNumber(path) <= previous) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads every record from the existing segments in the order they were written.
+     * A record that was only partially written ends the log.
+     */
+    public void replay(RecordConsumer consumer) {
+        try {
+            for (Path path : getSegments()) {
+                if (getSegmentNumber(path) < segmentNumber) {
+                    replaySegment(path, consumer);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            commitThread.join();
+            synchronized (segmentLock) {
+                commit();
+                segment.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void runCommits() {
+        while (true) {
+            try {
+                synchronized (this) {
+                    while (!closed && pending.size() == 0) {
+                        wait();
+                    }
+                    long deadline = System.nanoTime() + commitIntervalNanos;
+                    long remaining;
+                    while (!closed && pending.size() < commitSize && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+                synchronized (segmentLock) {
+                    commit();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Unable to commit write-ahead log", e);
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes and syncs the pending records. Must be called while holding the segment lock, which keeps batches in order.
+     * Appending is not blocked while the segment is synced.
+     */
+    private void commit() throws IOException {
+        ByteBuffer bytes;
+        long position;
+        synchronized (this) {
+            bytes = ByteBuffer.wrap(pending.toByteArray());
+            pending = new ByteArrayOutputStream();
+            position = appended;
+        }
+        if (bytes.hasRemaining()) {
+            while (bytes.hasRemaining()) {
+                segment.write(bytes);
+            }
+            segment.force(false);
+        }
+        synchronized (this) {
+            committed = position;
+            notifyAll();
+        }
+    }
+
+    private void replaySegment(Path path, RecordConsumer consumer) throws IOException {
+        try (InputStream is = Files.newInputStream(path); DataInputStream in = new DataInputStream(is)) {
+            while (true) {
+                ByteArrayOutputStream record = new ByteArrayOutputStream();
+                DataOutputStream copy = new DataOutputStream(record);
+                String seriesId = in.readUTF();
+                String partitionId = in.readUTF();
+                int offset = in.readInt();
+                int length = in.readInt();
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length) {
+                    break;
+                }
+                copy.writeUTF(seriesId);
+                copy.writeUTF(partitionId);
+                copy.writeInt(offset);
+                copy.writeInt(length);
+                copy.write(bytes);
+                CRC32 crc = new CRC32();
+                crc.update(record.toByteArray());
+                if (in.readInt() != (int) crc.getValue()) {
+                    log.warn("Ignoring corrupt record at end of {}", path);
+                    break;
+                }
+                consumer.accept(new PartitionKey(seriesId, partitionId), offset, bytes);
+            }
+        } catch (EOFException e) {
+            // End of the segment or a partially written record
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", number, SEGMENT_EXTENSION));
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> getSegments() throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_EXTENSION))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static long getSegmentNumber(Path path) {
+        String filename = path.getFileName().toString();
+        return Long.parseLong(filename.substring(0, filename.length() - SEGMENT_EXTENSION.length()));
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(PartitionKey key, int offset, byte[] bytes);
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.huebert.iotfsdb.service;
+
+import org.huebert.iotfsdb.persistence.PartitionByteBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Buffer of a partition that stays valid until the lease is closed, even if the partition is evicted from the cache meanwhile.
+ */
+public record BufferLease(PartitionKey key, PartitionByteBuffer partition, ByteBuffer buffer) implements AutoCloseable {
+
+    public static BufferLease of(PartitionKey key, ByteBuffer buffer) {
+        return new BufferLease(key, PartitionByteBuffer.wrap(buffer), buffer);
+    }
+
+    @Override
+    public void close() {
+        partition.release();
+    }
+
+}
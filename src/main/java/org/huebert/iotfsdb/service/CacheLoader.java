@@ -2,7 +2,7 @@ package org.huebert.iotfsdb.service;
 
 import java.util.function.Function;
 
-public class CacheLoader<K, V> extends com.google.common.cache.CacheLoader<K, V> {
+public class CacheLoader<K, V> implements com.github.benmanes.caffeine.cache.CacheLoader<K, V> {
 
     private final Function<K, V> function;
 
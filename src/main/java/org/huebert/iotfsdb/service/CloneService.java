@@ -12,7 +12,6 @@ import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
-import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -79,12 +78,13 @@ public class CloneService {
         PartitionRange range = partitionService.getRange(partition);
         List<SeriesData> result = new ArrayList<>();
         range.withRead(() -> {
-            ByteBuffer buffer = dataService.getBuffer(partition).orElseThrow();
-            ZonedDateTime current = TimeConverter.toUtc(range.getRange().lowerEndpoint());
-            Iterator<Number> iterator = range.getStream(buffer).iterator();
-            while (iterator.hasNext()) {
-                result.add(new SeriesData(current, iterator.next()));
-                current = current.plus(range.getInterval());
+            try (BufferLease lease = dataService.getBuffer(partition).orElseThrow()) {
+                ZonedDateTime current = TimeConverter.toUtc(range.getRange().lowerEndpoint());
+                Iterator<Number> iterator = range.getStream(lease.buffer()).iterator();
+                while (iterator.hasNext()) {
+                    result.add(new SeriesData(current, iterator.next()));
+                    current = current.plus(range.getInterval());
+                }
             }
         });
         return result;
@@ -115,11 +115,13 @@ public class CloneService {
         PartitionRange sourceRange = partitionService.getRange(sourceKey);
         PartitionRange destinationRange = partitionService.getRange(destinationKey);
         sourceRange.withRead(() -> {
-            ByteBuffer sourceBuffer = dataService.getBuffer(sourceKey).orElseThrow();
-            destinationRange.withWrite(() -> {
-                ByteBuffer destinationBuffer = dataService.getBuffer(destinationKey, sourceRange.getSize(), sourceRange.getAdapter());
-                destinationBuffer.put(sourceBuffer);
-            });
+            try (BufferLease sourceLease = dataService.getBuffer(sourceKey).orElseThrow()) {
+                destinationRange.withWrite(() -> {
+                    try (BufferLease destinationLease = dataService.getBuffer(destinationKey, sourceRange.getSize(), sourceRange.getAdapter())) {
+                        destinationLease.buffer().put(sourceLease.buffer());
+                    }
+                });
+            }
         });
     }
 
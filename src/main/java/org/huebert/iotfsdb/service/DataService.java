@@ -1,67 +1,258 @@
 package org.huebert.iotfsdb.service;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.LoadingCache;
-import com.google.common.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.util.concurrent.Striped;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
 import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.persistence.AccessAdvice;
+import org.huebert.iotfsdb.persistence.CatalogEntry;
+import org.huebert.iotfsdb.persistence.FlushPolicy;
 import org.huebert.iotfsdb.persistence.PartitionByteBuffer;
+import org.huebert.iotfsdb.persistence.PartitionListing;
 import org.huebert.iotfsdb.persistence.PersistenceAdapter;
+import org.huebert.iotfsdb.persistence.WriteAheadLog;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Validated
 @Slf4j
 @Service
 public class DataService {
 
+    private static final Set<String> WEAK_VALUES = Set.of("softValues", "weakValues");
+
+    private static final Set<String> SIZE_OPTIONS = Set.of("maximumSize", "maximumWeight", "recordStats");
+
+    private static final Set<String> OFF_HEAP_POOLS = Set.of("direct", "mapped");
+
     private final PersistenceAdapter persistenceAdapter;
 
     private final Map<String, SeriesFile> seriesMap = new ConcurrentHashMap<>();
 
     private final ConcurrentMap<String, Set<PartitionKey>> seriesPartitions = new ConcurrentHashMap<>();
 
+    private final ConcurrentMap<String, Set<PartitionKey>> seriesSidecars = new ConcurrentHashMap<>();
+
     private final Striped<Lock> stripedLocks = Striped.lock(32);
 
+    private final int ioThreads;
+
+    private final boolean catalog;
+
+    private volatile boolean ready;
+
     private final LoadingCache<PartitionKey, PartitionByteBuffer> partitionCache;
 
+    private final LoadingCache<PartitionKey, PartitionByteBuffer> pinnedCache;
+
+    private final WriteAheadLog writeAheadLog;
+
+    private final FlushPolicy flushPolicy;
+
+    private final long cacheMemory;
+
+    private final double heapLimit;
+
+    private final double offHeapLimit;
+
+    private final ExecutorService ioExecutor;
+
+    private final boolean pinActive;
+
+    private final Duration pinLookback;
+
+    private final Duration pinAhead;
+
+    private volatile Map<PartitionPeriod, PinWindow> pinWindows = Map.of();
+
     public DataService(@NotNull IotfsdbProperties properties, @NotNull PersistenceAdapter persistenceAdapter) {
         this.persistenceAdapter = persistenceAdapter;
-        this.partitionCache = CacheBuilder.from(properties.getPersistence().getPartitionCache())
-            .removalListener((RemovalListener<PartitionKey, PartitionByteBuffer>) notification -> {
-                PartitionByteBuffer value = notification.getValue();
-                if (value != null) {
-                    value.close();
-                }
-            })
-            .build(new CacheLoader<>(persistenceAdapter::openPartition));
+        this.flushPolicy = properties.getPersistence().getFlushPolicy();
+        this.writeAheadLog = persistenceAdapter.getWriteAheadLog().orElse(null);
+        this.cacheMemory = getCacheMemory(properties.getPersistence().getPartitionCacheMemory());
+        this.heapLimit = properties.getPersistence().getPartitionCacheHeapLimit();
+        this.offHeapLimit = properties.getPersistence().getPartitionCacheOffHeapLimit();
+        this.ioThreads = properties.getPersistence().getIoThreads();
+        this.catalog = !properties.isReadOnly() && properties.getPersistence().isCatalog();
+        this.ioExecutor = Executors.newFixedThreadPool(ioThreads, Thread.ofPlatform().name("iotfsdb-io-", 0).daemon().factory());
+        this.partitionCache = Caffeine.from(getCacheSpec(properties.getPersistence().getPartitionCache()))
+            .weigher((PartitionKey key, PartitionByteBuffer value) -> (int) Math.min(value.byteSize(), Integer.MAX_VALUE))
+            .maximumWeight(cacheMemory)
+            .recordStats()
+            // Partitions must be closed before the call that removed them returns
+            .executor(Runnable::run)
+            .removalListener((PartitionKey key, PartitionByteBuffer value, RemovalCause cause) -> closePartition(value, cause.wasEvicted()))
+            .buildAsync(this::openPartition)
+            .synchronous();
+        this.pinActive = properties.getPersistence().isPinActive();
+        this.pinLookback = properties.getPersistence().getPinLookback();
+        this.pinAhead = properties.getPersistence().getPrecreateAhead();
+        this.pinnedCache = Caffeine.newBuilder()
+            .executor(Runnable::run)
+            .removalListener((PartitionKey key, PartitionByteBuffer value, RemovalCause cause) -> closePartition(value, false))
+            .buildAsync(this::openPartition)
+            .synchronous();
+        updatePinned(LocalDateTime.now(ZoneOffset.UTC));
 
+        // Partitions are listed when a series is first used or by the background sweep
         for (SeriesFile seriesFile : persistenceAdapter.getSeries()) {
-            String seriesId = seriesFile.getId();
-            seriesMap.put(seriesId, seriesFile);
-            seriesPartitions.computeIfAbsent(seriesId, k -> ConcurrentHashMap.newKeySet()).addAll(persistenceAdapter.getPartitions(seriesFile));
+            seriesMap.put(seriesFile.getId(), seriesFile);
+        }
+
+        if (writeAheadLog != null) {
+            replay();
         }
     }
 
+    /**
+     * Lists the partitions of every series in the background, a few series at a time, so that startup does not wait for
+     * every series directory to be listed. Series that are used before the sweep reaches them are listed on first use.
+     */
+    @PostConstruct
+    public void loadPartitions() {
+        Thread.ofVirtual().name("iotfsdb-catalog").start(() -> {
+            long start = System.nanoTime();
+            try (ExecutorService executor = Executors.newFixedThreadPool(ioThreads, Thread.ofVirtual().name("iotfsdb-catalog-", 0).factory())) {
+                for (String seriesId : seriesMap.keySet()) {
+                    executor.execute(() -> {
+                        try {
+                            loadPartitions(seriesId);
+                        } catch (RuntimeException e) {
+                            log.warn("Unable to list partitions of series {}", seriesId, e);
+                        }
+                    });
+                }
+            }
+            ready = true;
+            log.info("Listed partitions of {} series in {} ms", seriesPartitions.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Lists the partitions and sidecars of a series the first time it is used. The sidecars are added first, since the
+     * presence of the partition set marks the series as listed.
+     */
+    private void loadPartitions(String seriesId) {
+        if (seriesPartitions.containsKey(seriesId)) {
+            return;
+        }
+        LockUtil.withLock(stripedLocks.get(seriesId), () -> {
+            SeriesFile seriesFile = seriesMap.get(seriesId);
+            if (seriesFile == null || seriesPartitions.containsKey(seriesId)) {
+                return;
+            }
+            PartitionListing listing = persistenceAdapter.getListing(seriesFile);
+            Set<PartitionKey> sidecars = ConcurrentHashMap.newKeySet();
+            sidecars.addAll(listing.sidecars());
+            seriesSidecars.put(seriesId, sidecars);
+            Set<PartitionKey> partitions = ConcurrentHashMap.newKeySet();
+            partitions.addAll(listing.partitions());
+            seriesPartitions.put(seriesId, partitions);
+        });
+    }
+
+    /**
+     * Indicates whether the partitions of every series known at startup have been listed. Series are usable before then.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the number of series whose partitions have been listed.
+     */
+    public int getLoadedSeriesCount() {
+        return seriesPartitions.size();
+    }
+
+    private void closePartition(PartitionByteBuffer value, boolean evicted) {
+        if (value != null) {
+            // Writes logged since the last checkpoint must reach the disk before their segment is deleted
+            if (writeAheadLog != null || flushPolicy.isForcedOnRemoval(evicted)) {
+                value.force();
+            }
+            if (evicted) {
+                value.advise(AccessAdvice.DONTNEED, 0, Long.MAX_VALUE);
+            }
+            value.close();
+        }
+    }
+
+    /**
+     * Opens a partition on the I/O executor. Concurrent misses for the same key wait for the same open, and the cache is
+     * not locked while the file is mapped. Waiting callers on virtual threads unmount from their carriers.
+     */
+    private CompletableFuture<PartitionByteBuffer> openPartition(PartitionKey key, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> persistenceAdapter.openPartition(key), ioExecutor);
+    }
+
+    /**
+     * Restores the writes recorded in the log that may not have reached the partition files and then checkpoints the log.
+     * Records for partitions that no longer exist are ignored.
+     */
+    private void replay() {
+        Set<PartitionKey> replayed = new HashSet<>();
+        writeAheadLog.replay((key, offset, bytes) -> {
+            if (!partitionNotExists(key)) {
+                try (BufferLease lease = leaseWritable(key)) {
+                    lease.buffer().put(offset, bytes);
+                    lease.partition().markDirty(offset, bytes.length);
+                }
+                replayed.add(key);
+            }
+        });
+        log.info("Replayed write-ahead log for {} partitions", replayed.size());
+        replayed.forEach(this::force);
+        checkpoint();
+    }
+
     public Collection<SeriesFile> getSeries() {
         return Collections.unmodifiableCollection(seriesMap.values());
     }
@@ -82,52 +273,521 @@ public class DataService {
             seriesMap.remove(seriesId);
             Set<PartitionKey> partitions = seriesPartitions.remove(seriesId);
             if (partitions != null) {
-                partitionCache.invalidateAll(partitions);
+                invalidateAll(partitions);
+            }
+            Set<PartitionKey> sidecars = seriesSidecars.remove(seriesId);
+            if (sidecars != null) {
+                invalidateAll(sidecars);
             }
             persistenceAdapter.deleteSeries(seriesId);
         });
     }
 
     public Set<PartitionKey> getPartitions(@NotBlank String seriesId) {
+        loadPartitions(seriesId);
         return seriesPartitions.getOrDefault(seriesId, Set.of());
     }
 
-    public Optional<ByteBuffer> getBuffer(@Valid @NotNull PartitionKey key) {
+    /**
+     * Leases the buffer of a partition. The lease must be closed once the buffer is no longer used.
+     */
+    public Optional<BufferLease> getBuffer(@Valid @NotNull PartitionKey key) {
         if (partitionNotExists(key)) {
             return Optional.empty();
         }
-        return Optional.of(partitionCache.getUnchecked(key).getByteBuffer());
+        return Optional.of(lease(key));
+    }
+
+    public BufferLease getBuffer(@Valid @NotNull PartitionKey key, @NotNull @Positive Long size, @NotNull PartitionAdapter adapter) {
+        return getOrCreateBuffer(key, adapter.getTypeSize() * size, byteBuffer -> adapter.putNulls(byteBuffer, 0, size.intValue()));
+    }
+
+    /**
+     * Opens a partition, if it exists, and loads its pages into memory so that a following read does not wait on the disk.
+     */
+    public void prefetch(@Valid @NotNull PartitionKey key) {
+        getBuffer(key).ifPresent(lease -> {
+            try (lease) {
+                lease.partition().load();
+            }
+        });
     }
 
-    public ByteBuffer getBuffer(@Valid @NotNull PartitionKey key, @NotNull @Positive Long size, @NotNull PartitionAdapter adapter) {
+    /**
+     * Returns the buffer for a partition, creating it with {@code bytes} bytes if it does not exist.
+     * The initializer is called once with the buffer of a newly created partition before it becomes visible.
+     * The lease must be closed once the buffer is no longer used.
+     */
+    public BufferLease getOrCreateBuffer(@Valid @NotNull PartitionKey key, @Positive long bytes, @NotNull Consumer<ByteBuffer> initializer) {
         if (partitionNotExists(key)) {
             LockUtil.withLock(stripedLocks.get(key.seriesId()), () -> {
                 if (partitionNotExists(key)) {
 
-                    persistenceAdapter.createPartition(key, adapter.getTypeSize() * size);
+                    persistenceAdapter.createPartition(key, bytes);
 
                     PartitionByteBuffer partitionByteBuffer = persistenceAdapter.openPartition(key);
-                    ByteBuffer byteBuffer = partitionByteBuffer.getByteBuffer();
-                    for (int i = 0; i < size; i++) {
-                        adapter.put(byteBuffer, i, null);
+                    // New partitions are written a few slots at a time, so reading ahead only wastes memory
+                    partitionByteBuffer.advise(AccessAdvice.RANDOM, 0, bytes);
+                    initializer.accept(partitionByteBuffer.getByteBuffer());
+                    partitionByteBuffer.markDirty(0, bytes);
+                    if (writeAheadLog != null) {
+                        // The log only records later writes, so the initial contents must already be on disk
+                        partitionByteBuffer.force();
                     }
-                    partitionCache.put(key, partitionByteBuffer);
+                    getCache(key).put(key, partitionByteBuffer);
 
-                    seriesPartitions.computeIfAbsent(key.seriesId(), k -> ConcurrentHashMap.newKeySet()).add(key);
+                    getPartitionMap(key).computeIfAbsent(key.seriesId(), k -> ConcurrentHashMap.newKeySet()).add(key);
                 }
             });
         }
-        return partitionCache.getUnchecked(key).getByteBuffer();
+        return leaseWritable(key);
+    }
+
+    private BufferLease leaseWritable(PartitionKey key) {
+        BufferLease lease = lease(key);
+        if (lease.buffer().isReadOnly() && unsealPartition(key)) {
+            lease.close();
+            lease = lease(key);
+        }
+        return lease;
+    }
+
+    /**
+     * A buffer that is released between being loaded and being retained was evicted concurrently, so it is loaded again.
+     */
+    private BufferLease lease(PartitionKey key) {
+        LoadingCache<PartitionKey, PartitionByteBuffer> cache = getCache(key);
+        while (true) {
+            PartitionByteBuffer partitionByteBuffer = cache.get(key);
+            if (partitionByteBuffer.retain()) {
+                return new BufferLease(key, partitionByteBuffer, partitionByteBuffer.getByteBuffer());
+            }
+            cache.asMap().remove(key, partitionByteBuffer);
+        }
+    }
+
+    /**
+     * Returns the pinned tier for partitions of the current period and the partition cache for the rest. A partition that
+     * became current while it was in the partition cache is closed there and opened again in the pinned tier.
+     */
+    private LoadingCache<PartitionKey, PartitionByteBuffer> getCache(PartitionKey key) {
+        if (!isPinned(key)) {
+            return partitionCache;
+        }
+        if (pinnedCache.getIfPresent(key) == null) {
+            partitionCache.invalidate(key);
+        }
+        return pinnedCache;
+    }
+
+    /**
+     * Indicates whether a partition, or the partition of a sidecar, contains the current time, ended within the lookback
+     * or starts within the time that partitions are created ahead of their period.
+     */
+    boolean isPinned(PartitionKey key) {
+        SeriesFile seriesFile = seriesMap.get(key.seriesId());
+        if (seriesFile == null || seriesFile.getDefinition().getPartition() == null) {
+            return false;
+        }
+        PinWindow window = pinWindows.get(seriesFile.getDefinition().getPartition());
+        return window != null && window.contains(PartitionPeriod.getPartitionFilename(key.partitionId()));
+    }
+
+    @Scheduled(fixedRate = 10, timeUnit = TimeUnit.SECONDS)
+    public void updatePinned() {
+        updatePinned(LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Moves the pinned window to the partitions active at {@code now} and unpins the partitions that left it. Unpinned
+     * partitions are closed as if they were evicted and are opened in the partition cache when they are used again.
+     */
+    void updatePinned(LocalDateTime now) {
+        if (!pinActive) {
+            return;
+        }
+        Map<PartitionPeriod, PinWindow> windows = new EnumMap<>(PartitionPeriod.class);
+        for (PartitionPeriod period : PartitionPeriod.values()) {
+            windows.put(period, new PinWindow(period.getFilename(now.minus(pinLookback)), period.getFilename(now.plus(pinAhead))));
+        }
+        pinWindows = windows;
+        for (PartitionKey key : pinnedCache.asMap().keySet()) {
+            if (!isPinned(key)) {
+                PartitionByteBuffer partitionByteBuffer = pinnedCache.getIfPresent(key);
+                if (partitionByteBuffer != null && flushPolicy.isForcedOnRemoval(true)) {
+                    force(partitionByteBuffer);
+                }
+                pinnedCache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the pinned partitions, which are not limited by the partition cache memory.
+     */
+    public long getPinnedWeight() {
+        return pinnedCache.asMap().values().stream().mapToLong(PartitionByteBuffer::byteSize).sum();
+    }
+
+    private void invalidate(PartitionKey key) {
+        partitionCache.invalidate(key);
+        pinnedCache.invalidate(key);
+    }
+
+    private void invalidateAll(Set<PartitionKey> keys) {
+        partitionCache.invalidateAll(keys);
+        pinnedCache.invalidateAll(keys);
+    }
+
+    /**
+     * Range of partition filenames, which sort in time order for a partition period.
+     */
+    private record PinWindow(String first, String last) {
+
+        boolean contains(String filename) {
+            return filename.length() == first.length() && filename.compareTo(first) >= 0 && filename.compareTo(last) <= 0;
+        }
+
+    }
+
+    /**
+     * Records a region of a buffer that was written. The region is marked dirty for the flush policy and appended to the
+     * write-ahead log, if it is enabled.
+     *
+     * @return position to pass to {@link #commit(long)}
+     */
+    public long logRegion(@NotNull BufferLease lease, int offset, int length) {
+        lease.partition().markDirty(offset, length);
+        if (writeAheadLog == null) {
+            return 0;
+        }
+        return writeAheadLog.append(lease.key(), lease.buffer(), offset, length);
+    }
+
+    /**
+     * Blocks until every record up to the position returned by {@link #logRegion} is durable.
+     */
+    public void commit(long position) {
+        if (writeAheadLog != null && position > 0) {
+            writeAheadLog.awaitCommit(position);
+        }
+    }
+
+    public boolean isSealed(@Valid @NotNull PartitionKey key) {
+        return persistenceAdapter.isSealed(key);
+    }
+
+    /**
+     * Replaces a partition with its encoded form. The partition is read from the encoded form until it is written to again.
+     * Callers must hold the write lock of the partition.
+     */
+    public boolean sealPartition(@Valid @NotNull PartitionKey key, @NotNull byte[] encoded) {
+        AtomicBoolean sealed = new AtomicBoolean();
+        LockUtil.withLock(stripedLocks.get(key.seriesId()), () -> {
+            if (persistenceAdapter.sealPartition(key, encoded)) {
+                invalidate(key);
+                sealed.set(true);
+            }
+        });
+        return sealed.get();
+    }
+
+    /**
+     * Deletes a partition together with its sidecars and closes them in both caches. Callers must hold the write lock of
+     * the partition. Leases that are still open keep their buffers valid until they are closed.
+     *
+     * @return false if the partition does not exist
+     */
+    public boolean deletePartition(@Valid @NotNull PartitionKey key) {
+        AtomicBoolean deleted = new AtomicBoolean();
+        loadPartitions(key.seriesId());
+        LockUtil.withLock(stripedLocks.get(key.seriesId()), () -> {
+            Set<PartitionKey> partitions = seriesPartitions.getOrDefault(key.seriesId(), Set.of());
+            if (!partitions.remove(key)) {
+                return;
+            }
+            Set<PartitionKey> sidecars = getSidecars(key);
+            seriesSidecars.getOrDefault(key.seriesId(), Set.of()).removeAll(sidecars);
+            invalidate(key);
+            invalidateAll(sidecars);
+            persistenceAdapter.deletePartition(key);
+            sidecars.forEach(persistenceAdapter::deletePartition);
+            deleted.set(true);
+        });
+        return deleted.get();
+    }
+
+    /**
+     * Deletes the sidecars of a partition that are not kept up to date by its writes. A zone map of another block size or a
+     * rollup tier that is not configured is not updated when the raw slots are written, and a rollup tier is only updated
+     * from the next finer tier while that tier exists. These are deleted before the first write and are rebuilt from the
+     * raw slots if they are used again. Callers must hold the write lock of the partition.
+     */
+    public void deleteStaleSidecars(@NotNull PartitionRange details) {
+        if (details.isSidecarsChecked()) {
+            return;
+        }
+        PartitionKey key = details.getKey();
+        loadPartitions(key.seriesId());
+        LockUtil.withLock(stripedLocks.get(key.seriesId()), () -> {
+            Set<PartitionKey> sidecars = getSidecars(key);
+            Set<PartitionKey> current = new HashSet<>();
+            if (details.getZoneMap() != null) {
+                current.add(details.getZoneMap().key());
+            }
+            for (RollupRange rollup : details.getRollups()) {
+                if (!sidecars.contains(rollup.key())) {
+                    break;
+                }
+                current.add(rollup.key());
+            }
+            Set<PartitionKey> stale = sidecars.stream()
+                .filter(sidecar -> !current.contains(sidecar))
+                .collect(Collectors.toSet());
+            seriesSidecars.getOrDefault(key.seriesId(), Set.of()).removeAll(stale);
+            invalidateAll(stale);
+            stale.forEach(persistenceAdapter::deletePartition);
+            if (!stale.isEmpty()) {
+                log.debug("Deleted stale sidecars {}", stale);
+            }
+        });
+        details.setSidecarsChecked(true);
+    }
+
+    public boolean isHot(@Valid @NotNull PartitionKey key) {
+        return persistenceAdapter.isHot(key);
+    }
+
+    /**
+     * Moves a partition and its sidecars to a cold root. They are closed first and are opened from the cold root when
+     * they are used again. Callers must hold the write lock of the partition.
+     */
+    public boolean migratePartition(@Valid @NotNull PartitionKey key) {
+        AtomicBoolean migrated = new AtomicBoolean();
+        LockUtil.withLock(stripedLocks.get(key.seriesId()), () -> {
+            if (partitionNotExists(key)) {
+                return;
+            }
+            invalidate(key);
+            invalidateAll(getSidecars(key));
+            migrated.set(persistenceAdapter.migratePartition(key));
+        });
+        return migrated.get();
+    }
+
+    private Set<PartitionKey> getSidecars(PartitionKey key) {
+        return seriesSidecars.getOrDefault(key.seriesId(), Set.of()).stream()
+            .filter(sidecar -> PartitionPeriod.getPartitionFilename(sidecar.partitionId()).equals(key.partitionId()))
+            .collect(Collectors.toSet());
+    }
+
+    private boolean unsealPartition(PartitionKey key) {
+        AtomicBoolean unsealed = new AtomicBoolean();
+        LockUtil.withLock(stripedLocks.get(key.seriesId()), () -> {
+            if (persistenceAdapter.unsealPartition(key)) {
+                invalidate(key);
+                unsealed.set(true);
+            }
+        });
+        return unsealed.get();
     }
 
     private boolean partitionNotExists(PartitionKey key) {
-        return !getPartitions(key.seriesId()).contains(key);
+        loadPartitions(key.seriesId());
+        return !getPartitionMap(key).getOrDefault(key.seriesId(), Set.of()).contains(key);
+    }
+
+    private ConcurrentMap<String, Set<PartitionKey>> getPartitionMap(PartitionKey key) {
+        return key.isSidecar() ? seriesSidecars : seriesPartitions;
+    }
+
+    /**
+     * Forces the partitions written since the previous checkpoint to disk so that their log records can be discarded.
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
+    public void checkpoint() {
+        if (writeAheadLog != null) {
+            writeAheadLog.checkpoint(keys -> keys.forEach(this::force));
+        }
+    }
+
+    /**
+     * Partitions that are no longer cached were forced when they were closed.
+     */
+    private void force(PartitionKey key) {
+        Stream.of(partitionCache.getIfPresent(key), pinnedCache.getIfPresent(key))
+            .filter(Objects::nonNull)
+            .forEach(DataService::force);
+    }
+
+    /**
+     * The buffer is retained so that it cannot be unmapped by a concurrent eviction while it is forced.
+     */
+    private static void force(PartitionByteBuffer partitionByteBuffer) {
+        if (partitionByteBuffer.retain()) {
+            try {
+                partitionByteBuffer.force();
+            } finally {
+                partitionByteBuffer.release();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${iotfsdb.persistence.flush-interval:1m}")
+    public void flush() {
+        if (flushPolicy == FlushPolicy.PERIODIC) {
+            partitionCache.asMap().values().forEach(DataService::force);
+            pinnedCache.asMap().values().forEach(DataService::force);
+        }
+    }
+
+    /**
+     * Writes the catalog snapshot. Each entry is taken while holding the lock of its series, so that the modification
+     * value matches the partitions. Series whose partitions have not been listed yet are left out.
+     */
+    @Scheduled(fixedDelayString = "${iotfsdb.persistence.catalog-interval:10m}")
+    public void saveCatalog() {
+        if (!catalog) {
+            return;
+        }
+        long created = System.currentTimeMillis();
+        List<CatalogEntry> entries = new ArrayList<>(seriesMap.size());
+        for (String seriesId : seriesMap.keySet()) {
+            LockUtil.withLock(stripedLocks.get(seriesId), () -> {
+                SeriesFile seriesFile = seriesMap.get(seriesId);
+                Set<PartitionKey> partitions = seriesPartitions.get(seriesId);
+                Set<PartitionKey> sidecars = seriesSidecars.get(seriesId);
+                if (seriesFile != null && partitions != null && sidecars != null) {
+                    long modified = persistenceAdapter.getModified(seriesId);
+                    entries.add(new CatalogEntry(seriesFile, modified, Set.copyOf(partitions), Set.copyOf(sidecars)));
+                }
+            });
+        }
+        persistenceAdapter.saveCatalog(created, entries);
+        log.debug("Saved catalog snapshot of {} series", entries.size());
+    }
+
+    /**
+     * Closes every open partition, which forces them to disk depending on the flush policy, after saving the catalog
+     * snapshot.
+     */
+    @PreDestroy
+    public void close() {
+        try {
+            saveCatalog();
+        } catch (RuntimeException e) {
+            log.warn("Unable to save catalog snapshot", e);
+        }
+        partitionCache.invalidateAll();
+        pinnedCache.invalidateAll();
+        ioExecutor.shutdown();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the partition cache since startup.
+     */
+    public CacheStats getCacheStats() {
+        return partitionCache.stats();
+    }
+
+    /**
+     * Returns the number of bytes of the partitions in the cache.
+     */
+    public long getCacheWeight() {
+        return partitionCache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Returns the current maximum number of bytes of the partitions in the cache, which is lowered under memory pressure.
+     */
+    public long getCacheMaximum() {
+        return partitionCache.policy().eviction().map(Policy.Eviction::getMaximum).orElse(cacheMemory);
+    }
+
+    @Scheduled(fixedRate = 10, timeUnit = TimeUnit.SECONDS)
+    public void adaptCacheMaximum() {
+        adaptCacheMaximum(getHeapUsage(), getOffHeapUsage());
+    }
+
+    /**
+     * Halves the maximum of the partition cache while heap or off-heap usage is above its limit, down to an eighth of the
+     * configured memory, and restores it an eighth at a time once both fall below their limits. The weights of the cache
+     * are off-heap bytes, while sealed partitions are decoded onto the heap, so closing partitions relieves both.
+     */
+    void adaptCacheMaximum(double heapUsage, double offHeapUsage) {
+        partitionCache.policy().eviction().ifPresent(eviction -> {
+            long step = Math.max(1, cacheMemory / 8);
+            long current = eviction.getMaximum();
+            boolean pressure = heapUsage > heapLimit || offHeapUsage > offHeapLimit;
+            long maximum = pressure ? Math.max(step, current / 2) : Math.min(cacheMemory, current + step);
+            if (maximum != current) {
+                log.info("Changing partition cache maximum from {} to {} bytes at {}% heap and {}% off-heap usage", current, maximum, Math.round(heapUsage * 100), Math.round(offHeapUsage * 100));
+                eviction.setMaximum(maximum);
+            }
+        });
+    }
+
+    /**
+     * Heap usage after the last garbage collection, which unlike the current usage does not include garbage.
+     */
+    private static double getHeapUsage() {
+        long max = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        long used = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getCollectionUsage)
+            .filter(Objects::nonNull)
+            .mapToLong(MemoryUsage::getUsed)
+            .sum();
+        return max > 0 ? (double) used / max : 0;
+    }
+
+    /**
+     * Direct and mapped buffer memory as a fraction of physical memory. Segments allocated by arenas count as direct memory
+     * and mapped partition files count as mapped memory.
+     */
+    private static double getOffHeapUsage() {
+        long used = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+            .filter(pool -> OFF_HEAP_POOLS.contains(pool.getName()))
+            .mapToLong(BufferPoolMXBean::getMemoryUsed)
+            .sum();
+        return (double) used / getPhysicalMemory();
+    }
+
+    private static long getCacheMemory(long configured) {
+        if (configured > 0) {
+            return configured;
+        }
+        return getPhysicalMemory() / 4;
+    }
+
+    private static long getPhysicalMemory() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getTotalMemorySize();
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Values that are garbage collected are never closed, which would leave their mappings open, so soft and weak values are ignored.
+     * The cache is limited by the bytes of its partitions and always records statistics, so the size options are removed as well.
+     */
+    private static String getCacheSpec(String spec) {
+        String strong = Arrays.stream(spec.split(","))
+            .filter(option -> !WEAK_VALUES.contains(option.trim()))
+            .collect(Collectors.joining(","));
+        if (!strong.equals(spec)) {
+            log.warn("Ignoring soft and weak values in partition cache specification: {}", spec);
+        }
+        return Arrays.stream(strong.split(","))
+            .filter(option -> !SIZE_OPTIONS.contains(option.split("=")[0].trim()))
+            .collect(Collectors.joining(","));
     }
 
     @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
     public void cleanUp() {
         // Ensure that the cache is cleaned up periodically if there is no other activity
         partitionCache.cleanUp();
+        pinnedCache.cleanUp();
     }
 
 }
@@ -0,0 +1,100 @@
+package org.huebert.iotfsdb.service;
+
+import org.huebert.iotfsdb.api.schema.SeriesData;
+import org.huebert.iotfsdb.partition.NumberConverter;
+import org.huebert.iotfsdb.partition.PartitionAdapter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Values inserted into a partition as primitive slot indexes and values sorted by slot. Values for the same slot keep
+ * the order of the request, so the last one is written or they are merged in order, rounding to the type of the
+ * partition after each merge. Consecutive slots are written as runs with a single bulk encode.
+ */
+class InsertBatch {
+
+    private final int[] slots;
+
+    private final double[] values;
+
+    private InsertBatch(int[] slots, double[] values) {
+        this.slots = slots;
+        this.values = values;
+    }
+
+    /**
+     * The slot and the position in the request are packed into a long, so that a primitive sort orders the values by
+     * slot and then by position.
+     */
+    static InsertBatch of(PartitionRange details, List<SeriesData> data) {
+        long[] packed = new long[data.size()];
+        for (int i = 0; i < packed.length; i++) {
+            int slot = details.getIndex(TimeConverter.toEpochMillis(data.get(i).getTime()));
+            packed[i] = ((long) slot << 32) | i;
+        }
+        Arrays.sort(packed);
+        int[] slots = new int[packed.length];
+        double[] values = new double[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            slots[i] = (int) (packed[i] >>> 32);
+            values[i] = NumberConverter.toDouble(data.get((int) packed[i]).getValue());
+        }
+        return new InsertBatch(slots, values);
+    }
+
+    /**
+     * Returns the distinct slots of the batch in ascending order.
+     */
+    int[] getSlots() {
+        return Arrays.stream(slots).distinct().toArray();
+    }
+
+    /**
+     * Writes the values to the buffer one run of consecutive slots at a time.
+     *
+     * @param merge merges each value into the existing value of its slot, or null to overwrite it
+     * @param written called with the first slot and the number of slots of each run after it is written
+     */
+    void write(PartitionAdapter adapter, ByteBuffer buffer, DoubleBinaryOperator merge, RunConsumer written) {
+        double[] run = new double[0];
+        boolean[] nulls = new boolean[0];
+        int start = 0;
+        while (start < slots.length) {
+            int end = start + 1;
+            while (end < slots.length && slots[end] - slots[end - 1] <= 1) {
+                end++;
+            }
+            int first = slots[start];
+            int length = slots[end - 1] - first + 1;
+            if (run.length < length) {
+                run = new double[length];
+                nulls = new boolean[length];
+            }
+            if (merge != null) {
+                adapter.getDoubles(buffer, first, length, run, nulls);
+            }
+            for (int i = start; i < end; i++) {
+                int offset = slots[i] - first;
+                if (merge == null) {
+                    run[offset] = values[i];
+                } else {
+                    // A slot that was already merged is rounded to what the buffer would hold before merging again
+                    double existing = i > start && slots[i] == slots[i - 1] ? adapter.quantize(run[offset]) : run[offset];
+                    run[offset] = merge.applyAsDouble(existing, values[i]);
+                }
+            }
+            adapter.putDoubles(buffer, first, length, run, 0);
+            written.accept(first, length);
+            start = end;
+        }
+    }
+
+    @FunctionalInterface
+    interface RunConsumer {
+        void accept(int slot, int length);
+    }
+
+}
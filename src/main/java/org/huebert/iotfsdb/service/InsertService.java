@@ -5,21 +5,26 @@ import jakarta.validation.constraints.NotNull;
 import org.huebert.iotfsdb.IotfsdbProperties;
 import org.huebert.iotfsdb.api.schema.InsertRequest;
 import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+import org.huebert.iotfsdb.api.schema.Reducer;
 import org.huebert.iotfsdb.api.schema.SeriesData;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.partition.RollupPartition;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
 import java.nio.ByteBuffer;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleBinaryOperator;
 import java.util.stream.Collector;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Validated
@@ -62,33 +67,167 @@ public class InsertService {
             .map(SeriesDefinition::getPartition)
             .orElseThrow();
 
-        Map<PartitionKey, List<SeriesData>> partitionGroups = request.getValues().stream().collect(Collectors.groupingBy(value -> {
-            LocalDateTime local = TimeConverter.toUtc(value.getTime());
-            return PartitionKey.getKey(seriesId, partitionPeriod, local);
-        }));
+        PartitionTable partitionTable = partitionService.getPartitionTable(seriesId, partitionPeriod);
+        Map<PartitionKey, List<SeriesData>> partitionGroups = new HashMap<>();
+        for (SeriesData value : request.getValues()) {
+            PartitionKey key = partitionTable.getKey(TimeConverter.toEpochMillis(value.getTime()));
+            partitionGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
 
-        Collector<Number, ?, Number> collector = request.getReducer() == null ? null : reducerService.getCollector(request.getReducer(), false, null);
-        ParallelUtil.forEach(partitionGroups.entrySet(), entry -> insertIntoPartition(entry.getKey(), entry.getValue(), collector));
+        Reducer reducer = request.getReducer();
+        Collector<Number, ?, Number> collector = reducer == null ? null : reducerService.getCollector(reducer, false, null);
+        DoubleBinaryOperator merge = reducer == null ? null : reducerService.getInsertMerge(reducer).orElse(null);
+        AtomicLong position = new AtomicLong();
+        ParallelUtil.forEach(partitionGroups.entrySet(), entry -> insertIntoPartition(entry.getKey(), entry.getValue(), collector, merge, position));
+        dataService.commit(position.get());
     }
 
-    private void insertIntoPartition(PartitionKey key, List<SeriesData> data, Collector<Number, ?, Number> collector) {
+    /**
+     * Values are written as a sorted batch of primitives unless the type cannot be written exactly from doubles or the
+     * reducer has no primitive merge, in which case each value is written on its own.
+     *
+     * @param position updated with the write-ahead log position of the last region written
+     */
+    private void insertIntoPartition(PartitionKey key, List<SeriesData> data, Collector<Number, ?, Number> collector, DoubleBinaryOperator merge, AtomicLong position) {
         PartitionRange details = partitionService.getRange(key);
         PartitionAdapter adapter = details.getAdapter();
         details.withWrite(() -> {
-            ByteBuffer buffer = dataService.getBuffer(key, details.getSize(), adapter);
-            for (SeriesData value : data) {
-                LocalDateTime local = TimeConverter.toUtc(value.getTime());
-                int index = details.getIndex(local);
-                Number putValue = value.getValue();
-                if (collector != null) {
-                    putValue = Stream.concat(
-                        adapter.getStream(buffer, index, 1),
-                        Stream.of(putValue)
-                    ).collect(collector);
+            boolean created = !dataService.getPartitions(key.seriesId()).contains(key);
+            dataService.deleteStaleSidecars(details);
+            try (BufferLease lease = dataService.getBuffer(key, details.getSize(), adapter)) {
+                ByteBuffer buffer = lease.buffer();
+                int[] indexes;
+                if (adapter.isDoubleExact() && (collector == null || merge != null)) {
+                    indexes = insertBatch(details, data, buffer, merge, lease, position);
+                } else {
+                    indexes = insertValues(details, data, buffer, collector, lease, position);
                 }
-                adapter.put(buffer, index, putValue);
+                updateZoneMap(details, buffer, indexes, created, position);
+                updateRollups(details, buffer, indexes, created, position);
             }
         });
     }
 
+    /**
+     * @return the distinct slots written
+     */
+    private int[] insertBatch(PartitionRange details, List<SeriesData> data, ByteBuffer buffer, DoubleBinaryOperator merge, BufferLease lease, AtomicLong position) {
+        InsertBatch batch = InsertBatch.of(details, data);
+        int typeSize = details.getAdapter().getTypeSize();
+        batch.write(details.getAdapter(), buffer, merge, (slot, length) -> logRegion(lease, slot * typeSize, length * typeSize, position));
+        return batch.getSlots();
+    }
+
+    /**
+     * @return the slots written, which may contain duplicates
+     */
+    private int[] insertValues(PartitionRange details, List<SeriesData> data, ByteBuffer buffer, Collector<Number, ?, Number> collector, BufferLease lease, AtomicLong position) {
+        PartitionAdapter adapter = details.getAdapter();
+        int[] indexes = new int[data.size()];
+        for (int i = 0; i < data.size(); i++) {
+            SeriesData value = data.get(i);
+            int index = details.getIndex(TimeConverter.toEpochMillis(value.getTime()));
+            indexes[i] = index;
+            Number putValue = value.getValue();
+            if (collector != null) {
+                putValue = Stream.concat(
+                    adapter.getStream(buffer, index, 1),
+                    Stream.of(putValue)
+                ).collect(collector);
+            }
+            adapter.put(buffer, index, putValue);
+        }
+        int typeSize = adapter.getTypeSize();
+        Arrays.stream(indexes).distinct().forEach(index -> logRegion(lease, index * typeSize, typeSize, position));
+        return indexes;
+    }
+
+    /**
+     * Creates an empty partition with its zone map and rollups ahead of the first value written to it.
+     *
+     * @return false if the partition already exists
+     */
+    public boolean createPartition(@Valid @NotNull PartitionKey key) {
+        PartitionRange details = partitionService.getRange(key);
+        AtomicBoolean created = new AtomicBoolean();
+        details.withWrite(() -> {
+            if (dataService.getPartitions(key.seriesId()).contains(key)) {
+                return;
+            }
+            dataService.getBuffer(key, details.getSize(), details.getAdapter()).close();
+            // Sidecars start zero-filled, which represents empty buckets
+            if (details.getZoneMap() != null) {
+                dataService.getOrCreateBuffer(details.getZoneMap().key(), details.getZoneMap().getByteSize(), b -> {}).close();
+            }
+            for (RollupRange rollup : details.getRollups()) {
+                dataService.getOrCreateBuffer(rollup.key(), rollup.getByteSize(), b -> {}).close();
+            }
+            created.set(true);
+        });
+        return created.get();
+    }
+
+    private void logRegion(BufferLease lease, int offset, int length, AtomicLong position) {
+        long logged = dataService.logRegion(lease, offset, length);
+        position.accumulateAndGet(logged, Math::max);
+    }
+
+    /**
+     * A new sidecar only has to be built from its source when the partition already existed.
+     * Sidecars of a newly created partition start zero-filled, which represents empty buckets.
+     */
+    private void updateZoneMap(PartitionRange details, ByteBuffer buffer, int[] indexes, boolean created, AtomicLong position) {
+        RollupRange zoneMap = details.getZoneMap();
+        if (zoneMap == null) {
+            return;
+        }
+        try (BufferLease zoneLease = dataService.getOrCreateBuffer(zoneMap.key(), zoneMap.getByteSize(), b -> {
+            if (created) {
+                return;
+            }
+            for (int block = 0; block < zoneMap.size(); block++) {
+                details.updateZone(buffer, b, block);
+            }
+        })) {
+            Arrays.stream(indexes)
+                .map(index -> index / zoneMap.step())
+                .distinct()
+                .forEach(block -> {
+                    details.updateZone(buffer, zoneLease.buffer(), block);
+                    logRegion(zoneLease, block * RollupPartition.BUCKET_SIZE, RollupPartition.BUCKET_SIZE, position);
+                });
+        }
+    }
+
+    private void updateRollups(PartitionRange details, ByteBuffer buffer, int[] indexes, boolean created, AtomicLong position) {
+        List<RollupRange> rollups = details.getRollups();
+        List<BufferLease> leases = new ArrayList<>(rollups.size());
+        ByteBuffer source = buffer;
+        int[] updated = Arrays.stream(indexes).sorted().distinct().toArray();
+        try {
+            for (int tier = 0; tier < rollups.size(); tier++) {
+                RollupRange rollup = rollups.get(tier);
+                int currentTier = tier;
+                ByteBuffer currentSource = source;
+                BufferLease rollupLease = dataService.getOrCreateBuffer(rollup.key(), rollup.getByteSize(), b -> {
+                    if (created) {
+                        return;
+                    }
+                    for (int bucket = 0; bucket < rollup.size(); bucket++) {
+                        details.updateRollup(currentTier, currentSource, b, bucket);
+                    }
+                });
+                leases.add(rollupLease);
+                updated = Arrays.stream(updated).map(index -> index / rollup.step()).distinct().toArray();
+                for (int bucket : updated) {
+                    details.updateRollup(tier, source, rollupLease.buffer(), bucket);
+                    logRegion(rollupLease, bucket * RollupPartition.BUCKET_SIZE, RollupPartition.BUCKET_SIZE, position);
+                }
+                source = rollupLease.buffer();
+            }
+        } finally {
+            leases.forEach(BufferLease::close);
+        }
+    }
+
 }
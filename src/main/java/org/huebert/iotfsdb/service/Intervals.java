@@ -0,0 +1,58 @@
+package org.huebert.iotfsdb.service;
+
+import com.google.common.collect.Range;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Bounds of the intervals of a query in milliseconds since the epoch, which are computed once per query and shared by
+ * every series. The start time of each interval is kept for the response.
+ */
+class Intervals {
+
+    private final List<ZonedDateTime> starts;
+
+    private final long[] lower;
+
+    private final long[] upper;
+
+    private Intervals(List<ZonedDateTime> starts, long[] lower, long[] upper) {
+        this.starts = starts;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * @param ranges closed ranges in ascending order that do not overlap
+     */
+    static Intervals of(List<Range<ZonedDateTime>> ranges) {
+        long[] lower = new long[ranges.size()];
+        long[] upper = new long[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            lower[i] = TimeConverter.toEpochMillis(ranges.get(i).lowerEndpoint());
+            upper[i] = TimeConverter.toEpochMillis(ranges.get(i).upperEndpoint());
+        }
+        return new Intervals(ranges.stream().map(Range::lowerEndpoint).toList(), lower, upper);
+    }
+
+    int size() {
+        return lower.length;
+    }
+
+    ZonedDateTime getStart(int interval) {
+        return starts.get(interval);
+    }
+
+    long getLower(int interval) {
+        return lower[interval];
+    }
+
+    /**
+     * Returns the last millisecond of the interval.
+     */
+    long getUpper(int interval) {
+        return upper[interval];
+    }
+
+}
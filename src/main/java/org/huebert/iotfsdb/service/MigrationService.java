@@ -0,0 +1,68 @@
+package org.huebert.iotfsdb.service;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+@Validated
+@Slf4j
+@Service
+public class MigrationService {
+
+    private final DataService dataService;
+
+    private final PartitionService partitionService;
+
+    private final Duration migrateAfter;
+
+    private final boolean enabled;
+
+    public MigrationService(@NotNull IotfsdbProperties properties, @NotNull DataService dataService, @NotNull PartitionService partitionService) {
+        this.dataService = dataService;
+        this.partitionService = partitionService;
+        this.migrateAfter = properties.getPersistence().getMigrateAfter();
+        this.enabled = !properties.isReadOnly() && migrateAfter.isPositive() && !properties.getPersistence().getColdRoots().isEmpty();
+    }
+
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void migratePartitions() {
+        migratePartitions(LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Moves the partitions that ended longer ago than the migration age to a cold root. Partitions are moved one at a time
+     * while holding their write lock, so inserts and queries only wait for the partition being moved.
+     */
+    void migratePartitions(LocalDateTime now) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = now.minus(migrateAfter);
+        for (SeriesFile seriesFile : dataService.getSeries()) {
+            for (PartitionKey key : dataService.getPartitions(seriesFile.getId())) {
+                PartitionRange range = partitionService.getRange(key);
+                if (range.getRange().upperEndpoint().isBefore(cutoff) && dataService.isHot(key)) {
+                    try {
+                        range.withWrite(() -> {
+                            if (dataService.migratePartition(key)) {
+                                log.debug("Migrated partition {} to a cold root", key);
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        log.warn("Unable to migrate partition {}", key, e);
+                    }
+                }
+            }
+        }
+    }
+
+}
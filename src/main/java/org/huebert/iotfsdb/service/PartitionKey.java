@@ -10,8 +10,33 @@ public record PartitionKey(
     @NotBlank String partitionId
 ) {
 
+    private static final String ZONE_MAP_PREFIX = "z";
+
     public static PartitionKey getKey(String seriesId, PartitionPeriod partitionPeriod, LocalDateTime localDateTime) {
         return new PartitionKey(seriesId, partitionPeriod.getFilename(localDateTime));
     }
 
+    public PartitionKey getRollupKey(long interval) {
+        return getSidecarKey(Long.toString(interval));
+    }
+
+    public PartitionKey getZoneMapKey(int blockSize) {
+        return getSidecarKey(ZONE_MAP_PREFIX + blockSize);
+    }
+
+    /**
+     * Indicates whether the key is a zone map of any block size.
+     */
+    public boolean isZoneMap() {
+        return partitionId.startsWith(PartitionPeriod.getSidecarFilename(PartitionPeriod.getPartitionFilename(partitionId), ZONE_MAP_PREFIX));
+    }
+
+    private PartitionKey getSidecarKey(String suffix) {
+        return new PartitionKey(seriesId, PartitionPeriod.getSidecarFilename(partitionId, suffix));
+    }
+
+    public boolean isSidecar() {
+        return PartitionPeriod.isSidecarFilename(partitionId);
+    }
+
 }
@@ -5,12 +5,19 @@ import com.google.common.collect.Range;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
+import lombok.Setter;
+import org.huebert.iotfsdb.partition.Aggregate;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.partition.RollupPartition;
+import org.huebert.iotfsdb.persistence.AccessAdvice;
+import org.huebert.iotfsdb.persistence.PartitionByteBuffer;
 
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
 public class PartitionRange {
@@ -38,22 +45,59 @@ public class PartitionRange {
 
     private final long intervalMillis;
 
-    private final LocalDateTime lowerEndpoint;
+    /**
+     * Start of the range in milliseconds since the epoch.
+     */
+    @Getter
+    private final long lowerMillis;
+
+    /**
+     * Last millisecond of the range since the epoch.
+     */
+    @Getter
+    private final long upperMillis;
 
     @Getter
     private final long size;
 
+    /**
+     * Rollup tiers ordered from finest to coarsest.
+     */
+    @Getter
+    @NotNull
+    private final List<RollupRange> rollups;
+
+    /**
+     * Zone map with a bucket per block of raw slots, or null if zone maps are disabled.
+     */
+    @Getter
+    private final RollupRange zoneMap;
+
+    /**
+     * Whether stale zone maps and rollups have been deleted, which only has to be done before the first write.
+     */
+    @Getter
+    @Setter
+    private volatile boolean sidecarsChecked;
+
     public PartitionRange(PartitionKey key, Range<LocalDateTime> range, Duration interval, PartitionAdapter adapter, ReadWriteLock rwLock) {
+        this(key, range, interval, adapter, rwLock, List.of(), null);
+    }
+
+    public PartitionRange(PartitionKey key, Range<LocalDateTime> range, Duration interval, PartitionAdapter adapter, ReadWriteLock rwLock, List<RollupRange> rollups, RollupRange zoneMap) {
         this.key = key;
         this.range = range;
         this.interval = interval;
         this.adapter = adapter;
         this.rwLock = rwLock;
+        this.rollups = rollups;
+        this.zoneMap = zoneMap;
 
         intervalMillis = interval.toMillis();
-        lowerEndpoint = range.lowerEndpoint();
+        lowerMillis = TimeConverter.toEpochMillis(range.lowerEndpoint());
+        upperMillis = TimeConverter.toEpochMillis(range.upperEndpoint());
 
-        size = getIndex(range.upperEndpoint()) + 1;
+        size = getIndex(upperMillis) + 1;
     }
 
     public Stream<Number> getStream(ByteBuffer buffer) {
@@ -62,13 +106,158 @@ public class PartitionRange {
 
     public Stream<Number> getStream(ByteBuffer buffer, Range<LocalDateTime> current) {
         Range<LocalDateTime> intersection = range.intersection(current);
-        int fromIndex = getIndex(intersection.lowerEndpoint());
-        int toIndex = getIndex(intersection.upperEndpoint());
+        return getStream(buffer, TimeConverter.toEpochMillis(intersection.lowerEndpoint()), TimeConverter.toEpochMillis(intersection.upperEndpoint()));
+    }
+
+    /**
+     * Returns the slots between two times in milliseconds since the epoch, which must overlap the partition.
+     */
+    public Stream<Number> getStream(ByteBuffer buffer, long from, long to) {
+        int fromIndex = getIndex(Math.max(from, lowerMillis));
+        int toIndex = getIndex(Math.min(to, upperMillis));
         return adapter.getStream(buffer, fromIndex, toIndex - fromIndex + 1);
     }
 
+    /**
+     * Hints that the slots within {@code current} are about to be read in order. The whole mapping is only marked as
+     * sequential when the whole partition is read, since advising part of a mapping splits it.
+     */
+    public void adviseScan(PartitionByteBuffer partition, Range<LocalDateTime> current) {
+        Range<LocalDateTime> intersection = range.intersection(current);
+        adviseScan(partition, TimeConverter.toEpochMillis(intersection.lowerEndpoint()), TimeConverter.toEpochMillis(intersection.upperEndpoint()));
+    }
+
+    public void adviseScan(PartitionByteBuffer partition, long from, long to) {
+        int fromIndex = getIndex(Math.max(from, lowerMillis));
+        int toIndex = getIndex(Math.min(to, upperMillis));
+        int typeSize = adapter.getTypeSize();
+        if (fromIndex == 0 && toIndex == size - 1) {
+            partition.advise(AccessAdvice.SEQUENTIAL, 0, size * typeSize);
+        }
+        partition.advise(AccessAdvice.WILLNEED, (long) fromIndex * typeSize, (long) (toIndex - fromIndex + 1) * typeSize);
+    }
+
+    public DoubleStream getDoubleStream(ByteBuffer buffer, Range<LocalDateTime> current) {
+        Range<LocalDateTime> intersection = range.intersection(current);
+        return getDoubleStream(buffer, TimeConverter.toEpochMillis(intersection.lowerEndpoint()), TimeConverter.toEpochMillis(intersection.upperEndpoint()));
+    }
+
+    public DoubleStream getDoubleStream(ByteBuffer buffer, long from, long to) {
+        int fromIndex = getIndex(Math.max(from, lowerMillis));
+        int toIndex = getIndex(Math.min(to, upperMillis));
+        return adapter.getDoubleStream(buffer, fromIndex, toIndex - fromIndex + 1);
+    }
+
+    public void aggregate(ByteBuffer buffer, Range<LocalDateTime> current, Aggregate aggregate) {
+        aggregate(buffer, null, List.of(), current, aggregate);
+    }
+
+    /**
+     * Aggregates the slots within {@code current} using the coarsest available rollup buckets that are fully contained
+     * in the range. The remaining slots at either end are aggregated from finer tiers and finally the raw slots.
+     *
+     * @param zoneBuffer    buffer of the zone map, or null to scan the raw slots directly
+     * @param rollupBuffers buffers of the first {@code n} rollup tiers
+     */
+    public void aggregate(ByteBuffer buffer, ByteBuffer zoneBuffer, List<ByteBuffer> rollupBuffers, Range<LocalDateTime> current, Aggregate aggregate) {
+        Range<LocalDateTime> intersection = range.intersection(current);
+        aggregate(buffer, zoneBuffer, rollupBuffers, TimeConverter.toEpochMillis(intersection.lowerEndpoint()), TimeConverter.toEpochMillis(intersection.upperEndpoint()), aggregate);
+    }
+
+    /**
+     * Aggregates the slots between two times in milliseconds since the epoch, which must overlap the partition.
+     */
+    public void aggregate(ByteBuffer buffer, ByteBuffer zoneBuffer, List<ByteBuffer> rollupBuffers, long from, long to, Aggregate aggregate) {
+        int fromIndex = getIndex(Math.max(from, lowerMillis));
+        int toIndex = getIndex(Math.min(to, upperMillis)) + 1;
+        aggregate(buffer, zoneBuffer, rollupBuffers, rollupBuffers.size() - 1, fromIndex, toIndex, aggregate);
+        aggregate.addSlots(toIndex - fromIndex);
+    }
+
+    private void aggregate(ByteBuffer buffer, ByteBuffer zoneBuffer, List<ByteBuffer> rollupBuffers, int tier, int fromIndex, int toIndex, Aggregate aggregate) {
+        if (fromIndex >= toIndex) {
+            return;
+        } else if (tier < 0) {
+            aggregateSlots(buffer, zoneBuffer, fromIndex, toIndex, aggregate);
+            return;
+        }
+
+        int ratio = rollups.get(tier).ratio();
+        int fromBucket = Math.ceilDiv(fromIndex, ratio);
+        int toBucket = toIndex / ratio;
+        if (fromBucket >= toBucket) {
+            aggregate(buffer, zoneBuffer, rollupBuffers, tier - 1, fromIndex, toIndex, aggregate);
+            return;
+        }
+
+        aggregate(buffer, zoneBuffer, rollupBuffers, tier - 1, fromIndex, fromBucket * ratio, aggregate);
+        RollupPartition.aggregate(rollupBuffers.get(tier), fromBucket, toBucket - fromBucket, aggregate);
+        aggregate(buffer, zoneBuffer, rollupBuffers, tier - 1, toBucket * ratio, toIndex, aggregate);
+    }
+
+    /**
+     * Aggregates raw slots. Blocks that are fully covered are read from the zone map and blocks without values are skipped.
+     */
+    private void aggregateSlots(ByteBuffer buffer, ByteBuffer zoneBuffer, int fromIndex, int toIndex, Aggregate aggregate) {
+        if (zoneBuffer == null) {
+            adapter.aggregate(buffer, fromIndex, toIndex - fromIndex, aggregate);
+            return;
+        }
+
+        int blockSize = zoneMap.step();
+        int toBlock = Math.ceilDiv(toIndex, blockSize);
+        for (int block = fromIndex / blockSize; block < toBlock; block++) {
+            if (RollupPartition.getCount(zoneBuffer, block) == 0) {
+                continue;
+            }
+            int blockStart = block * blockSize;
+            int blockEnd = (int) Math.min(size, blockStart + blockSize);
+            int start = Math.max(fromIndex, blockStart);
+            int end = Math.min(toIndex, blockEnd);
+            if (start == blockStart && end == blockEnd) {
+                RollupPartition.aggregate(zoneBuffer, block, 1, aggregate);
+            } else {
+                adapter.aggregate(buffer, start, end - start, aggregate);
+            }
+        }
+    }
+
+    /**
+     * Recomputes a block of the zone map from the raw slots.
+     */
+    public void updateZone(ByteBuffer buffer, ByteBuffer zoneBuffer, int block) {
+        int blockStart = block * zoneMap.step();
+        int length = (int) Math.min(zoneMap.step(), size - blockStart);
+        Aggregate aggregate = new Aggregate();
+        adapter.aggregate(buffer, blockStart, length, aggregate);
+        RollupPartition.put(zoneBuffer, block, aggregate);
+    }
+
+    /**
+     * Recomputes a bucket of a rollup tier from the next finer tier, or from the raw slots for the first tier.
+     *
+     * @param source buffer of the next finer tier
+     */
+    public void updateRollup(int tier, ByteBuffer source, ByteBuffer rollupBuffer, int bucket) {
+        int step = rollups.get(tier).step();
+        Aggregate aggregate = new Aggregate();
+        if (tier == 0) {
+            adapter.aggregate(source, bucket * step, step, aggregate);
+        } else {
+            RollupPartition.aggregate(source, bucket * step, step, aggregate);
+        }
+        RollupPartition.put(rollupBuffer, bucket, aggregate);
+    }
+
     public int getIndex(LocalDateTime dateTime) {
-        return (int) (Duration.between(lowerEndpoint, dateTime).toMillis() / intervalMillis);
+        return getIndex(TimeConverter.toEpochMillis(dateTime));
+    }
+
+    /**
+     * Returns the slot of a time in milliseconds since the epoch.
+     */
+    public int getIndex(long epochMillis) {
+        return (int) ((epochMillis - lowerMillis) / intervalMillis);
     }
 
     public void withRead(LockUtil.RunnableWithException runnable) {
@@ -1,7 +1,7 @@
 package org.huebert.iotfsdb.service;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeMap;
 import com.google.common.collect.TreeRangeMap;
@@ -25,15 +25,23 @@ import org.huebert.iotfsdb.partition.IntegerPartition;
 import org.huebert.iotfsdb.partition.LongPartition;
 import org.huebert.iotfsdb.partition.MappedPartition;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.partition.PartitionCodec;
+import org.huebert.iotfsdb.partition.ScanKernel;
+import org.huebert.iotfsdb.partition.ScanKernels;
 import org.huebert.iotfsdb.partition.ShortPartition;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Validated
@@ -45,39 +53,42 @@ public class PartitionService {
 
     private static final Set<NumberType> MAPPED = EnumSet.of(NumberType.MAPPED1, NumberType.MAPPED2, NumberType.MAPPED4);
 
-    private static final Map<NumberType, PartitionAdapter> ADAPTER_MAP;
+    private static final Set<NumberType> FLOATING = EnumSet.of(NumberType.FLOAT1, NumberType.FLOAT2, NumberType.FLOAT3, NumberType.FLOAT4, NumberType.FLOAT8);
+
+    private static final Map<NumberType, PartitionAdapter> SCALAR_ADAPTERS = createAdapters(ScanKernels.SCALAR);
 
     private final DataService dataService;
 
+    private final int zoneMapBlockSize;
+
     private final LoadingCache<PartitionKey, PartitionRange> partitionCache;
 
-    static {
-        ADAPTER_MAP = new EnumMap<>(NumberType.class);
-        ADAPTER_MAP.put(NumberType.CURVED1, new BytePartition());
-        ADAPTER_MAP.put(NumberType.CURVED2, new ShortPartition());
-        ADAPTER_MAP.put(NumberType.CURVED4, new IntegerPartition());
-        ADAPTER_MAP.put(NumberType.FLOAT1, new Float1Partition());
-        ADAPTER_MAP.put(NumberType.FLOAT2, new HalfFloatPartition());
-        ADAPTER_MAP.put(NumberType.FLOAT3, new Float3Partition());
-        ADAPTER_MAP.put(NumberType.FLOAT4, new FloatPartition());
-        ADAPTER_MAP.put(NumberType.FLOAT8, new DoublePartition());
-        ADAPTER_MAP.put(NumberType.INTEGER1, new BytePartition());
-        ADAPTER_MAP.put(NumberType.INTEGER2, new ShortPartition());
-        ADAPTER_MAP.put(NumberType.INTEGER4, new IntegerPartition());
-        ADAPTER_MAP.put(NumberType.INTEGER8, new LongPartition());
-        ADAPTER_MAP.put(NumberType.MAPPED1, new BytePartition());
-        ADAPTER_MAP.put(NumberType.MAPPED2, new ShortPartition());
-        ADAPTER_MAP.put(NumberType.MAPPED4, new IntegerPartition());
-    }
+    private final ConcurrentMap<String, PartitionTable> partitionTables = new ConcurrentHashMap<>();
+
+    private final Map<NumberType, PartitionAdapter> adapters;
 
     public PartitionService(@NotNull IotfsdbProperties properties, @NotNull DataService dataService) {
         this.dataService = dataService;
-        this.partitionCache = CacheBuilder.from(properties.getPersistence().getPartitionCache())
+        this.zoneMapBlockSize = properties.getPersistence().getZoneMapBlockSize();
+        this.partitionCache = Caffeine.from(properties.getPersistence().getPartitionCache())
             .build(new CacheLoader<>(this::calculateRange));
+        this.adapters = createAdapters(ScanKernels.select(properties.getQuery().isVectorized()));
     }
 
     public PartitionRange getRange(@Valid @NotNull PartitionKey key) {
-        return partitionCache.getUnchecked(key);
+        return partitionCache.get(key);
+    }
+
+    /**
+     * Returns the table of interned partition keys of a series. A table is replaced when the series was recreated with a
+     * different partition period. The table is created atomically, so that concurrent inserts share a single table.
+     */
+    public PartitionTable getPartitionTable(@NotBlank String seriesId, @NotNull PartitionPeriod period) {
+        PartitionTable table = partitionTables.get(seriesId);
+        if (table != null && table.getPeriod() == period) {
+            return table;
+        }
+        return partitionTables.compute(seriesId, (id, current) -> current == null || current.getPeriod() != period ? new PartitionTable(id, period) : current);
     }
 
     public RangeMap<LocalDateTime, PartitionRange> getRangeMap(@NotBlank String seriesId) {
@@ -91,13 +102,30 @@ public class PartitionService {
     private PartitionRange calculateRange(PartitionKey key) {
         SeriesFile series = dataService.getSeries(key.seriesId())
             .orElseThrow(() -> new IllegalArgumentException("Series not found for id: " + key.seriesId()));
-        return calculateRange(series.getDefinition(), key);
+        return calculateRange(series.getDefinition(), key, zoneMapBlockSize, adapters);
     }
 
     public static PartitionRange calculateRange(SeriesDefinition definition, PartitionKey key) {
+        return calculateRange(definition, key, 0);
+    }
+
+    /**
+     * @param zoneMapBlockSize number of raw slots per zone map block, or 0 for no zone map
+     */
+    public static PartitionRange calculateRange(SeriesDefinition definition, PartitionKey key, int zoneMapBlockSize) {
+        return calculateRange(definition, key, zoneMapBlockSize, SCALAR_ADAPTERS);
+    }
+
+    private static PartitionRange calculateRange(SeriesDefinition definition, PartitionKey key, int zoneMapBlockSize, Map<NumberType, PartitionAdapter> adapters) {
         Range<LocalDateTime> range = getRange(definition, key.partitionId());
-        PartitionAdapter adapter = getAdapter(definition);
-        return new PartitionRange(key, range, definition.getIntervalDuration(), adapter, new ReentrantReadWriteLock());
+        PartitionAdapter adapter = getAdapter(definition, adapters);
+        List<RollupRange> rollups = getRollups(definition, key, range);
+        RollupRange zoneMap = null;
+        if (zoneMapBlockSize > 0) {
+            long size = (Duration.between(range.lowerEndpoint(), range.upperEndpoint()).toMillis() / definition.getInterval()) + 1;
+            zoneMap = new RollupRange(key.getZoneMapKey(zoneMapBlockSize), Math.ceilDiv(size, zoneMapBlockSize), zoneMapBlockSize, zoneMapBlockSize);
+        }
+        return new PartitionRange(key, range, definition.getIntervalDuration(), adapter, new ReentrantReadWriteLock(), rollups, zoneMap);
     }
 
     private static Range<LocalDateTime> getRange(SeriesDefinition definition, String partitionId) {
@@ -107,10 +135,52 @@ public class PartitionService {
         return Range.closed(start, end);
     }
 
-    private static PartitionAdapter getAdapter(SeriesDefinition definition) {
+    private static List<RollupRange> getRollups(SeriesDefinition definition, PartitionKey key, Range<LocalDateTime> range) {
+        if (definition.getRollups() == null || definition.getRollups().isEmpty()) {
+            return List.of();
+        }
+        long rangeMillis = Duration.between(range.lowerEndpoint(), range.upperEndpoint()).toMillis();
+        long previous = definition.getInterval();
+        List<RollupRange> rollups = new ArrayList<>(definition.getRollups().size());
+        for (long rollup : definition.getRollups()) {
+            long size = (rangeMillis / rollup) + 1;
+            rollups.add(new RollupRange(key.getRollupKey(rollup), size, (int) (rollup / previous), (int) (rollup / definition.getInterval())));
+            previous = rollup;
+        }
+        return List.copyOf(rollups);
+    }
+
+    public static PartitionCodec getCodec(SeriesDefinition definition) {
+        return FLOATING.contains(definition.getType()) ? PartitionCodec.XOR : PartitionCodec.DELTA;
+    }
+
+    /**
+     * Adapters for each stored type that aggregate with the kernel.
+     */
+    private static Map<NumberType, PartitionAdapter> createAdapters(ScanKernel kernel) {
+        Map<NumberType, PartitionAdapter> adapters = new EnumMap<>(NumberType.class);
+        adapters.put(NumberType.CURVED1, new BytePartition(kernel));
+        adapters.put(NumberType.CURVED2, new ShortPartition(kernel));
+        adapters.put(NumberType.CURVED4, new IntegerPartition(kernel));
+        adapters.put(NumberType.FLOAT1, new Float1Partition());
+        adapters.put(NumberType.FLOAT2, new HalfFloatPartition());
+        adapters.put(NumberType.FLOAT3, new Float3Partition());
+        adapters.put(NumberType.FLOAT4, new FloatPartition(kernel));
+        adapters.put(NumberType.FLOAT8, new DoublePartition(kernel));
+        adapters.put(NumberType.INTEGER1, new BytePartition(kernel));
+        adapters.put(NumberType.INTEGER2, new ShortPartition(kernel));
+        adapters.put(NumberType.INTEGER4, new IntegerPartition(kernel));
+        adapters.put(NumberType.INTEGER8, new LongPartition(kernel));
+        adapters.put(NumberType.MAPPED1, new BytePartition(kernel));
+        adapters.put(NumberType.MAPPED2, new ShortPartition(kernel));
+        adapters.put(NumberType.MAPPED4, new IntegerPartition(kernel));
+        return adapters;
+    }
+
+    private static PartitionAdapter getAdapter(SeriesDefinition definition, Map<NumberType, PartitionAdapter> adapters) {
 
         NumberType type = definition.getType();
-        PartitionAdapter adapter = ADAPTER_MAP.get(type);
+        PartitionAdapter adapter = adapters.get(type);
         if (adapter == null) {
             throw new IllegalArgumentException("Series type " + definition.getType() + " is not supported");
         }
@@ -0,0 +1,58 @@
+package org.huebert.iotfsdb.service;
+
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interned partition keys of a series by the ordinal of their period, so that the key of a value is found with date
+ * arithmetic instead of formatting its filename. Each filename is formatted once, and the same key instance is returned
+ * afterward, so the hash of its strings is only computed once. The most recently returned key is checked first by
+ * comparing the time against the bounds of its period, since most writes go to the current partition.
+ */
+public class PartitionTable {
+
+    private final String seriesId;
+
+    private final PartitionPeriod period;
+
+    private final ConcurrentMap<Long, PartitionKey> keys = new ConcurrentHashMap<>();
+
+    private volatile Entry last;
+
+    public PartitionTable(String seriesId, PartitionPeriod period) {
+        this.seriesId = seriesId;
+        this.period = period;
+    }
+
+    public PartitionPeriod getPeriod() {
+        return period;
+    }
+
+    public PartitionKey getKey(LocalDateTime dateTime) {
+        return getKey(TimeConverter.toEpochMillis(dateTime));
+    }
+
+    /**
+     * Returns the key of the partition that contains a time in milliseconds since the epoch in UTC.
+     */
+    public PartitionKey getKey(long epochMillis) {
+        Entry entry = last;
+        if (entry != null && epochMillis >= entry.start() && epochMillis < entry.end()) {
+            return entry.key();
+        }
+        long ordinal = period.getOrdinal(epochMillis);
+        PartitionKey key = keys.computeIfAbsent(ordinal, o -> new PartitionKey(seriesId, period.getFilename(o)));
+        last = new Entry(period.getStartMillis(ordinal), period.getStartMillis(ordinal + 1), key);
+        return key;
+    }
+
+    /**
+     * @param end first millisecond after the period
+     */
+    private record Entry(long start, long end, PartitionKey key) {
+    }
+
+}
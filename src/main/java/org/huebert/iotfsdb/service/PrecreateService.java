@@ -0,0 +1,78 @@
+package org.huebert.iotfsdb.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the partitions of the next period shortly before it starts, so that the first insert of every series after
+ * midnight does not have to create, format and map its partition. Only series that have a partition in the current
+ * period are considered active.
+ */
+@Validated
+@Slf4j
+@Service
+public class PrecreateService {
+
+    private final DataService dataService;
+
+    private final InsertService insertService;
+
+    private final Duration precreateAhead;
+
+    private final RateLimiter rateLimiter;
+
+    private final boolean enabled;
+
+    public PrecreateService(@NotNull IotfsdbProperties properties, @NotNull DataService dataService, @NotNull InsertService insertService) {
+        this.dataService = dataService;
+        this.insertService = insertService;
+        this.precreateAhead = properties.getPersistence().getPrecreateAhead();
+        this.rateLimiter = RateLimiter.create(properties.getPersistence().getPrecreateRate());
+        this.enabled = !properties.isReadOnly() && precreateAhead.isPositive();
+    }
+
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void precreatePartitions() {
+        precreatePartitions(LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    void precreatePartitions(LocalDateTime now) {
+        if (!enabled) {
+            return;
+        }
+        int created = 0;
+        for (SeriesFile seriesFile : dataService.getSeries()) {
+            PartitionPeriod period = seriesFile.getDefinition().getPartition();
+            PartitionKey current = PartitionKey.getKey(seriesFile.getId(), period, now);
+            PartitionKey next = PartitionKey.getKey(seriesFile.getId(), period, now.plus(precreateAhead));
+            Set<PartitionKey> partitions = dataService.getPartitions(seriesFile.getId());
+            if (!next.equals(current) && partitions.contains(current) && !partitions.contains(next)) {
+                rateLimiter.acquire();
+                try {
+                    if (insertService.createPartition(next)) {
+                        created++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Unable to create partition {} ahead of its period", next, e);
+                }
+            }
+        }
+        if (created > 0) {
+            log.info("Created {} partitions ahead of their period", created);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.huebert.iotfsdb.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Opens the partitions that a query is about to visit on virtual threads and loads their pages, so that a cold query
+ * does not wait on each partition in turn. Prefetching is best effort: a partition that is already being prefetched,
+ * or that would exceed the number of concurrent prefetches, is skipped.
+ */
+@Slf4j
+@Validated
+@Service
+public class PrefetchService {
+
+    private final DataService dataService;
+
+    private final int lookAhead;
+
+    private final Semaphore permits;
+
+    private final Set<PartitionKey> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("iotfsdb-prefetch-", 0).factory());
+
+    public PrefetchService(@NotNull IotfsdbProperties properties, @NotNull DataService dataService) {
+        this.dataService = dataService;
+        this.lookAhead = properties.getQuery().getPrefetchPartitions();
+        this.permits = new Semaphore(properties.getQuery().getPrefetchConcurrency());
+    }
+
+    /**
+     * Number of partitions to prefetch ahead of the partition being read, or 0 if prefetching is disabled.
+     */
+    public int getLookAhead() {
+        return lookAhead;
+    }
+
+    /**
+     * Opens a partition along with its zone map and rollups in the background and loads their pages.
+     */
+    public void prefetch(@NotNull PartitionRange partitionRange) {
+        PartitionKey key = partitionRange.getKey();
+        if (!inFlight.add(key)) {
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            inFlight.remove(key);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    getKeys(partitionRange).forEach(dataService::prefetch);
+                } catch (RuntimeException e) {
+                    log.debug("Unable to prefetch partition {}", key, e);
+                } finally {
+                    inFlight.remove(key);
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            permits.release();
+        }
+    }
+
+    private static List<PartitionKey> getKeys(PartitionRange partitionRange) {
+        List<PartitionKey> keys = new ArrayList<>(partitionRange.getRollups().size() + 2);
+        keys.add(partitionRange.getKey());
+        if (partitionRange.getZoneMap() != null) {
+            keys.add(partitionRange.getZoneMap().key());
+        }
+        partitionRange.getRollups().forEach(rollup -> keys.add(rollup.key()));
+        return keys;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.huebert.iotfsdb.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the prefetched partitions of a query a fixed number of partitions ahead of the ones being read.
+ * Each partition of the plan is requested at most once.
+ */
+class PrefetchWindow {
+
+    private final PrefetchService prefetchService;
+
+    private final List<PartitionRange> plan;
+
+    private final Map<PartitionKey, Integer> positions = new HashMap<>();
+
+    private int requested;
+
+    /**
+     * @param plan partitions in the order that the query visits them
+     */
+    PrefetchWindow(PrefetchService prefetchService, List<PartitionRange> plan) {
+        this.prefetchService = prefetchService;
+        this.plan = plan;
+        for (int i = 0; i < plan.size(); i++) {
+            positions.put(plan.get(i).getKey(), i);
+        }
+    }
+
+    /**
+     * Prefetches the partitions that follow the partitions about to be read.
+     */
+    synchronized void visit(Collection<PartitionRange> covered) {
+        int lookAhead = prefetchService.getLookAhead();
+        if (lookAhead <= 0) {
+            return;
+        }
+        int position = -1;
+        for (PartitionRange partitionRange : covered) {
+            position = Math.max(position, positions.getOrDefault(partitionRange.getKey(), -1));
+        }
+        if (position < 0) {
+            return;
+        }
+        int to = Math.min(plan.size(), position + 1 + lookAhead);
+        for (int i = Math.max(requested, position + 1); i < to; i++) {
+            prefetchService.prefetch(plan.get(i));
+        }
+        requested = Math.max(requested, to);
+    }
+
+}
@@ -0,0 +1,198 @@
+package org.huebert.iotfsdb.service;
+
+import com.google.common.collect.Range;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.partition.RollupPartition;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Validated
+@Slf4j
+@Service
+public class PruneService {
+
+    private final DataService dataService;
+
+    private final PartitionService partitionService;
+
+    private final boolean enabled;
+
+    public PruneService(@NotNull IotfsdbProperties properties, @NotNull DataService dataService, @NotNull PartitionService partitionService) {
+        this.dataService = dataService;
+        this.partitionService = partitionService;
+        this.enabled = !properties.isReadOnly();
+    }
+
+    /**
+     * Removes the values of a series within a range. Partitions that the range fully covers are deleted with their
+     * sidecars, and only the partitions at either end of the range have their covered slots set to null.
+     *
+     * @throws IllegalStateException if the database is read-only
+     */
+    public void prune(@NotBlank String seriesId, @NotNull Range<LocalDateTime> range) {
+        checkEnabled();
+        dataService.getSeries(seriesId).orElseThrow(() -> new IllegalArgumentException("Series not found for id: " + seriesId));
+        AtomicLong position = new AtomicLong();
+        for (PartitionKey key : List.copyOf(dataService.getPartitions(seriesId))) {
+            PartitionRange details = partitionService.getRange(key);
+            Range<LocalDateTime> partitionRange = details.getRange();
+            if (range.encloses(partitionRange)) {
+                details.withWrite(() -> dataService.deletePartition(key));
+            } else if (range.isConnected(partitionRange) && !range.intersection(partitionRange).isEmpty()) {
+                details.withWrite(() -> clearPartition(details, range.intersection(partitionRange), position));
+            }
+        }
+        dataService.commit(position.get());
+    }
+
+    /**
+     * Deletes a partition with its sidecars.
+     *
+     * @return false if the partition does not exist
+     * @throws IllegalStateException if the database is read-only
+     */
+    public boolean deletePartition(@Valid @NotNull PartitionKey key) {
+        checkEnabled();
+        if (key.isSidecar()) {
+            throw new IllegalArgumentException("Sidecars are deleted with their partition: " + key);
+        }
+        AtomicBoolean deleted = new AtomicBoolean();
+        partitionService.getRange(key).withWrite(() -> deleted.set(dataService.deletePartition(key)));
+        return deleted.get();
+    }
+
+    /**
+     * Deletes the partitions that ended longer ago than the retention of their series. Partitions are only deleted whole,
+     * so the partition that contains the cutoff is kept until it ends.
+     */
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void enforceRetention() {
+        enforceRetention(LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    private void checkEnabled() {
+        if (!enabled) {
+            throw new IllegalStateException("Data cannot be pruned in read-only mode");
+        }
+    }
+
+    void enforceRetention(LocalDateTime now) {
+        if (!enabled) {
+            return;
+        }
+        for (SeriesFile seriesFile : dataService.getSeries()) {
+            Optional<Duration> retention = seriesFile.getDefinition().getRetentionDuration();
+            if (retention.isEmpty()) {
+                continue;
+            }
+            LocalDateTime cutoff = now.minus(retention.get());
+            for (PartitionKey key : List.copyOf(dataService.getPartitions(seriesFile.getId()))) {
+                PartitionRange details = partitionService.getRange(key);
+                if (details.getRange().upperEndpoint().isBefore(cutoff)) {
+                    try {
+                        details.withWrite(() -> dataService.deletePartition(key));
+                        log.debug("Deleted partition {} older than {}", key, retention.get());
+                    } catch (RuntimeException e) {
+                        log.warn("Unable to delete partition {}", key, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the slots within the range to null in a single bulk fill and recomputes the zone map blocks and rollup buckets
+     * that contain them.
+     */
+    private void clearPartition(PartitionRange details, Range<LocalDateTime> range, AtomicLong position) {
+        PartitionKey key = details.getKey();
+        if (!dataService.getPartitions(key.seriesId()).contains(key)) {
+            return;
+        }
+        dataService.deleteStaleSidecars(details);
+        PartitionAdapter adapter = details.getAdapter();
+        int fromIndex = details.getIndex(range.lowerEndpoint());
+        int toIndex = details.getIndex(range.upperEndpoint());
+        try (BufferLease lease = dataService.getBuffer(key, details.getSize(), adapter)) {
+            ByteBuffer buffer = lease.buffer();
+            int typeSize = adapter.getTypeSize();
+            adapter.putNulls(buffer, fromIndex, toIndex - fromIndex + 1);
+            logRegion(lease, fromIndex * typeSize, (toIndex - fromIndex + 1) * typeSize, position);
+            updateZoneMap(details, buffer, fromIndex, toIndex, position);
+            updateRollups(details, buffer, fromIndex, toIndex, position);
+        }
+    }
+
+    private void updateZoneMap(PartitionRange details, ByteBuffer buffer, int fromIndex, int toIndex, AtomicLong position) {
+        RollupRange zoneMap = details.getZoneMap();
+        if (zoneMap == null) {
+            return;
+        }
+        dataService.getBuffer(zoneMap.key()).ifPresent(lease -> {
+            try (lease) {
+                for (int block = fromIndex / zoneMap.step(); block <= toIndex / zoneMap.step(); block++) {
+                    details.updateZone(buffer, lease.buffer(), block);
+                }
+                logBuckets(lease, fromIndex / zoneMap.step(), toIndex / zoneMap.step(), position);
+            }
+        });
+    }
+
+    /**
+     * Each tier is recomputed from the next finer tier, so tiers are only updated up to the first one that is missing.
+     */
+    private void updateRollups(PartitionRange details, ByteBuffer buffer, int fromIndex, int toIndex, AtomicLong position) {
+        List<RollupRange> rollups = details.getRollups();
+        List<BufferLease> leases = new ArrayList<>(rollups.size());
+        ByteBuffer source = buffer;
+        int fromBucket = fromIndex;
+        int toBucket = toIndex;
+        try {
+            for (int tier = 0; tier < rollups.size(); tier++) {
+                RollupRange rollup = rollups.get(tier);
+                Optional<BufferLease> rollupLease = dataService.getBuffer(rollup.key());
+                if (rollupLease.isEmpty()) {
+                    return;
+                }
+                leases.add(rollupLease.get());
+                fromBucket /= rollup.step();
+                toBucket /= rollup.step();
+                for (int bucket = fromBucket; bucket <= toBucket; bucket++) {
+                    details.updateRollup(tier, source, rollupLease.get().buffer(), bucket);
+                }
+                logBuckets(rollupLease.get(), fromBucket, toBucket, position);
+                source = rollupLease.get().buffer();
+            }
+        } finally {
+            leases.forEach(BufferLease::close);
+        }
+    }
+
+    private void logBuckets(BufferLease lease, int fromBucket, int toBucket, AtomicLong position) {
+        logRegion(lease, fromBucket * RollupPartition.BUCKET_SIZE, (toBucket - fromBucket + 1) * RollupPartition.BUCKET_SIZE, position);
+    }
+
+    private void logRegion(BufferLease lease, int offset, int length, AtomicLong position) {
+        long logged = dataService.logRegion(lease, offset, length);
+        position.accumulateAndGet(logged, Math::max);
+    }
+
+}
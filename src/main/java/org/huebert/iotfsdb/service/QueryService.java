@@ -1,22 +1,26 @@
 package org.huebert.iotfsdb.service;
 
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeMap;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.huebert.iotfsdb.api.schema.FindDataRequest;
 import org.huebert.iotfsdb.api.schema.FindDataResponse;
 import org.huebert.iotfsdb.api.schema.SeriesData;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.Aggregate;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
 @Validated
@@ -33,21 +37,24 @@ public class QueryService {
 
     private final SeriesService seriesService;
 
-    public QueryService(@NotNull DataService dataService, @NotNull ReducerService reducerService, @NotNull IntervalService intervalService, @NotNull PartitionService partitionService, @NotNull SeriesService seriesService) {
+    private final PrefetchService prefetchService;
+
+    public QueryService(@NotNull DataService dataService, @NotNull ReducerService reducerService, @NotNull IntervalService intervalService, @NotNull PartitionService partitionService, @NotNull SeriesService seriesService, @NotNull PrefetchService prefetchService) {
         this.dataService = dataService;
         this.reducerService = reducerService;
         this.intervalService = intervalService;
         this.partitionService = partitionService;
         this.seriesService = seriesService;
+        this.prefetchService = prefetchService;
     }
 
     public List<FindDataResponse> findData(@Valid @NotNull FindDataRequest request) {
 
         List<SeriesFile> series = seriesService.findSeries(request.getSeries());
 
-        List<Range<ZonedDateTime>> ranges = intervalService.getIntervalRanges(request);
+        Intervals intervals = Intervals.of(intervalService.getIntervalRanges(request));
 
-        List<FindDataResponse> result = ParallelUtil.map(series, s -> findDataForSeries(request, ranges, s)).stream()
+        List<FindDataResponse> result = ParallelUtil.map(series, s -> findDataForSeries(request, intervals, s)).stream()
             .filter(r -> r.getData().stream().anyMatch(data -> data.getValue() != null))
             .sorted(Comparator.comparing(r -> r.getSeries().getId()))
             .toList();
@@ -57,37 +64,145 @@ public class QueryService {
             : result;
     }
 
-    private FindDataResponse findDataForSeries(@Valid @NotNull FindDataRequest request, @NotNull List<Range<ZonedDateTime>> ranges, SeriesFile series) {
-        RangeMap<LocalDateTime, PartitionRange> rangeMap = partitionService.getRangeMap(series.getId());
+    /**
+     * Intervals and partitions are both in ascending order, so the partitions that cover each interval are found by
+     * advancing through the partitions once rather than searching a range map for every interval.
+     */
+    private FindDataResponse findDataForSeries(@Valid @NotNull FindDataRequest request, @NotNull Intervals intervals, SeriesFile series) {
+        List<PartitionRange> partitions = List.copyOf(partitionService.getRangeMap(series.getId()).asMapOfRanges().values());
+        IntervalReducer reducer = getReducer(request);
+        PrefetchWindow prefetchWindow = new PrefetchWindow(prefetchService, getPlan(partitions, intervals));
+        Consumer<SeriesData> previousConsumer = request.getPreviousConsumer();
+        Predicate<SeriesData> nullPredicate = request.getNullPredicate();
+        List<SeriesData> data = new ArrayList<>(intervals.size());
+        int first = 0;
+        for (int i = 0; i < intervals.size(); i++) {
+            long from = intervals.getLower(i);
+            long to = intervals.getUpper(i);
+            while (first < partitions.size() && partitions.get(first).getUpperMillis() < from) {
+                first++;
+            }
+            int end = first;
+            while (end < partitions.size() && partitions.get(end).getLowerMillis() <= to) {
+                end++;
+            }
+            SeriesData value = findDataOverPartitions(reducer, partitions.subList(first, end), intervals.getStart(i), from, to, prefetchWindow);
+            previousConsumer.accept(value);
+            if (nullPredicate.test(value)) {
+                data.add(value);
+            }
+        }
+        return new FindDataResponse(series, data);
+    }
+
+    private IntervalReducer getReducer(FindDataRequest request) {
+        Optional<Function<Aggregate, Number>> aggregateReducer = reducerService.getAggregateReducer(request, request.getTimeReducer());
+        if (aggregateReducer.isPresent()) {
+            Function<Aggregate, Number> function = aggregateReducer.get();
+            return (covered, from, to) -> {
+                Aggregate aggregate = new Aggregate();
+                covered.forEach(pr -> aggregateFromPartition(pr, from, to, aggregate));
+                return function.apply(aggregate);
+            };
+        }
+        Optional<Function<DoubleStream, Number>> doubleReducer = reducerService.getDoubleReducer(request, request.getTimeReducer());
+        if (doubleReducer.isPresent()) {
+            Function<DoubleStream, Number> function = doubleReducer.get();
+            return (covered, from, to) -> function.apply(covered.stream().flatMapToDouble(pr -> findDoublesFromPartition(pr, from, to)));
+        }
         Collector<Number, ?, Number> collector = reducerService.getCollector(request, request.getTimeReducer());
-        return new FindDataResponse(
-            series,
-            ranges.stream()
-                .map(current -> findDataOverPartitions(collector, rangeMap, current))
-                .peek(request.getPreviousConsumer())
-                .filter(request.getNullPredicate())
-                .toList()
-        );
+        return (covered, from, to) -> covered.stream().flatMap(pr -> findDataFromPartition(pr, from, to)).collect(collector);
     }
 
-    private SeriesData findDataOverPartitions(Collector<Number, ?, Number> collector, RangeMap<LocalDateTime, PartitionRange> rangeMap, Range<ZonedDateTime> current) {
-        Range<LocalDateTime> local = TimeConverter.toUtc(current);
-        Collection<PartitionRange> covered = rangeMap.subRangeMap(local).asMapOfRanges().values();
+    /**
+     * Returns the partitions that the intervals cover in the order that they are visited.
+     */
+    private static List<PartitionRange> getPlan(List<PartitionRange> partitions, Intervals intervals) {
+        if (intervals.size() == 0) {
+            return List.of();
+        }
+        long from = intervals.getLower(0);
+        long to = intervals.getUpper(intervals.size() - 1);
+        return partitions.stream()
+            .filter(pr -> pr.getUpperMillis() >= from && pr.getLowerMillis() <= to)
+            .toList();
+    }
+
+    private SeriesData findDataOverPartitions(IntervalReducer reducer, List<PartitionRange> covered, ZonedDateTime start, long from, long to, PrefetchWindow prefetchWindow) {
+        prefetchWindow.visit(covered);
         covered.forEach(c -> c.getRwLock().readLock().lock());
         try {
-            Number value = covered.stream()
-                .flatMap(pr -> findDataFromPartition(pr, local))
-                .collect(collector);
-            return new SeriesData(current.lowerEndpoint(), value);
+            return new SeriesData(start, reducer.reduce(covered, from, to));
         } finally {
             covered.forEach(c -> c.getRwLock().readLock().unlock());
         }
     }
 
-    private Stream<Number> findDataFromPartition(PartitionRange partitionRange, Range<LocalDateTime> current) {
+    /**
+     * The lease is closed when the stream is closed, which happens once it has been consumed by {@link Stream#flatMap}.
+     */
+    private Stream<Number> findDataFromPartition(PartitionRange partitionRange, long from, long to) {
         return dataService.getBuffer(partitionRange.getKey())
-            .map(b -> partitionRange.getStream(b, current))
+            .map(lease -> {
+                partitionRange.adviseScan(lease.partition(), from, to);
+                return partitionRange.getStream(lease.buffer(), from, to).onClose(lease::close);
+            })
             .orElse(Stream.empty());
     }
 
+    private void aggregateFromPartition(PartitionRange partitionRange, long from, long to, Aggregate aggregate) {
+        Optional<BufferLease> partitionLease = dataService.getBuffer(partitionRange.getKey());
+        if (partitionLease.isEmpty()) {
+            return;
+        }
+        List<BufferLease> sidecarLeases = new ArrayList<>();
+        try (BufferLease lease = partitionLease.get()) {
+            ByteBuffer zoneBuffer = getZoneBuffer(partitionRange, sidecarLeases);
+            List<ByteBuffer> rollupBuffers = getRollupBuffers(partitionRange, sidecarLeases);
+            partitionRange.aggregate(lease.buffer(), zoneBuffer, rollupBuffers, from, to, aggregate);
+        } finally {
+            sidecarLeases.forEach(BufferLease::close);
+        }
+    }
+
+    private ByteBuffer getZoneBuffer(PartitionRange partitionRange, List<BufferLease> leases) {
+        RollupRange zoneMap = partitionRange.getZoneMap();
+        if (zoneMap == null) {
+            return null;
+        }
+        Optional<BufferLease> zoneLease = dataService.getBuffer(zoneMap.key());
+        zoneLease.ifPresent(leases::add);
+        return zoneLease.map(BufferLease::buffer).orElse(null);
+    }
+
+    private List<ByteBuffer> getRollupBuffers(PartitionRange partitionRange, List<BufferLease> leases) {
+        List<ByteBuffer> rollupBuffers = new ArrayList<>(partitionRange.getRollups().size());
+        for (RollupRange rollup : partitionRange.getRollups()) {
+            Optional<BufferLease> rollupLease = dataService.getBuffer(rollup.key());
+            if (rollupLease.isEmpty()) {
+                break;
+            }
+            leases.add(rollupLease.get());
+            rollupBuffers.add(rollupLease.get().buffer());
+        }
+        return rollupBuffers;
+    }
+
+    private DoubleStream findDoublesFromPartition(PartitionRange partitionRange, long from, long to) {
+        return dataService.getBuffer(partitionRange.getKey())
+            .map(lease -> {
+                partitionRange.adviseScan(lease.partition(), from, to);
+                return partitionRange.getDoubleStream(lease.buffer(), from, to).onClose(lease::close);
+            })
+            .orElse(DoubleStream.empty());
+    }
+
+    /**
+     * Reduces the partitions that cover an interval, given as milliseconds since the epoch, to a single value.
+     */
+    @FunctionalInterface
+    private interface IntervalReducer {
+        Number reduce(List<PartitionRange> covered, long from, long to);
+    }
+
 }
@@ -27,6 +27,7 @@ import org.huebert.iotfsdb.collectors.MinimumCollector;
 import org.huebert.iotfsdb.collectors.ModeCollector;
 import org.huebert.iotfsdb.collectors.MultiplyingCollector;
 import org.huebert.iotfsdb.collectors.SummingCollector;
+import org.huebert.iotfsdb.partition.Aggregate;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
@@ -37,8 +38,13 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
 
 @Validated
 @Slf4j
@@ -73,6 +79,93 @@ public class ReducerService {
         Reducer.SUM, new BigDecimalSummingCollector()
     ));
 
+    private static final Map<Reducer, Function<DoubleStream, Number>> PRIMITIVE_REDUCERS = new EnumMap<>(Reducer.class);
+
+    static {
+        PRIMITIVE_REDUCERS.put(Reducer.AVERAGE, s -> toNumber(s.average()));
+        PRIMITIVE_REDUCERS.put(Reducer.COUNT, DoubleStream::count);
+        PRIMITIVE_REDUCERS.put(Reducer.MAXIMUM, s -> toNumber(s.max()));
+        PRIMITIVE_REDUCERS.put(Reducer.MINIMUM, s -> toNumber(s.min()));
+        PRIMITIVE_REDUCERS.put(Reducer.MULTIPLY, s -> toNumber(s.reduce((a, b) -> a * b)));
+        PRIMITIVE_REDUCERS.put(Reducer.SQUARE_SUM, s -> s.map(v -> v * v).sum());
+        PRIMITIVE_REDUCERS.put(Reducer.SUM, DoubleStream::sum);
+    }
+
+    private static final Map<Reducer, Function<Aggregate, Number>> AGGREGATE_REDUCERS = new EnumMap<>(Reducer.class);
+
+    static {
+        AGGREGATE_REDUCERS.put(Reducer.AVERAGE, a -> a.getCount() == 0 ? null : a.getSum() / a.getCount());
+        AGGREGATE_REDUCERS.put(Reducer.COUNT, Aggregate::getCount);
+        AGGREGATE_REDUCERS.put(Reducer.MAXIMUM, a -> a.getCount() == 0 ? null : a.getMax());
+        AGGREGATE_REDUCERS.put(Reducer.MINIMUM, a -> a.getCount() == 0 ? null : a.getMin());
+        AGGREGATE_REDUCERS.put(Reducer.SUM, Aggregate::getSum);
+    }
+
+    private static final Map<Reducer, DoubleBinaryOperator> INSERT_MERGES = new EnumMap<>(Reducer.class);
+
+    static {
+        INSERT_MERGES.put(Reducer.AVERAGE, skipNull((a, b) -> (a + b) / 2));
+        INSERT_MERGES.put(Reducer.COUNT, (a, b) -> (Double.isNaN(a) ? 0 : 1) + (Double.isNaN(b) ? 0 : 1));
+        INSERT_MERGES.put(Reducer.FIRST, (a, b) -> Double.isNaN(a) ? b : a);
+        INSERT_MERGES.put(Reducer.LAST, (a, b) -> Double.isNaN(b) ? a : b);
+        INSERT_MERGES.put(Reducer.MAXIMUM, skipNull((a, b) -> b > a ? b : a));
+        INSERT_MERGES.put(Reducer.MINIMUM, skipNull((a, b) -> b < a ? b : a));
+        INSERT_MERGES.put(Reducer.MULTIPLY, skipNull((a, b) -> a * b));
+        INSERT_MERGES.put(Reducer.SQUARE_SUM, (a, b) -> (Double.isNaN(a) ? 0 : a * a) + (Double.isNaN(b) ? 0 : b * b));
+        INSERT_MERGES.put(Reducer.SUM, (a, b) -> (Double.isNaN(a) ? 0 : a) + (Double.isNaN(b) ? 0 : b));
+    }
+
+    /**
+     * Returns a reducer that operates on unboxed values where null values are represented by {@link Double#NaN}.
+     * An empty result indicates that the reducer must be applied using {@link #getCollector(FindDataRequest, Reducer)}.
+     */
+    public Optional<Function<DoubleStream, Number>> getDoubleReducer(@Valid @NotNull FindDataRequest request, @NotNull Reducer reducer) {
+        Function<DoubleStream, Number> function = PRIMITIVE_REDUCERS.get(reducer);
+        if (function == null || request.isUseBigDecimal()) {
+            return Optional.empty();
+        }
+        Number nullValue = request.getNullValue();
+        if (nullValue == null) {
+            return Optional.of(s -> function.apply(s.filter(v -> !Double.isNaN(v))));
+        }
+        double replacement = nullValue.doubleValue();
+        return Optional.of(s -> function.apply(s.map(v -> Double.isNaN(v) ? replacement : v)));
+    }
+
+    /**
+     * Returns a reducer that is computed from a scanned {@link Aggregate} without decoding individual values.
+     * An empty result indicates that the reducer must be applied using {@link #getDoubleReducer(FindDataRequest, Reducer)}.
+     */
+    public Optional<Function<Aggregate, Number>> getAggregateReducer(@Valid @NotNull FindDataRequest request, @NotNull Reducer reducer) {
+        Function<Aggregate, Number> function = AGGREGATE_REDUCERS.get(reducer);
+        if (function == null || request.isUseBigDecimal()) {
+            return Optional.empty();
+        }
+        Number nullValue = request.getNullValue();
+        if (nullValue == null) {
+            return Optional.of(function);
+        }
+        double replacement = nullValue.doubleValue();
+        return Optional.of(a -> function.apply(a.fillNulls(replacement)));
+    }
+
+    /**
+     * Returns a function that merges an inserted value into the existing value of a slot without boxing, where null
+     * values are represented by {@link Double#NaN}. The result matches {@link #getCollector(Reducer, boolean, Number)}
+     * applied to the existing and inserted values. An empty result indicates that the collector must be used.
+     */
+    public Optional<DoubleBinaryOperator> getInsertMerge(@NotNull Reducer reducer) {
+        return Optional.ofNullable(INSERT_MERGES.get(reducer));
+    }
+
+    private static DoubleBinaryOperator skipNull(DoubleBinaryOperator operator) {
+        return (a, b) -> Double.isNaN(a) ? b : Double.isNaN(b) ? a : operator.applyAsDouble(a, b);
+    }
+
+    private static Number toNumber(OptionalDouble value) {
+        return value.isPresent() ? value.getAsDouble() : null;
+    }
+
     public Collector<Number, ?, Number> getCollector(@Valid @NotNull FindDataRequest request, @NotNull Reducer reducer) {
         return getCollector(reducer, request.isUseBigDecimal(), request.getNullValue());
     }
@@ -0,0 +1,27 @@
+package org.huebert.iotfsdb.service;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.huebert.iotfsdb.partition.RollupPartition;
+
+/**
+ * Rollup tier of a partition.
+ *
+ * @param key   key of the rollup partition
+ * @param size  number of buckets in the rollup partition
+ * @param step  number of slots of the next finer tier covered by each bucket
+ * @param ratio number of raw slots covered by each bucket
+ */
+public record RollupRange(
+    @Valid @NotNull PartitionKey key,
+    @Positive long size,
+    @Positive int step,
+    @Positive int ratio
+) {
+
+    public long getByteSize() {
+        return size * RollupPartition.BUCKET_SIZE;
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.huebert.iotfsdb.service;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.PartitionCodec;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Validated
+@Slf4j
+@Service
+public class SealService {
+
+    private final DataService dataService;
+
+    private final PartitionService partitionService;
+
+    private final Duration sealAfter;
+
+    private final boolean enabled;
+
+    private final Set<PartitionKey> incompressible = ConcurrentHashMap.newKeySet();
+
+    public SealService(@NotNull IotfsdbProperties properties, @NotNull DataService dataService, @NotNull PartitionService partitionService) {
+        this.dataService = dataService;
+        this.partitionService = partitionService;
+        this.sealAfter = properties.getPersistence().getSealAfter();
+        this.enabled = !properties.isReadOnly() && sealAfter.isPositive();
+    }
+
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void sealPartitions() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minus(sealAfter);
+        for (SeriesFile seriesFile : dataService.getSeries()) {
+            PartitionCodec codec = PartitionService.getCodec(seriesFile.getDefinition());
+            for (PartitionKey key : dataService.getPartitions(seriesFile.getId())) {
+                PartitionRange range = partitionService.getRange(key);
+                if (range.getRange().upperEndpoint().isBefore(cutoff) && !incompressible.contains(key) && !dataService.isSealed(key)) {
+                    range.withWrite(() -> sealPartition(range, codec));
+                }
+            }
+        }
+    }
+
+    private void sealPartition(PartitionRange range, PartitionCodec codec) {
+        PartitionKey key = range.getKey();
+        Optional<BufferLease> lease = dataService.getBuffer(key);
+        if (lease.isEmpty()) {
+            return;
+        }
+        byte[] encoded;
+        int capacity;
+        try (BufferLease partitionLease = lease.get()) {
+            ByteBuffer buffer = partitionLease.buffer();
+            if (buffer.isReadOnly()) {
+                return;
+            }
+            encoded = codec.encode(buffer, range.getAdapter().getTypeSize());
+            capacity = buffer.capacity();
+        }
+        if (encoded.length >= capacity) {
+            incompressible.add(key);
+        } else if (dataService.sealPartition(key, encoded)) {
+            log.debug("Sealed partition {} from {} to {} bytes", key, capacity, encoded.length);
+        }
+    }
+
+}
@@ -25,4 +25,18 @@ public class TimeConverter {
         return localDateTime.atZone(ZoneOffset.UTC);
     }
 
+    /**
+     * Returns the milliseconds since the epoch without creating an {@link java.time.Instant}.
+     */
+    public static long toEpochMillis(ZonedDateTime zonedDateTime) {
+        return zonedDateTime.toEpochSecond() * 1000 + zonedDateTime.getNano() / 1_000_000;
+    }
+
+    /**
+     * Returns the milliseconds since the epoch of a UTC date time.
+     */
+    public static long toEpochMillis(LocalDateTime localDateTime) {
+        return localDateTime.toEpochSecond(ZoneOffset.UTC) * 1000 + localDateTime.getNano() / 1_000_000;
+    }
+
 }
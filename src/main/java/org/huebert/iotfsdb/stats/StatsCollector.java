@@ -1,5 +1,6 @@
 package org.huebert.iotfsdb.stats;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.collect.Sets;
 import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
@@ -61,10 +62,16 @@ public class StatsCollector {
         .metadata("operation", "used")
         .metadata("unit", "MB")
         .build();
+    private static final SeriesFile CACHE_HITS = createCacheSeries("partition", "hits", NumberType.INTEGER4, "count");
+    private static final SeriesFile CACHE_MISSES = createCacheSeries("partition", "misses", NumberType.INTEGER4, "count");
+    private static final SeriesFile CACHE_EVICTIONS = createCacheSeries("partition", "evictions", NumberType.INTEGER4, "count");
+    private static final SeriesFile CACHE_USED = createCacheSeries("partition", "used", NumberType.FLOAT4, "MB");
+    private static final SeriesFile PINNED_USED = createCacheSeries("pinned", "used", NumberType.FLOAT4, "MB");
 
     private final InsertService insertService;
     private final DataService dataService;
     private final boolean enabled;
+    private CacheStats previousCacheStats = CacheStats.empty();
 
     public StatsCollector(IotfsdbProperties properties, InsertService insertService, DataService dataService) {
         this.insertService = insertService;
@@ -79,7 +86,7 @@ public class StatsCollector {
             return;
         }
         log.info("Stats collection is enabled");
-        createAndUpdate(USED_MEMORY);
+        Stream.of(USED_MEMORY, CACHE_HITS, CACHE_MISSES, CACHE_EVICTIONS, CACHE_USED, PINNED_USED).forEach(this::createAndUpdate);
     }
 
     @Around("@annotation(captureAnnotation)")
@@ -118,6 +125,16 @@ public class StatsCollector {
             Reducer.LAST)
         );
 
+        // The cache counts from startup, so only the change since the previous measurement is recorded
+        CacheStats cacheStats = dataService.getCacheStats();
+        CacheStats intervalStats = cacheStats.minus(previousCacheStats);
+        previousCacheStats = cacheStats;
+        insertService.insert(new InsertRequest(CACHE_HITS.getId(), List.of(new SeriesData(now, intervalStats.hitCount())), Reducer.LAST));
+        insertService.insert(new InsertRequest(CACHE_MISSES.getId(), List.of(new SeriesData(now, intervalStats.missCount())), Reducer.LAST));
+        insertService.insert(new InsertRequest(CACHE_EVICTIONS.getId(), List.of(new SeriesData(now, intervalStats.evictionCount())), Reducer.LAST));
+        insertService.insert(new InsertRequest(CACHE_USED.getId(), List.of(new SeriesData(now, dataService.getCacheWeight() / MEGABYTE)), Reducer.LAST));
+        insertService.insert(new InsertRequest(PINNED_USED.getId(), List.of(new SeriesData(now, dataService.getPinnedWeight() / MEGABYTE)), Reducer.LAST));
+
         if (localStats.isEmpty()) {
             return;
         }
@@ -150,6 +167,22 @@ public class StatsCollector {
         });
     }
 
+    private static SeriesFile createCacheSeries(String cache, String operation, NumberType type, String unit) {
+        return SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .id("iotfsdb-cache-" + cache + "-" + operation)
+                .type(type)
+                .partition(PartitionPeriod.DAY)
+                .interval(MEASUREMENT_INTERVAL)
+                .build())
+            .metadata("source", "iotfsdb")
+            .metadata("group", "cache")
+            .metadata("type", cache)
+            .metadata("operation", operation)
+            .metadata("unit", unit)
+            .build();
+    }
+
     private static String getSeriesId(CaptureStats annotation, Stat stat) {
         List<String> components = new ArrayList<>(List.of(
             "iotfsdb",
@@ -10,7 +10,9 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.Range;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
 import io.grpc.stub.StreamObserver;
 import org.huebert.iotfsdb.api.grpc.proto.v1.CommonProto;
 import org.huebert.iotfsdb.api.grpc.proto.v1.api.DataServiceProto;
@@ -21,6 +23,7 @@ import org.huebert.iotfsdb.api.schema.InsertRequest;
 import org.huebert.iotfsdb.service.ExportService;
 import org.huebert.iotfsdb.service.ImportService;
 import org.huebert.iotfsdb.service.InsertService;
+import org.huebert.iotfsdb.service.PruneService;
 import org.huebert.iotfsdb.service.QueryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +36,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,6 +55,9 @@ class GrpcDataServiceTest {
     @Mock
     private ImportService importService;
 
+    @Mock
+    private PruneService pruneService;
+
     @Mock
     private StreamObserver<DataServiceProto.FindDataResponse> findDataResponseObserver;
 
@@ -63,11 +70,14 @@ class GrpcDataServiceTest {
     @Mock
     private StreamObserver<DataServiceProto.ImportDataResponse> importDataResponseObserver;
 
+    @Mock
+    private StreamObserver<DataServiceProto.PruneDataResponse> pruneDataResponseObserver;
+
     private GrpcDataService service;
 
     @BeforeEach
     void setUp() {
-        service = new GrpcDataService(insertService, queryService, exportService, importService);
+        service = new GrpcDataService(insertService, queryService, exportService, importService, pruneService);
     }
 
     @Test
@@ -384,4 +394,58 @@ class GrpcDataServiceTest {
         DataServiceProto.ImportDataResponse response = responseCaptor.getValue();
         assertFalse(response.getStatus().getSuccess());
     }
+
+    @Test
+    void testPruneData_Success() {
+
+        // Arrange
+        DataServiceProto.PruneDataRequest request = DataServiceProto.PruneDataRequest.newBuilder()
+            .setId("test-series")
+            .setTimeRange(CommonProto.TimeRange.newBuilder()
+                .setStart(CommonProto.Time.newBuilder().setTimestamp(Timestamp.newBuilder().setSeconds(0)))
+                .setEnd(CommonProto.Time.newBuilder().setTimestamp(Timestamp.newBuilder().setSeconds(60))))
+            .build();
+
+        // Act
+        service.pruneData(request, pruneDataResponseObserver);
+
+        // Assert
+        verify(pruneService).prune("test-series", Range.closed(LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(1970, 1, 1, 0, 1)));
+
+        ArgumentCaptor<DataServiceProto.PruneDataResponse> responseCaptor =
+            ArgumentCaptor.forClass(DataServiceProto.PruneDataResponse.class);
+        verify(pruneDataResponseObserver).onNext(responseCaptor.capture());
+        verify(pruneDataResponseObserver).onCompleted();
+
+        DataServiceProto.PruneDataResponse response = responseCaptor.getValue();
+        assertTrue(response.getStatus().getSuccess());
+    }
+
+    @Test
+    void testPruneData_Exception() {
+
+        // Arrange
+        DataServiceProto.PruneDataRequest request = DataServiceProto.PruneDataRequest.newBuilder()
+            .setId("test-series")
+            .setTimeRange(CommonProto.TimeRange.newBuilder()
+                .setStart(CommonProto.Time.newBuilder().setTimestamp(Timestamp.newBuilder().setSeconds(0)))
+                .setEnd(CommonProto.Time.newBuilder().setTimestamp(Timestamp.newBuilder().setSeconds(60))))
+            .build();
+
+        // Mock exception during prune
+        doThrow(new RuntimeException("Test exception")).when(pruneService).prune(any(), any());
+
+        // Act
+        service.pruneData(request, pruneDataResponseObserver);
+
+        // Assert
+        ArgumentCaptor<DataServiceProto.PruneDataResponse> responseCaptor =
+            ArgumentCaptor.forClass(DataServiceProto.PruneDataResponse.class);
+        verify(pruneDataResponseObserver).onNext(responseCaptor.capture());
+        verify(pruneDataResponseObserver).onCompleted();
+
+        DataServiceProto.PruneDataResponse response = responseCaptor.getValue();
+        assertFalse(response.getStatus().getSuccess());
+        assertEquals(CommonProto.StatusCode.STATUS_CODE_SERVER_ERROR, response.getStatus().getCode());
+    }
 }
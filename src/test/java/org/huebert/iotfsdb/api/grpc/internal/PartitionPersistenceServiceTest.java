@@ -19,6 +19,7 @@ import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.persistence.PartitionByteBuffer;
 import org.huebert.iotfsdb.persistence.PersistenceAdapter;
 import org.huebert.iotfsdb.service.PartitionKey;
+import org.huebert.iotfsdb.service.PruneService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -49,12 +50,18 @@ class PartitionPersistenceServiceTest {
     @Mock
     private PartitionByteBuffer partitionByteBuffer;
 
+    @Mock
+    private PruneService pruneService;
+
+    @Mock
+    private StreamObserver<PartitionPersistenceServiceProto.DeletePartitionResponse> deleteResponseObserver;
+
     private PartitionPersistenceService service;
     private final CommonMapper mapper = Mappers.getMapper(CommonMapper.class);
 
     @BeforeEach
     void setUp() {
-        service = new PartitionPersistenceService(persistenceAdapter);
+        service = new PartitionPersistenceService(persistenceAdapter, pruneService);
     }
 
     @Test
@@ -318,4 +325,59 @@ class PartitionPersistenceServiceTest {
         assertFalse(response.getStatus().getSuccess());
         assertEquals(CommonProto.StatusCode.STATUS_CODE_SERVER_ERROR, response.getStatus().getCode());
     }
+
+    @Test
+    void testDeletePartition_Success() {
+
+        // Arrange
+        PartitionPersistenceServiceProto.DeletePartitionRequest request =
+            PartitionPersistenceServiceProto.DeletePartitionRequest.newBuilder()
+                .setKey(PartitionPersistenceServiceProto.PartitionKey.newBuilder()
+                    .setSeriesId("test-series")
+                    .setPartitionId("test-partition")
+                    .build())
+                .build();
+
+        // Act
+        service.deletePartition(request, deleteResponseObserver);
+
+        // Assert
+        verify(pruneService).deletePartition(new PartitionKey("test-series", "test-partition"));
+
+        ArgumentCaptor<PartitionPersistenceServiceProto.DeletePartitionResponse> responseCaptor =
+            ArgumentCaptor.forClass(PartitionPersistenceServiceProto.DeletePartitionResponse.class);
+        verify(deleteResponseObserver).onNext(responseCaptor.capture());
+        verify(deleteResponseObserver).onCompleted();
+
+        assertTrue(responseCaptor.getValue().getStatus().getSuccess());
+    }
+
+    @Test
+    void testDeletePartition_Exception() {
+
+        // Arrange
+        PartitionPersistenceServiceProto.DeletePartitionRequest request =
+            PartitionPersistenceServiceProto.DeletePartitionRequest.newBuilder()
+                .setKey(PartitionPersistenceServiceProto.PartitionKey.newBuilder()
+                    .setSeriesId("test-series")
+                    .setPartitionId("test-partition")
+                    .build())
+                .build();
+
+        // Mock exception during delete
+        doThrow(new RuntimeException("Test exception")).when(pruneService).deletePartition(any(PartitionKey.class));
+
+        // Act
+        service.deletePartition(request, deleteResponseObserver);
+
+        // Assert
+        ArgumentCaptor<PartitionPersistenceServiceProto.DeletePartitionResponse> responseCaptor =
+            ArgumentCaptor.forClass(PartitionPersistenceServiceProto.DeletePartitionResponse.class);
+        verify(deleteResponseObserver).onNext(responseCaptor.capture());
+        verify(deleteResponseObserver).onCompleted();
+
+        PartitionPersistenceServiceProto.DeletePartitionResponse response = responseCaptor.getValue();
+        assertFalse(response.getStatus().getSuccess());
+        assertEquals(CommonProto.StatusCode.STATUS_CODE_SERVER_ERROR, response.getStatus().getCode());
+    }
 }
@@ -0,0 +1,49 @@
+package org.huebert.iotfsdb.api.rest;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.huebert.iotfsdb.api.schema.SeriesDefinition;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.service.DataService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+@WebMvcTest(HealthController.class)
+public class HealthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DataService dataService;
+
+    @Test
+    void testGetHealth() throws Exception {
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(dataService.getSeries()).thenReturn(List.of(seriesFile, seriesFile));
+        when(dataService.getLoadedSeriesCount()).thenReturn(1);
+
+        mockMvc.perform(get("/v2/health"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ready").value(false))
+            .andExpect(jsonPath("$.series").value(2))
+            .andExpect(jsonPath("$.loadedSeries").value(1));
+
+        when(dataService.isReady()).thenReturn(true);
+        when(dataService.getLoadedSeriesCount()).thenReturn(2);
+
+        mockMvc.perform(get("/v2/health"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ready").value(true))
+            .andExpect(jsonPath("$.loadedSeries").value(2));
+    }
+
+}
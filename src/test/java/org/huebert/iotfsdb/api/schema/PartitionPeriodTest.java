@@ -4,8 +4,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
 
 public class PartitionPeriodTest {
 
@@ -37,6 +41,21 @@ public class PartitionPeriodTest {
         assertThat(PartitionPeriod.DAY.matches("2024100301")).isEqualTo(false);
     }
 
+    @Test
+    public void testMatchesSidecar() {
+        assertThat(PartitionPeriod.DAY.matchesSidecar("20241003")).isEqualTo(false);
+        assertThat(PartitionPeriod.DAY.matchesSidecar("20241003.60000")).isEqualTo(true);
+        assertThat(PartitionPeriod.DAY.matchesSidecar("20241003.z256")).isEqualTo(true);
+        assertThat(PartitionPeriod.DAY.matchesSidecar("20241003.")).isEqualTo(false);
+        assertThat(PartitionPeriod.DAY.matchesSidecar("20241003.A-1")).isEqualTo(false);
+        assertThat(PartitionPeriod.DAY.matchesSidecar(".60000")).isEqualTo(false);
+        assertThat(PartitionPeriod.MONTH.matchesSidecar("20241003.60000")).isEqualTo(false);
+        assertThat(PartitionPeriod.MONTH.matchesSidecar("202410.60000")).isEqualTo(true);
+        assertThat(PartitionPeriod.getSidecarFilename("202410", "60000")).isEqualTo("202410.60000");
+        assertThat(PartitionPeriod.isSidecarFilename("202410.60000")).isEqualTo(true);
+        assertThat(PartitionPeriod.isSidecarFilename("202410")).isEqualTo(false);
+    }
+
     @Test
     public void testGetStart() {
         LocalDateTime dateTime = LocalDateTime.parse("2024-02-29T01:23:45");
@@ -53,6 +72,36 @@ public class PartitionPeriodTest {
         assertThat(PartitionPeriod.DAY.getFilename(dateTime)).isEqualTo("20240229");
     }
 
+    @Test
+    public void testGetOrdinal() {
+        LocalDateTime dateTime = LocalDateTime.parse("2024-02-29T01:23:45");
+        assertThat(PartitionPeriod.YEAR.getOrdinal(dateTime)).isEqualTo(2024);
+        assertThat(PartitionPeriod.MONTH.getOrdinal(dateTime)).isEqualTo(2024 * 12 + 1);
+        assertThat(PartitionPeriod.DAY.getOrdinal(dateTime)).isEqualTo(LocalDate.parse("2024-02-29").toEpochDay());
+        assertThat(PartitionPeriod.MONTH.getFilename(2024 * 12 + 1)).isEqualTo("202402");
+        assertThat(PartitionPeriod.YEAR.getFilename(987)).isEqualTo("0987");
+    }
+
+    @Test
+    public void testGetFilenameMatchesFormatter() {
+        Map<PartitionPeriod, DateTimeFormatter> formatters = Map.of(
+            PartitionPeriod.DAY, DateTimeFormatter.ofPattern("yyyyMMdd"),
+            PartitionPeriod.MONTH, DateTimeFormatter.ofPattern("yyyyMM"),
+            PartitionPeriod.YEAR, DateTimeFormatter.ofPattern("yyyy")
+        );
+        for (LocalDateTime dateTime = LocalDateTime.parse("0999-12-31T23:59:59"); dateTime.getYear() < 2101; dateTime = dateTime.plusHours(31)) {
+            for (PartitionPeriod period : PartitionPeriod.values()) {
+                String filename = formatters.get(period).format(dateTime);
+                assertThat(period.getFilename(dateTime)).isEqualTo(filename);
+                assertThat(period.getFilename(period.getOrdinal(dateTime))).isEqualTo(filename);
+                assertThat(period.getOrdinal(period.parseStart(filename))).isEqualTo(period.getOrdinal(dateTime));
+                long ordinal = period.getOrdinal(dateTime);
+                assertThat(period.getOrdinal(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli())).isEqualTo(ordinal);
+                assertThat(period.getStartMillis(ordinal)).isEqualTo(period.parseStart(filename).toInstant(ZoneOffset.UTC).toEpochMilli());
+            }
+        }
+    }
+
     @Test
     public void testParseStart() {
         assertThat(PartitionPeriod.YEAR.parseStart("2024")).isEqualTo(LocalDateTime.parse("2024-01-01T00:00:00"));
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.EnumSet;
+import java.util.List;
 
 public class SeriesDefinitionTest {
 
@@ -38,6 +39,29 @@ public class SeriesDefinitionTest {
 
     }
 
+    @Test
+    public void testIsRollupsValid() {
+        assertThat(SeriesDefinition.builder().interval(1000L).build().isRollupsValid()).isTrue();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of()).build().isRollupsValid()).isTrue();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of(60000L, 3600000L, 86400000L)).build().isRollupsValid()).isTrue();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of(1000L)).build().isRollupsValid()).isFalse();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of(1500L)).build().isRollupsValid()).isFalse();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of(3600000L, 60000L)).build().isRollupsValid()).isFalse();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of(60000L, 90000L)).build().isRollupsValid()).isFalse();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of(7000L)).build().isRollupsValid()).isFalse();
+        assertThat(SeriesDefinition.builder().interval(1000L).rollups(List.of(172800000L)).build().isRollupsValid()).isFalse();
+    }
+
+    @Test
+    public void testIsPartitionSizeValid() {
+        assertThat(SeriesDefinition.builder().build().isPartitionSizeValid()).isTrue();
+        assertThat(SeriesDefinition.builder().type(NumberType.FLOAT8).interval(1L).partition(PartitionPeriod.DAY).build().isPartitionSizeValid()).isTrue();
+        assertThat(SeriesDefinition.builder().type(NumberType.INTEGER1).interval(1L).partition(PartitionPeriod.MONTH).build().isPartitionSizeValid()).isFalse();
+        assertThat(SeriesDefinition.builder().type(NumberType.INTEGER1).interval(2L).partition(PartitionPeriod.MONTH).build().isPartitionSizeValid()).isTrue();
+        assertThat(SeriesDefinition.builder().type(NumberType.FLOAT8).interval(118L).partition(PartitionPeriod.YEAR).build().isPartitionSizeValid()).isTrue();
+        assertThat(SeriesDefinition.builder().type(NumberType.FLOAT8).interval(117L).partition(PartitionPeriod.YEAR).build().isPartitionSizeValid()).isFalse();
+    }
+
     @Test
     public void testGetIntervalDuration() {
         SeriesDefinition definition = SeriesDefinition.builder().interval(1000L).build();
@@ -0,0 +1,60 @@
+package org.huebert.iotfsdb.partition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class AggregateTest {
+
+    @Test
+    public void testEmpty() {
+        Aggregate aggregate = new Aggregate();
+        assertThat(aggregate.getSlots()).isEqualTo(0);
+        assertThat(aggregate.getCount()).isEqualTo(0);
+        assertThat(aggregate.getSum()).isEqualTo(0.0);
+        assertThat(aggregate.getMin()).isEqualTo(Double.POSITIVE_INFINITY);
+        assertThat(aggregate.getMax()).isEqualTo(Double.NEGATIVE_INFINITY);
+    }
+
+    @Test
+    public void testAccumulate() {
+        Aggregate aggregate = new Aggregate();
+        aggregate.accumulate(2.0);
+        aggregate.accumulate(-1.0);
+        aggregate.accumulate(0, 100.0, -100.0, 100.0);
+        aggregate.accumulate(2, 7.0, 3.0, 4.0);
+        assertThat(aggregate.getCount()).isEqualTo(4);
+        assertThat(aggregate.getSum()).isEqualTo(8.0);
+        assertThat(aggregate.getMin()).isEqualTo(-1.0);
+        assertThat(aggregate.getMax()).isEqualTo(4.0);
+    }
+
+    @Test
+    public void testCombine() {
+        Aggregate first = new Aggregate();
+        first.addSlots(3);
+        first.accumulate(1.0);
+        Aggregate second = new Aggregate();
+        second.addSlots(2);
+        second.accumulate(5.0);
+        assertThat(first.combine(second)).isSameAs(first);
+        assertThat(first.getSlots()).isEqualTo(5);
+        assertThat(first.getCount()).isEqualTo(2);
+        assertThat(first.getSum()).isEqualTo(6.0);
+        assertThat(first.getMin()).isEqualTo(1.0);
+        assertThat(first.getMax()).isEqualTo(5.0);
+    }
+
+    @Test
+    public void testFillNulls() {
+        Aggregate aggregate = new Aggregate();
+        aggregate.addSlots(4);
+        aggregate.accumulate(3.0);
+        aggregate.fillNulls(-2.0);
+        assertThat(aggregate.getCount()).isEqualTo(4);
+        assertThat(aggregate.getSum()).isEqualTo(-3.0);
+        assertThat(aggregate.getMin()).isEqualTo(-2.0);
+        assertThat(aggregate.getMax()).isEqualTo(3.0);
+    }
+
+}
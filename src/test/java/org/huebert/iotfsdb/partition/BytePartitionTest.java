@@ -40,9 +40,40 @@ public class BytePartitionTest {
         assertThat(buffer.get(1)).isEqualTo(Byte.MIN_VALUE);
     }
 
+    @Test
+    public void testPutNulls() {
+        ByteBuffer expected = ByteBuffer.allocate(NUM_BYTES);
+        expected.put(0, buffer, 0, NUM_BYTES);
+        for (int i = 2; i < 9; i++) {
+            adapter.put(expected, i, null);
+        }
+        adapter.putNulls(buffer, 2, 7);
+        assertThat(buffer.array()).containsExactly(expected.array());
+        assertThat(adapter.getStream(buffer, 2, 7)).containsOnlyNulls();
+        assertThat(adapter.getStream(buffer, 9, 1)).doesNotContainNull();
+    }
+
     @Test
     public void testStream() {
         assertThat(adapter.getStream(buffer, 0, SIZE).mapToInt(Number::intValue).sum()).isEqualTo(45);
     }
 
+    @Test
+    public void testGetDoubles() {
+        adapter.put(buffer, 1, null);
+        double[] values = new double[SIZE];
+        boolean[] nulls = new boolean[SIZE];
+        adapter.getDoubles(buffer, 0, SIZE, values, nulls);
+        double[] expected = adapter.getStream(buffer, 0, SIZE).mapToDouble(v -> v == null ? Double.NaN : v.doubleValue()).toArray();
+        assertThat(values).containsExactly(expected);
+        assertThat(values[1]).isNaN();
+        assertThat(nulls[1]).isTrue();
+        assertThat(nulls[2]).isFalse();
+    }
+
+    @Test
+    public void testDoubleStream() {
+        assertThat(adapter.getDoubleStream(buffer, 2, 3).toArray()).containsExactly(adapter.getStream(buffer, 2, 3).mapToDouble(Number::doubleValue).toArray());
+    }
+
 }
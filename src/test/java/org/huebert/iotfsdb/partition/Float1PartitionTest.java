@@ -81,4 +81,24 @@ public class Float1PartitionTest {
 
         assertThat(values.get(2)).isNull(); // NaN becomes null
     }
+
+    @Test
+    public void testGetDoubles() {
+        Float1Partition partition = new Float1Partition();
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+
+        partition.put(buffer, 0, 1.5);
+        partition.put(buffer, 1, null);
+        partition.put(buffer, 2, -2.25);
+
+        double[] values = new double[3];
+        boolean[] nulls = new boolean[3];
+        partition.getDoubles(buffer, 0, 3, values, nulls);
+
+        assertThat(values[0]).isEqualTo(1.5);
+        assertThat(values[1]).isNaN();
+        assertThat(values[2]).isEqualTo(-2.25);
+        assertThat(nulls).containsExactly(false, true, false);
+        assertThat(partition.getDoubleStream(buffer, 2, 1).toArray()).containsExactly(-2.25);
+    }
 }
@@ -40,9 +40,42 @@ public class IntegerPartitionTest {
         assertThat(buffer.asIntBuffer().get(1)).isEqualTo(Integer.MIN_VALUE);
     }
 
+    @Test
+    public void testPutDoubles() {
+        adapter.putDoubles(buffer, 2, 3, new double[] {9, 1.9, Double.NaN, -4.5}, 1);
+        assertThat(adapter.getStream(buffer, 0, 6).toList()).containsExactly(0, 1, 1, null, -4, 5);
+        assertThat(adapter.isDoubleExact()).isTrue();
+    }
+
+    @Test
+    public void testQuantize() {
+        assertThat(adapter.quantize(1.9)).isEqualTo(1);
+        assertThat(adapter.quantize(-4.5)).isEqualTo(-4);
+        assertThat(adapter.quantize(Double.NaN)).isNaN();
+        assertThat(adapter.quantize(Integer.MIN_VALUE)).isNaN();
+    }
+
     @Test
     public void testStream() {
         assertThat(adapter.getStream(buffer, 0, SIZE).mapToInt(Number::intValue).sum()).isEqualTo(45);
     }
 
+    @Test
+    public void testGetDoubles() {
+        adapter.put(buffer, 1, null);
+        double[] values = new double[SIZE];
+        boolean[] nulls = new boolean[SIZE];
+        adapter.getDoubles(buffer, 0, SIZE, values, nulls);
+        double[] expected = adapter.getStream(buffer, 0, SIZE).mapToDouble(v -> v == null ? Double.NaN : v.doubleValue()).toArray();
+        assertThat(values).containsExactly(expected);
+        assertThat(values[1]).isNaN();
+        assertThat(nulls[1]).isTrue();
+        assertThat(nulls[2]).isFalse();
+    }
+
+    @Test
+    public void testDoubleStream() {
+        assertThat(adapter.getDoubleStream(buffer, 2, 3).toArray()).containsExactly(adapter.getStream(buffer, 2, 3).mapToDouble(Number::doubleValue).toArray());
+    }
+
 }
@@ -40,9 +40,34 @@ public class LongPartitionTest {
         assertThat(buffer.asLongBuffer().get(1)).isEqualTo(Long.MIN_VALUE);
     }
 
+    @Test
+    public void testPutDoubles() {
+        adapter.putDoubles(buffer, 1, 2, new double[] {7, Double.NaN}, 0);
+        assertThat(adapter.getStream(buffer, 0, 4).toList()).containsExactly(0L, 7L, null, 3L);
+        assertThat(adapter.isDoubleExact()).isFalse();
+    }
+
     @Test
     public void testStream() {
         assertThat(adapter.getStream(buffer, 0, SIZE).mapToInt(Number::intValue).sum()).isEqualTo(45);
     }
 
+    @Test
+    public void testGetDoubles() {
+        adapter.put(buffer, 1, null);
+        double[] values = new double[SIZE];
+        boolean[] nulls = new boolean[SIZE];
+        adapter.getDoubles(buffer, 0, SIZE, values, nulls);
+        double[] expected = adapter.getStream(buffer, 0, SIZE).mapToDouble(v -> v == null ? Double.NaN : v.doubleValue()).toArray();
+        assertThat(values).containsExactly(expected);
+        assertThat(values[1]).isNaN();
+        assertThat(nulls[1]).isTrue();
+        assertThat(nulls[2]).isFalse();
+    }
+
+    @Test
+    public void testDoubleStream() {
+        assertThat(adapter.getDoubleStream(buffer, 2, 3).toArray()).containsExactly(adapter.getStream(buffer, 2, 3).mapToDouble(Number::doubleValue).toArray());
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.huebert.iotfsdb.partition;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,9 +45,68 @@ public class MappedPartitionTest {
         assertThat(buffer.asShortBuffer().get(1)).isEqualTo((short) -32767);
     }
 
+    @Test
+    public void testPutDoubles() {
+        adapter.putDoubles(buffer, 1, 4, new double[] {1.234, Double.NaN, 50000, -50000}, 0);
+        assertThat(buffer.asShortBuffer().get(1)).isEqualTo((short) 1);
+        assertThat(buffer.asShortBuffer().get(2)).isEqualTo(Short.MIN_VALUE);
+        assertThat(buffer.asShortBuffer().get(3)).isEqualTo((short) 32767);
+        assertThat(buffer.asShortBuffer().get(4)).isEqualTo((short) -32767);
+    }
+
+    @Test
+    public void testQuantize() {
+        adapter.put(buffer, 1, 1.234);
+        assertThat(adapter.quantize(1.234)).isEqualTo(adapter.getDoubleStream(buffer, 1, 1).sum());
+        assertThat(adapter.quantize(50000)).isEqualTo(Short.MAX_VALUE);
+        assertThat(adapter.quantize(Double.NaN)).isNaN();
+    }
+
+    @Test
+    public void testPutNulls() {
+        ByteBuffer expected = ByteBuffer.allocate(NUM_BYTES);
+        expected.put(0, buffer, 0, NUM_BYTES);
+        for (int i = 2; i < 9; i++) {
+            adapter.put(expected, i, null);
+        }
+        adapter.putNulls(buffer, 2, 7);
+        assertThat(buffer.array()).containsExactly(expected.array());
+        assertThat(adapter.getStream(buffer, 2, 7)).containsOnlyNulls();
+        assertThat(adapter.getStream(buffer, 9, 1)).doesNotContainNull();
+    }
+
     @Test
     public void testStream() {
         assertThat(adapter.getStream(buffer, 0, SIZE).mapToInt(Number::intValue).sum()).isEqualTo(45);
     }
 
+    @Test
+    public void testGetDoubles() {
+        adapter.put(buffer, 1, null);
+        double[] values = new double[SIZE];
+        boolean[] nulls = new boolean[SIZE];
+        adapter.getDoubles(buffer, 0, SIZE, values, nulls);
+        double[] expected = adapter.getStream(buffer, 0, SIZE).mapToDouble(v -> v == null ? Double.NaN : v.doubleValue()).toArray();
+        assertThat(values).containsExactly(expected);
+        assertThat(values[1]).isNaN();
+        assertThat(nulls[1]).isTrue();
+        assertThat(nulls[2]).isFalse();
+    }
+
+    @Test
+    public void testDoubleStream() {
+        assertThat(adapter.getDoubleStream(buffer, 2, 3).toArray()).containsExactly(adapter.getStream(buffer, 2, 3).mapToDouble(Number::doubleValue).toArray());
+    }
+
+    @Test
+    public void testAggregate() {
+        adapter.put(buffer, 1, null);
+        Aggregate aggregate = new Aggregate();
+        adapter.aggregate(buffer, 0, SIZE, aggregate);
+        assertThat(aggregate.getCount()).isEqualTo(SIZE - 1);
+        assertThat(aggregate.getSum()).isCloseTo(44.0, within(1e-9));
+        assertThat(aggregate.getMin()).isCloseTo(0.0, within(1e-9));
+        assertThat(aggregate.getMax()).isCloseTo(9.0, within(1e-9));
+    }
+
 }
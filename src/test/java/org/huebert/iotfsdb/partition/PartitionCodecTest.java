@@ -0,0 +1,90 @@
+package org.huebert.iotfsdb.partition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class PartitionCodecTest {
+
+    private static final int SIZE = 1440;
+
+    public static Stream<Arguments> adapters() {
+        return Stream.of(
+            Arguments.of(PartitionCodec.DELTA, new BytePartition()),
+            Arguments.of(PartitionCodec.DELTA, new ShortPartition()),
+            Arguments.of(PartitionCodec.DELTA, new IntegerPartition()),
+            Arguments.of(PartitionCodec.DELTA, new LongPartition()),
+            Arguments.of(PartitionCodec.DELTA, new MappedPartition(new ShortPartition(), -100, 100)),
+            Arguments.of(PartitionCodec.XOR, new Float1Partition()),
+            Arguments.of(PartitionCodec.XOR, new HalfFloatPartition()),
+            Arguments.of(PartitionCodec.XOR, new Float3Partition()),
+            Arguments.of(PartitionCodec.XOR, new FloatPartition()),
+            Arguments.of(PartitionCodec.XOR, new DoublePartition())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("adapters")
+    public void testRoundTrip(PartitionCodec codec, PartitionAdapter adapter) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE * adapter.getTypeSize());
+        adapter.putNulls(buffer, 0, SIZE);
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            if (i % 100 > 20) {
+                adapter.put(buffer, i, (i % 7 == 0) ? random.nextInt(100) - 50 : 20 + Math.sin(i / 100.0) * 10);
+            }
+        }
+
+        byte[] encoded = codec.encode(buffer, adapter.getTypeSize());
+        assertThat(encoded.length).isLessThan(buffer.capacity());
+
+        ByteBuffer decoded = PartitionCodec.decode(ByteBuffer.wrap(encoded));
+        assertThat(decoded.array()).containsExactly(buffer.array());
+    }
+
+    @ParameterizedTest
+    @MethodSource("adapters")
+    public void testRoundTripRandomBits(PartitionCodec codec, PartitionAdapter adapter) {
+        byte[] bytes = new byte[SIZE * adapter.getTypeSize()];
+        new Random(7).nextBytes(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        ByteBuffer decoded = PartitionCodec.decode(ByteBuffer.wrap(codec.encode(buffer, adapter.getTypeSize())));
+        assertThat(decoded.array()).containsExactly(bytes);
+    }
+
+    @Test
+    public void testAllNulls() {
+        IntegerPartition adapter = new IntegerPartition();
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE * Integer.BYTES);
+        adapter.putNulls(buffer, 0, SIZE);
+        byte[] encoded = PartitionCodec.DELTA.encode(buffer, Integer.BYTES);
+        assertThat(encoded.length).isLessThan(16);
+        assertThat(adapter.getStream(PartitionCodec.decode(ByteBuffer.wrap(encoded)), 0, SIZE)).containsOnlyNulls();
+    }
+
+    @Test
+    public void testExtremes() {
+        LongPartition adapter = new LongPartition();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Long.BYTES);
+        buffer.putLong(0, Long.MAX_VALUE);
+        buffer.putLong(8, Long.MIN_VALUE + 1);
+        buffer.putLong(16, Long.MIN_VALUE);
+        buffer.putLong(24, Long.MAX_VALUE);
+        ByteBuffer decoded = PartitionCodec.decode(ByteBuffer.wrap(PartitionCodec.DELTA.encode(buffer, Long.BYTES)));
+        assertThat(decoded.array()).containsExactly(buffer.array());
+    }
+
+    @Test
+    public void testUnknownCodec() {
+        assertThrows(IllegalArgumentException.class, () -> PartitionCodec.decode(ByteBuffer.wrap(new byte[] {(byte) 0xFF, 4, 0, 0, 0, 0})));
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.huebert.iotfsdb.partition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class ScanKernelTest {
+
+    private static final int SIZE = 1031;
+
+    public static Stream<Arguments> testAggregate() {
+        return Stream.of(false, true).flatMap(vectorized -> Stream.of(
+            Arguments.of(vectorized, (Function<ScanKernel, PartitionAdapter>) BytePartition::new),
+            Arguments.of(vectorized, (Function<ScanKernel, PartitionAdapter>) ShortPartition::new),
+            Arguments.of(vectorized, (Function<ScanKernel, PartitionAdapter>) IntegerPartition::new),
+            Arguments.of(vectorized, (Function<ScanKernel, PartitionAdapter>) LongPartition::new),
+            Arguments.of(vectorized, (Function<ScanKernel, PartitionAdapter>) FloatPartition::new),
+            Arguments.of(vectorized, (Function<ScanKernel, PartitionAdapter>) DoublePartition::new),
+            Arguments.of(vectorized, (Function<ScanKernel, PartitionAdapter>) k -> new MappedPartition(new IntegerPartition(k), -10, 10))
+        ));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    public void testAggregate(boolean vectorized, Function<ScanKernel, PartitionAdapter> factory) {
+        ScanKernel kernel = ScanKernels.select(vectorized);
+        assertThat(kernel).isInstanceOf(vectorized ? VectorScanKernel.class : ScalarScanKernel.class);
+        PartitionAdapter adapter = factory.apply(kernel);
+
+        Random random = new Random(42);
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE * adapter.getTypeSize());
+        for (int i = 0; i < SIZE; i++) {
+            adapter.put(buffer, i, random.nextInt(10) == 0 ? null : random.nextInt(200) - 100 + random.nextDouble());
+        }
+
+        for (int index : new int[]{0, 1, 7}) {
+            for (int length : new int[]{0, 1, 15, 64, SIZE - index}) {
+                double[] values = new double[length];
+                boolean[] nulls = new boolean[length];
+                adapter.getDoubles(buffer, index, length, values, nulls);
+                Aggregate expected = new Aggregate();
+                for (int i = 0; i < length; i++) {
+                    if (!nulls[i]) {
+                        expected.accumulate(values[i]);
+                    }
+                }
+
+                Aggregate actual = new Aggregate();
+                adapter.aggregate(buffer, index, length, actual);
+                assertThat(actual.getCount()).isEqualTo(expected.getCount());
+                assertThat(actual.getSum()).isCloseTo(expected.getSum(), within(1e-6));
+                assertThat(actual.getMin()).isEqualTo(expected.getMin());
+                assertThat(actual.getMax()).isEqualTo(expected.getMax());
+            }
+        }
+    }
+
+}
@@ -9,6 +9,9 @@ import org.huebert.iotfsdb.api.schema.NumberType;
 import org.huebert.iotfsdb.api.schema.PartitionPeriod;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.PartitionCodec;
+import org.huebert.iotfsdb.service.BufferLease;
+import org.huebert.iotfsdb.service.DataService;
 import org.huebert.iotfsdb.service.PartitionKey;
 import org.junit.jupiter.api.Test;
 import org.springframework.util.FileSystemUtils;
@@ -16,12 +19,17 @@ import org.springframework.util.FileSystemUtils;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class FilePersistenceAdapterTest {
 
@@ -187,6 +195,13 @@ public class FilePersistenceAdapterTest {
         adapter.createPartition(key, 80);
 
         assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key));
+        assertThat(adapter.getListing(seriesFile).sidecars()).isEqualTo(Set.of());
+
+        PartitionKey rollupKey = key.getRollupKey(3600000);
+        adapter.createPartition(rollupKey, 32);
+
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key));
+        assertThat(adapter.getListing(seriesFile).sidecars()).isEqualTo(Set.of(rollupKey));
 
         PartitionByteBuffer partitionByteBuffer = adapter.openPartition(key);
         ByteBuffer byteBuffer = partitionByteBuffer.getByteBuffer();
@@ -202,12 +217,309 @@ public class FilePersistenceAdapterTest {
         assertThat(byteBuffer.capacity()).isEqualTo(80);
         partitionByteBuffer.close();
 
+        PartitionKey largeKey = new PartitionKey(seriesFile.getId(), "202412");
+        adapter.createPartition(largeKey, 20000);
+        partitionByteBuffer = adapter.openPartition(largeKey);
+        byteBuffer = partitionByteBuffer.getByteBuffer();
+        byteBuffer.putFloat(19996, 1.5f);
+        partitionByteBuffer.markDirty(19996, 4);
+        byteBuffer.putFloat(4094, 2.5f);
+        partitionByteBuffer.markDirty(4094, 4);
+        partitionByteBuffer.force();
+        partitionByteBuffer.force();
+        partitionByteBuffer.close();
+        partitionByteBuffer = adapter.openPartition(largeKey);
+        assertThat(partitionByteBuffer.getByteBuffer().getFloat(19996)).isEqualTo(1.5f);
+        assertThat(partitionByteBuffer.getByteBuffer().getFloat(4094)).isEqualTo(2.5f);
+        partitionByteBuffer.close();
+
+        adapter.close();
+        if (!FileSystemUtils.deleteRecursively(temp)) {
+            throw new RuntimeException("unable to delete root");
+        }
+    }
+
+    @Test
+    void testSealPartition() throws Exception {
+
+        Path temp = Files.createTempDirectory("iotfsdb");
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setRoot(temp);
+
+        FilePersistenceAdapter adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+
+        SeriesFile seriesFile = SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .id("abc123")
+                .type(NumberType.FLOAT4)
+                .interval(60000L)
+                .partition(PartitionPeriod.MONTH)
+                .build())
+            .build();
+        adapter.saveSeries(seriesFile);
+
+        PartitionKey key = new PartitionKey(seriesFile.getId(), "202411");
+        adapter.createPartition(key, 80);
+        adapter.createPartition(key.getRollupKey(3600000), 32);
+        PartitionByteBuffer partitionByteBuffer = adapter.openPartition(key);
+        ByteBuffer byteBuffer = partitionByteBuffer.getByteBuffer();
+        byteBuffer.asFloatBuffer().put(0, 4.2f);
+        byte[] encoded = PartitionCodec.XOR.encode(byteBuffer, Float.BYTES);
+        partitionByteBuffer.close();
+
+        assertThat(adapter.isSealed(key)).isFalse();
+        assertThat(adapter.sealPartition(key, encoded)).isTrue();
+        assertThat(adapter.isSealed(key)).isTrue();
+        assertThat(Files.exists(temp.resolve("abc123").resolve("202411"))).isFalse();
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key));
+        assertThat(adapter.getListing(seriesFile).sidecars()).isEqualTo(Set.of(key.getRollupKey(3600000)));
+
+        partitionByteBuffer = adapter.openPartition(key);
+        byteBuffer = partitionByteBuffer.getByteBuffer();
+        assertThat(byteBuffer.isReadOnly()).isTrue();
+        assertThat(byteBuffer.capacity()).isEqualTo(80);
+        assertThat(byteBuffer.asFloatBuffer().get(0)).isEqualTo(4.2f);
+        partitionByteBuffer.close();
+
+        assertThat(adapter.unsealPartition(key)).isTrue();
+        assertThat(adapter.unsealPartition(key)).isFalse();
+        assertThat(adapter.isSealed(key)).isFalse();
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key));
+
+        partitionByteBuffer = adapter.openPartition(key);
+        byteBuffer = partitionByteBuffer.getByteBuffer();
+        assertThat(byteBuffer.isReadOnly()).isFalse();
+        assertThat(byteBuffer.asFloatBuffer().get(0)).isEqualTo(4.2f);
+        partitionByteBuffer.close();
+
+        assertThat(adapter.sealPartition(key, encoded)).isTrue();
+        adapter.deletePartition(key);
+        adapter.deletePartition(key.getRollupKey(3600000));
+        adapter.deletePartition(key);
+        assertThat(adapter.getPartitions(seriesFile)).isEmpty();
+        assertThat(adapter.getListing(seriesFile).sidecars()).isEmpty();
+        assertThat(Files.exists(temp.resolve("abc123").resolve("202411" + FilePersistenceAdapter.SEALED_EXTENSION))).isFalse();
+
         adapter.close();
         if (!FileSystemUtils.deleteRecursively(temp)) {
             throw new RuntimeException("unable to delete root");
         }
     }
 
+    @Test
+    void testRoots() throws Exception {
+
+        Path temp = Files.createTempDirectory("iotfsdb");
+        Path root = temp.resolve("root");
+        List<Path> roots = List.of(temp.resolve("disk1"), temp.resolve("disk2"), temp.resolve("disk3"));
+
+        SeriesFile existing = getSeriesFile("existing");
+        FilePersistenceAdapter adapter = FilePersistenceAdapter.create(root, new ObjectMapper());
+        adapter.saveSeries(existing);
+        adapter.close();
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setRoot(root);
+        properties.getPersistence().setRoots(roots);
+        adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+
+        List<SeriesFile> seriesFiles = IntStream.range(0, 30).mapToObj(i -> getSeriesFile("series" + i)).toList();
+        for (SeriesFile seriesFile : seriesFiles) {
+            adapter.saveSeries(seriesFile);
+            adapter.createPartition(new PartitionKey(seriesFile.getId(), "202411"), 80);
+        }
+        adapter.createPartition(new PartitionKey("existing", "202411"), 80);
+        assertThat(Files.exists(root.resolve("existing").resolve("202411"))).isTrue();
+
+        for (SeriesFile seriesFile : seriesFiles) {
+            assertThat(roots.stream().filter(path -> Files.exists(path.resolve(seriesFile.getId()).resolve("202411")))).hasSize(1);
+        }
+        for (Path path : roots) {
+            try (Stream<Path> stream = Files.list(path)) {
+                assertThat(stream.count()).isGreaterThan(0);
+            }
+        }
+        adapter.close();
+
+        adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+        assertThat(adapter.getSeries()).hasSize(31);
+        assertThat(adapter.getPartitions(existing)).isEqualTo(Set.of(new PartitionKey("existing", "202411")));
+        assertThat(adapter.getPartitions(seriesFiles.getFirst())).isEqualTo(Set.of(new PartitionKey("series0", "202411")));
+
+        adapter.deleteSeries("series0");
+        assertThat(roots.stream().filter(path -> Files.exists(path.resolve("series0")))).isEmpty();
+        adapter.close();
+
+        if (!FileSystemUtils.deleteRecursively(temp)) {
+            throw new RuntimeException("unable to delete root");
+        }
+    }
+
+    private static SeriesFile getSeriesFile(String id) {
+        return SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .id(id)
+                .type(NumberType.FLOAT4)
+                .interval(60000L)
+                .partition(PartitionPeriod.MONTH)
+                .build())
+            .build();
+    }
+
+    @Test
+    void testCatalog() throws Exception {
+
+        Path temp = Files.createTempDirectory("iotfsdb");
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setRoot(temp);
+
+        FilePersistenceAdapter adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+        SeriesFile seriesFile = getSeriesFile("abc");
+        PartitionKey key = new PartitionKey("abc", "202411");
+        adapter.saveSeries(seriesFile);
+        adapter.createPartition(key, 80);
+        adapter.saveSeries(getSeriesFile("def"));
+
+        // Changes made within the precision of modification times are not trusted
+        FileTime past = FileTime.fromMillis(System.currentTimeMillis() - 60000);
+        Files.setLastModifiedTime(temp.resolve("abc").resolve(FilePersistenceAdapter.SERIES_JSON), past);
+        Files.setLastModifiedTime(temp.resolve("abc"), past);
+
+        // The snapshot differs from the files so that it is clear when it was used
+        SeriesFile snapshotFile = getSeriesFile("abc");
+        snapshotFile.setMetadata(Map.of("source", "catalog"));
+        PartitionKey snapshotKey = new PartitionKey("abc", "202412");
+        long created = System.currentTimeMillis();
+        adapter.saveCatalog(created, List.of(
+            new CatalogEntry(snapshotFile, adapter.getModified("abc"), Set.of(snapshotKey), Set.of()),
+            new CatalogEntry(getSeriesFile("def"), adapter.getModified("def"), Set.of(snapshotKey), Set.of())
+        ));
+        adapter.close();
+
+        adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+        assertThat(adapter.getSeries()).containsExactlyInAnyOrder(snapshotFile, getSeriesFile("def"));
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(snapshotKey));
+        assertThat(adapter.getListing(seriesFile)).isEqualTo(new PartitionListing(Set.of(snapshotKey), Set.of()));
+        assertThat(adapter.getListing(getSeriesFile("def")).partitions()).isEmpty();
+
+        // Entries are dropped once listed or once their series changes
+        assertThat(adapter.getListing(seriesFile)).isEqualTo(new PartitionListing(Set.of(key), Set.of()));
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key));
+        adapter.getSeries();
+        adapter.createPartition(new PartitionKey("abc", "202501"), 80);
+        assertThat(adapter.getPartitions(seriesFile)).hasSize(2);
+        adapter.close();
+
+        Files.write(temp.resolve(".catalog"), new byte[] {1, 2, 3});
+        adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+        assertThat(adapter.getSeries()).containsExactlyInAnyOrder(seriesFile, getSeriesFile("def"));
+        adapter.close();
+
+        properties.getPersistence().setCatalog(false);
+        adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+        assertThat(adapter.getModified("abc")).isEqualTo(0);
+        adapter.saveCatalog(created, List.of());
+        assertThat(Files.readAllBytes(temp.resolve(".catalog"))).hasSize(3);
+        adapter.close();
+
+        if (!FileSystemUtils.deleteRecursively(temp)) {
+            throw new RuntimeException("unable to delete root");
+        }
+    }
+
+    @Test
+    void testColdRoots() throws Exception {
+
+        Path temp = Files.createTempDirectory("iotfsdb");
+        Path hot = temp.resolve("hot");
+        Path cold = temp.resolve("cold");
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setRoot(hot);
+        properties.getPersistence().setColdRoots(List.of(cold));
+
+        FilePersistenceAdapter adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+
+        SeriesFile seriesFile = SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .id("abc123")
+                .type(NumberType.FLOAT4)
+                .interval(60000L)
+                .partition(PartitionPeriod.MONTH)
+                .build())
+            .build();
+        adapter.saveSeries(seriesFile);
+
+        PartitionKey key = new PartitionKey(seriesFile.getId(), "202411");
+        PartitionKey rollupKey = key.getRollupKey(3600000);
+        PartitionKey other = new PartitionKey(seriesFile.getId(), "202412");
+        adapter.createPartition(key, 80);
+        adapter.createPartition(rollupKey, 32);
+        adapter.createPartition(other, 80);
+        PartitionByteBuffer partitionByteBuffer = adapter.openPartition(key);
+        partitionByteBuffer.getByteBuffer().asFloatBuffer().put(0, 4.2f);
+        partitionByteBuffer.markDirty(0, Float.BYTES);
+        partitionByteBuffer.close();
+
+        assertThat(adapter.isHot(key)).isTrue();
+        assertThat(adapter.migratePartition(key)).isTrue();
+        assertThat(adapter.isHot(key)).isFalse();
+        assertThat(adapter.migratePartition(key)).isFalse();
+        assertThat(Files.exists(hot.resolve("abc123").resolve("202411"))).isFalse();
+        assertThat(Files.exists(hot.resolve("abc123").resolve("202411.3600000"))).isFalse();
+        assertThat(Files.exists(cold.resolve("abc123").resolve("202411"))).isTrue();
+        assertThat(Files.exists(cold.resolve("abc123").resolve("202411.3600000"))).isTrue();
+        assertThat(adapter.isHot(other)).isTrue();
+
+        assertThat(adapter.getSeries()).containsExactly(seriesFile);
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key, other));
+        assertThat(adapter.getListing(seriesFile).sidecars()).isEqualTo(Set.of(rollupKey));
+
+        partitionByteBuffer = adapter.openPartition(key);
+        assertThat(partitionByteBuffer.getByteBuffer().asFloatBuffer().get(0)).isEqualTo(4.2f);
+        byte[] encoded = PartitionCodec.XOR.encode(partitionByteBuffer.getByteBuffer(), Float.BYTES);
+        partitionByteBuffer.close();
+
+        assertThat(adapter.sealPartition(key, encoded)).isTrue();
+        assertThat(Files.exists(cold.resolve("abc123").resolve("202411.sealed"))).isTrue();
+        assertThat(adapter.isSealed(key)).isTrue();
+        assertThat(adapter.unsealPartition(key)).isTrue();
+        assertThat(Files.exists(cold.resolve("abc123").resolve("202411"))).isTrue();
+
+        adapter.deletePartition(key);
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(other));
+
+        adapter.deleteSeries(seriesFile.getId());
+        assertThat(Files.exists(cold.resolve("abc123"))).isFalse();
+
+        adapter.close();
+        if (!FileSystemUtils.deleteRecursively(temp)) {
+            throw new RuntimeException("unable to delete root");
+        }
+    }
+
+    @Test
+    void testWriteAheadLog() throws Exception {
+
+        Path temp = Files.createTempDirectory("iotfsdb");
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setRoot(temp);
+
+        FilePersistenceAdapter adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+        assertThat(adapter.getWriteAheadLog()).isEmpty();
+        adapter.close();
+
+        properties.getPersistence().getWal().setEnabled(true);
+        adapter = new FilePersistenceAdapter(properties, new ObjectMapper());
+        assertThat(adapter.getWriteAheadLog()).isPresent();
+        assertThat(Files.isDirectory(temp.resolve(".wal"))).isTrue();
+        assertThat(adapter.getSeries()).isEqualTo(List.of());
+        adapter.close();
+
+        if (!FileSystemUtils.deleteRecursively(temp)) {
+            throw new RuntimeException("unable to delete root");
+        }
+    }
+
     @Test
     void testReadZip() throws Exception {
 
@@ -238,10 +550,37 @@ public class FilePersistenceAdapterTest {
 
         assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key));
 
+        List<Path> before;
+        try (Stream<Path> stream = Files.list(temp.getParent())) {
+            before = stream.toList();
+        }
+
         PartitionByteBuffer partitionByteBuffer = adapter.openPartition(key);
         ByteBuffer byteBuffer = partitionByteBuffer.getByteBuffer();
         assertThat(byteBuffer.capacity()).isEqualTo(80);
+        assertThat(byteBuffer.isReadOnly()).isTrue();
+        assertThat(byteBuffer.isDirect()).isTrue();
+        partitionByteBuffer.force();
+        MemorySegment segment = partitionByteBuffer.getSegment();
+        assertThat(partitionByteBuffer.retain()).isTrue();
         partitionByteBuffer.close();
+        assertThat(segment.scope().isAlive()).isTrue();
+        partitionByteBuffer.release();
+        assertThat(segment.scope().isAlive()).isFalse();
+        assertThat(partitionByteBuffer.retain()).isFalse();
+
+        // The memory is released once the partition cache drops the partition
+        DataService dataService = new DataService(properties, adapter);
+        try (BufferLease lease = dataService.getBuffer(key).orElseThrow()) {
+            segment = lease.partition().getSegment();
+        }
+        assertThat(segment.scope().isAlive()).isTrue();
+        dataService.close();
+        assertThat(segment.scope().isAlive()).isFalse();
+
+        try (Stream<Path> stream = Files.list(temp.getParent())) {
+            assertThat(stream.filter(path -> path.getFileName().toString().startsWith("iotfsdb-abc123-")).filter(path -> !before.contains(path))).isEmpty();
+        }
 
         adapter.close();
         if (!FileSystemUtils.deleteRecursively(temp)) {
@@ -300,4 +639,66 @@ public class FilePersistenceAdapterTest {
             }
         }
     }
+    @Test
+    void testReferenceCounting() throws Exception {
+        Path temp = Files.createTempDirectory("iotfsdb");
+        FilePersistenceAdapter adapter = FilePersistenceAdapter.create(temp, new ObjectMapper());
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        adapter.saveSeries(seriesFile);
+
+        PartitionKey key = new PartitionKey(seriesFile.getId(), "202411");
+        adapter.createPartition(key, 80);
+        PartitionByteBuffer partitionByteBuffer = adapter.openPartition(key);
+        ByteBuffer byteBuffer = partitionByteBuffer.getByteBuffer();
+        partitionByteBuffer.load();
+
+        assertThat(partitionByteBuffer.retain()).isTrue();
+        partitionByteBuffer.close();
+        partitionByteBuffer.close();
+        byteBuffer.putFloat(4, 1.5f);
+        partitionByteBuffer.markDirty(4, 4);
+        assertThat(byteBuffer.getFloat(4)).isEqualTo(1.5f);
+
+        partitionByteBuffer.release();
+        assertThat(partitionByteBuffer.retain()).isFalse();
+        assertThrows(IllegalStateException.class, () -> byteBuffer.getFloat(4));
+
+        partitionByteBuffer = adapter.openPartition(key);
+        assertThat(partitionByteBuffer.getByteBuffer().getFloat(4)).isEqualTo(1.5f);
+        partitionByteBuffer.close();
+
+        adapter.close();
+        if (!FileSystemUtils.deleteRecursively(temp)) {
+            throw new RuntimeException("unable to delete root");
+        }
+    }
+
+    @Test
+    void testLargePartition() throws Exception {
+        Path temp = Files.createTempDirectory("iotfsdb");
+        FilePersistenceAdapter adapter = FilePersistenceAdapter.create(temp, new ObjectMapper());
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        adapter.saveSeries(seriesFile);
+
+        long size = 3L * Integer.MAX_VALUE;
+        PartitionKey key = new PartitionKey(seriesFile.getId(), "2024");
+        adapter.createPartition(key, size);
+        PartitionByteBuffer partitionByteBuffer = adapter.openPartition(key);
+        MemorySegment segment = partitionByteBuffer.getSegment();
+        assertThat(segment.byteSize()).isEqualTo(size);
+        segment.set(ValueLayout.JAVA_FLOAT_UNALIGNED, size - 4, 1.5f);
+        partitionByteBuffer.markDirty(size - 4, 4);
+        partitionByteBuffer.force();
+        partitionByteBuffer.close();
+
+        partitionByteBuffer = adapter.openPartition(key);
+        assertThat(partitionByteBuffer.getSegment().get(ValueLayout.JAVA_FLOAT_UNALIGNED, size - 4)).isEqualTo(1.5f);
+        partitionByteBuffer.close();
+
+        adapter.close();
+        if (!FileSystemUtils.deleteRecursively(temp)) {
+            throw new RuntimeException("unable to delete root");
+        }
+    }
+
 }
@@ -0,0 +1,65 @@
+package org.huebert.iotfsdb.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Optional;
+
+public class MemoryAdvisorTest {
+
+    private Path temp;
+
+    @BeforeEach
+    public void beforeEach() throws Exception {
+        temp = Files.createTempDirectory("iotfsdb");
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        FileSystemUtils.deleteRecursively(temp);
+    }
+
+    @Test
+    public void testCreate() {
+        boolean linux = System.getProperty("os.name").toLowerCase(Locale.ROOT).startsWith("linux");
+        assertThat(MemoryAdvisor.create().isPresent()).isEqualTo(linux);
+    }
+
+    @Test
+    public void testAdvise() throws Exception {
+        Optional<MemoryAdvisor> memoryAdvisor = MemoryAdvisor.create();
+        assumeTrue(memoryAdvisor.isPresent());
+        MemoryAdvisor advisor = memoryAdvisor.get();
+
+        Path path = temp.resolve("partition");
+        Files.write(path, new byte[20000]);
+        try (Arena arena = Arena.ofConfined();
+             FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MemorySegment segment = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, 20000, arena);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, 19996, 42);
+
+            advisor.advise(segment, AccessAdvice.RANDOM, 0, 20000);
+            advisor.advise(segment, AccessAdvice.SEQUENTIAL, 0, Long.MAX_VALUE);
+            advisor.advise(segment, AccessAdvice.WILLNEED, 5000, 100);
+            advisor.advise(segment, AccessAdvice.DONTNEED, 0, Long.MAX_VALUE);
+            advisor.advise(segment, AccessAdvice.WILLNEED, 20000, 100);
+            advisor.advise(segment, AccessAdvice.WILLNEED, -1, 100);
+
+            assertThat(segment.get(ValueLayout.JAVA_INT_UNALIGNED, 19996)).isEqualTo(42);
+        }
+    }
+
+}
@@ -1,23 +1,30 @@
 package org.huebert.iotfsdb.persistence;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import org.huebert.iotfsdb.IotfsdbProperties;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.service.PartitionKey;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
 public class MemoryPersistenceAdapterTest {
 
     @Test
     public void testPostConstruct() {
-        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter();
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
         adapter.postConstruct();
     }
 
     @Test
     public void testSeries() {
-        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter();
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
         SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("123").build()).build();
         assertThat(adapter.getSeries()).isEmpty();
         adapter.saveSeries(seriesFile);
@@ -29,7 +36,7 @@ public class MemoryPersistenceAdapterTest {
 
     @Test
     public void testPartition() {
-        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter();
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
         SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("123").build()).build();
         PartitionKey key = new PartitionKey("123", "456");
         adapter.saveSeries(seriesFile);
@@ -38,6 +45,150 @@ public class MemoryPersistenceAdapterTest {
         PartitionByteBuffer partitionByteBuffer = adapter.openPartition(key);
         assertThat(partitionByteBuffer.getByteBuffer().capacity()).isEqualTo(80);
         partitionByteBuffer.close();
+        assertThat(adapter.sealPartition(key, new byte[1])).isFalse();
+        assertThat(adapter.isSealed(key)).isFalse();
+        assertThat(adapter.unsealPartition(key)).isFalse();
+        adapter.deletePartition(key);
+        assertThat(adapter.getPartitions(seriesFile)).isEmpty();
+        assertThat(adapter.openPartition(key)).isNull();
+        adapter.close();
+    }
+
+    @Test
+    public void testPartitionIndex() {
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("123").build()).build();
+        adapter.saveSeries(seriesFile);
+
+        PartitionKey key = new PartitionKey("123", "20241111");
+        PartitionKey rollupKey = key.getRollupKey(3600000);
+        adapter.createPartition(key, 80);
+        adapter.createPartition(rollupKey, 64);
+
+        ByteBuffer byteBuffer = adapter.openPartition(key).getByteBuffer();
+        byteBuffer.putFloat(4, 1.5f);
+        adapter.createPartition(key, 80);
+        assertThat(adapter.openPartition(key).getByteBuffer().getFloat(4)).isEqualTo(1.5f);
+        assertThat(adapter.openPartition(rollupKey).getByteBuffer().getLong(0)).isEqualTo(0);
+
+        assertThat(adapter.getPartitions(seriesFile)).isEqualTo(Set.of(key));
+        assertThat(adapter.getListing(seriesFile).sidecars()).isEqualTo(Set.of(rollupKey));
+
+        adapter.deleteSeries("123");
+        assertThat(adapter.getPartitions(seriesFile)).isEmpty();
+        assertThat(adapter.openPartition(key)).isNull();
+        assertThat(adapter.getUsedMemory()).isEqualTo(0);
+        assertThrows(IllegalStateException.class, () -> byteBuffer.getFloat(4));
+        adapter.close();
+    }
+
+    @Test
+    public void testMemoryLimit() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setMemoryLimit(2 * 4096);
+        properties.getPersistence().setMemorySlabSize(4096);
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(properties);
+
+        // Slabs start at the size of the first partition and double
+        adapter.createPartition(new PartitionKey("123", "1"), 1000);
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000);
+        adapter.createPartition(new PartitionKey("123", "2"), 1000);
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000 + 2000);
+        adapter.createPartition(new PartitionKey("123", "3"), 1000);
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000 + 2000);
+        adapter.createPartition(new PartitionKey("456", "1"), 3000);
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000 + 2000 + 3000);
+        assertThrows(IllegalStateException.class, () -> adapter.createPartition(new PartitionKey("123", "4"), 3000));
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000 + 2000 + 3000);
+
+        adapter.deleteSeries("456");
+        adapter.createPartition(new PartitionKey("123", "4"), 3000);
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000 + 2000 + 3000);
+        adapter.close();
+        assertThat(adapter.getUsedMemory()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSmallSeries() {
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
+        for (int i = 0; i < 1000; i++) {
+            adapter.createPartition(new PartitionKey(String.valueOf(i), "1"), 80);
+        }
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000 * 80);
+        adapter.close();
+        assertThat(adapter.getUsedMemory()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLeaseAfterDelete() {
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
+        PartitionKey key = new PartitionKey("123", "1");
+        PartitionKey largeKey = new PartitionKey("123", "2");
+        adapter.createPartition(key, 80);
+        adapter.createPartition(largeKey, 1024 * 1024);
+
+        PartitionByteBuffer buffer = adapter.openPartition(key);
+        PartitionByteBuffer largeBuffer = adapter.openPartition(largeKey);
+        assertThat(buffer.retain()).isTrue();
+        assertThat(largeBuffer.retain()).isTrue();
+        ByteBuffer byteBuffer = buffer.getByteBuffer();
+        ByteBuffer largeByteBuffer = largeBuffer.getByteBuffer();
+
+        adapter.deletePartition(largeKey);
+        adapter.deleteSeries("123");
+        buffer.close();
+        byteBuffer.putFloat(4, 1.5f);
+        assertThat(byteBuffer.getFloat(4)).isEqualTo(1.5f);
+        largeByteBuffer.putFloat(4, 2.5f);
+        assertThat(largeByteBuffer.getFloat(4)).isEqualTo(2.5f);
+        assertThat(adapter.getUsedMemory()).isGreaterThan(0);
+
+        largeBuffer.release();
+        assertThrows(IllegalStateException.class, () -> largeByteBuffer.getFloat(4));
+        assertThat(byteBuffer.getFloat(4)).isEqualTo(1.5f);
+        buffer.release();
+        assertThat(buffer.retain()).isFalse();
+        assertThat(adapter.getUsedMemory()).isEqualTo(0);
+        assertThrows(IllegalStateException.class, () -> byteBuffer.getFloat(4));
+        adapter.close();
+    }
+
+    @Test
+    public void testDeletePartitionReusesMemory() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setMemoryLimit(3 * 4096);
+        properties.getPersistence().setMemorySlabSize(4096);
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(properties);
+
+        adapter.createPartition(new PartitionKey("123", "0"), 1000);
+        adapter.createPartition(new PartitionKey("123", "large0"), 3000);
+        assertThat(adapter.getUsedMemory()).isEqualTo(1000 + 3000);
+        for (int i = 1; i < 100; i++) {
+            PartitionKey key = new PartitionKey("123", String.valueOf(i));
+            adapter.createPartition(key, 1000);
+            assertThat(adapter.openPartition(key).getByteBuffer().getLong(0)).isEqualTo(0);
+            adapter.openPartition(key).getByteBuffer().putLong(0, i);
+            adapter.deletePartition(new PartitionKey("123", String.valueOf(i - 1)));
+            adapter.createPartition(new PartitionKey("123", "large" + i), 3000);
+            adapter.deletePartition(new PartitionKey("123", "large" + (i - 1)));
+        }
+        // The first slab is released once empty, and the second is reused
+        assertThat(adapter.getUsedMemory()).isEqualTo(2000 + 3000);
+        adapter.close();
+        assertThat(adapter.getUsedMemory()).isEqualTo(0);
+    }
+
+    @Test
+    public void testConcurrentCreate() {
+        MemoryPersistenceAdapter adapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("123").build()).build();
+        AtomicInteger index = new AtomicInteger();
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            PartitionKey key = new PartitionKey("123", String.valueOf(i % 500));
+            adapter.createPartition(key, 100);
+            adapter.openPartition(key).getByteBuffer().put(index.getAndIncrement() % 100, (byte) 1);
+        });
+        assertThat(adapter.getPartitions(seriesFile)).hasSize(500);
         adapter.close();
     }
 
@@ -0,0 +1,133 @@
+package org.huebert.iotfsdb.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.huebert.iotfsdb.service.PartitionKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class WriteAheadLogTest {
+
+    private static final PartitionKey KEY = new PartitionKey("abc", "20241111");
+
+    private Path temp;
+
+    @BeforeEach
+    public void beforeEach() throws Exception {
+        temp = Files.createTempDirectory("iotfsdb");
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        FileSystemUtils.deleteRecursively(temp);
+    }
+
+    @Test
+    public void testReplay() {
+        WriteAheadLog wal = new WriteAheadLog(temp, Duration.ofMillis(1), 1024);
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(4, 42);
+        wal.awaitCommit(wal.append(KEY, buffer, 4, 4));
+        buffer.putInt(4, 43);
+        buffer.putInt(8, 44);
+        wal.awaitCommit(wal.append(KEY.getRollupKey(3600000), buffer, 4, 8));
+        wal.close();
+
+        List<String> records = new ArrayList<>();
+        WriteAheadLog reopened = new WriteAheadLog(temp, Duration.ofMillis(1), 1024);
+        reopened.replay((key, offset, bytes) -> records.add(key.partitionId() + "@" + offset + "=" + ByteBuffer.wrap(bytes).getInt(0)));
+        reopened.close();
+
+        assertThat(records).containsExactly("20241111@4=42", "20241111.3600000@4=43");
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(temp, Duration.ofSeconds(10), 1024);
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        long position = wal.append(KEY, buffer, 0, 4);
+
+        List<Set<PartitionKey>> flushed = new ArrayList<>();
+        wal.checkpoint(flushed::add);
+        wal.awaitCommit(position);
+        assertThat(flushed).containsExactly(Set.of(KEY));
+
+        wal.checkpoint(flushed::add);
+        assertThat(flushed).containsExactly(Set.of(KEY), Set.of());
+        wal.close();
+
+        try (Stream<Path> stream = Files.list(temp)) {
+            assertThat(stream.count()).isEqualTo(1);
+        }
+        List<PartitionKey> replayed = new ArrayList<>();
+        WriteAheadLog reopened = new WriteAheadLog(temp, Duration.ofMillis(1), 1024);
+        reopened.replay((key, offset, bytes) -> replayed.add(key));
+        reopened.close();
+        assertThat(replayed).isEmpty();
+    }
+
+    @Test
+    public void testPartialRecord() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(temp, Duration.ofMillis(1), 1);
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        wal.awaitCommit(wal.append(KEY, buffer, 0, 4));
+        wal.awaitCommit(wal.append(KEY, buffer, 4, 4));
+        wal.close();
+
+        try (Stream<Path> stream = Files.list(temp)) {
+            Path segment = stream.findFirst().orElseThrow();
+            long size = Files.size(segment);
+            try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(size - 2);
+            }
+        }
+
+        List<Integer> offsets = new ArrayList<>();
+        WriteAheadLog reopened = new WriteAheadLog(temp, Duration.ofMillis(1), 1024);
+        reopened.replay((key, offset, bytes) -> offsets.add(offset));
+        reopened.close();
+        assertThat(offsets).containsExactly(0);
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(temp, Duration.ofMillis(5), 1 << 20);
+        ByteBuffer buffer = ByteBuffer.allocate(400);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> threads = IntStream.range(0, 100)
+            .mapToObj(i -> Thread.ofVirtual().start(() -> {
+                try {
+                    wal.awaitCommit(wal.append(KEY, buffer, i * 4, 4));
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            }))
+            .toList();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        wal.close();
+        assertThat(errors).isEmpty();
+
+        List<Integer> offsets = new ArrayList<>();
+        WriteAheadLog reopened = new WriteAheadLog(temp, Duration.ofMillis(1), 1024);
+        reopened.replay((key, offset, bytes) -> offsets.add(offset));
+        reopened.close();
+        assertThat(offsets).hasSize(100).doesNotHaveDuplicates();
+    }
+
+}
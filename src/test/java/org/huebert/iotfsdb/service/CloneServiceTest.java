@@ -159,10 +159,10 @@ class CloneServiceTest {
         when(partitionService.getRange(eq(new PartitionKey("dest-series", "20240702")))).thenReturn(destinationRange); // Reuse for simplicity
 
         // Setup data service behavior
-        when(dataService.getBuffer(eq(partitionKey1))).thenReturn(Optional.of(sourceBuffer));
-        when(dataService.getBuffer(eq(partitionKey2))).thenReturn(Optional.of(sourceBuffer));
-        when(dataService.getBuffer(eq(new PartitionKey("dest-series", "20240701")), anyLong(), any())).thenReturn(destinationBuffer);
-        when(dataService.getBuffer(eq(new PartitionKey("dest-series", "20240702")), anyLong(), any())).thenReturn(destinationBuffer);
+        when(dataService.getBuffer(eq(partitionKey1))).thenReturn(Optional.of(BufferLease.of(partitionKey1, sourceBuffer)));
+        when(dataService.getBuffer(eq(partitionKey2))).thenReturn(Optional.of(BufferLease.of(partitionKey2, sourceBuffer)));
+        when(dataService.getBuffer(eq(new PartitionKey("dest-series", "20240701")), anyLong(), any())).thenReturn(BufferLease.of(new PartitionKey("dest-series", "20240701"), destinationBuffer));
+        when(dataService.getBuffer(eq(new PartitionKey("dest-series", "20240702")), anyLong(), any())).thenReturn(BufferLease.of(new PartitionKey("dest-series", "20240702"), destinationBuffer));
 
         // Act
         cloneService.cloneSeries("source-series", "dest-series", true);
@@ -259,8 +259,8 @@ class CloneServiceTest {
         when(partitionService.getRange(eq(partitionKey1))).thenReturn(sourceRange);
         when(partitionService.getRange(eq(new PartitionKey("dest-series", "20240701")))).thenReturn(destinationRange);
         when(dataService.getPartitions("source-series")).thenReturn(Set.of(partitionKey1));
-        when(dataService.getBuffer(eq(partitionKey1))).thenReturn(Optional.of(sourceBuffer));
-        when(dataService.getBuffer(eq(new PartitionKey("dest-series", "20240701")), anyLong(), any())).thenReturn(destinationBuffer);
+        when(dataService.getBuffer(eq(partitionKey1))).thenReturn(Optional.of(BufferLease.of(partitionKey1, sourceBuffer)));
+        when(dataService.getBuffer(eq(new PartitionKey("dest-series", "20240701")), anyLong(), any())).thenReturn(BufferLease.of(new PartitionKey("dest-series", "20240701"), destinationBuffer));
         when(seriesService.findSeries("source-series")).thenReturn(Optional.of(sourceSeries));
 
         // Act
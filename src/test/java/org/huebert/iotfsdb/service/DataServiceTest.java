@@ -1,23 +1,49 @@
 package org.huebert.iotfsdb.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.persistence.AccessAdvice;
+import org.huebert.iotfsdb.persistence.CatalogEntry;
+import org.huebert.iotfsdb.persistence.FlushPolicy;
 import org.huebert.iotfsdb.persistence.PartitionByteBuffer;
+import org.huebert.iotfsdb.persistence.PartitionListing;
 import org.huebert.iotfsdb.persistence.PersistenceAdapter;
+import org.huebert.iotfsdb.persistence.WriteAheadLog;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 
 import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class DataServiceTest {
 
@@ -37,24 +63,23 @@ public class DataServiceTest {
         PartitionKey seriesFile1Key1 = new PartitionKey("abc", "123");
         PartitionKey seriesFile1Key2 = new PartitionKey("abc", "456");
 
-        when(persistenceAdapter.getPartitions(seriesFile1)).thenReturn(Set.of(
+        when(persistenceAdapter.getListing(seriesFile1)).thenReturn(new PartitionListing(Set.of(
             seriesFile1Key1,
             seriesFile1Key2
-        ));
+        ), Set.of()));
 
         PartitionKey seriesFile2Key1 = new PartitionKey("def", "123");
         PartitionKey seriesFile2Key2 = new PartitionKey("def", "456");
 
-        when(persistenceAdapter.getPartitions(seriesFile2)).thenReturn(Set.of(
+        when(persistenceAdapter.getListing(seriesFile2)).thenReturn(new PartitionListing(Set.of(
             seriesFile2Key1,
             seriesFile2Key2
-        ));
+        ), Set.of()));
 
         DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
 
         verify(persistenceAdapter).getSeries();
-        verify(persistenceAdapter).getPartitions(seriesFile1);
-        verify(persistenceAdapter).getPartitions(seriesFile2);
+        verify(persistenceAdapter, never()).getListing(any());
 
         Collection<SeriesFile> series = dataService.getSeries();
         assertThat(series).containsExactly(seriesFile1, seriesFile2);
@@ -74,8 +99,71 @@ public class DataServiceTest {
         assertThat(dataService.getPartitions("ghi")).isEqualTo(Set.of());
 
         verify(persistenceAdapter).getSeries();
-        verify(persistenceAdapter).getPartitions(seriesFile1);
-        verify(persistenceAdapter).getPartitions(seriesFile2);
+        verify(persistenceAdapter).getListing(seriesFile1);
+        verify(persistenceAdapter).getListing(seriesFile2);
+    }
+
+    @Test
+    public void testLoadPartitions() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile1 = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        SeriesFile seriesFile2 = SeriesFile.builder().definition(SeriesDefinition.builder().id("def").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile1, seriesFile2));
+        PartitionKey key = new PartitionKey("abc", "123");
+        PartitionKey sidecar = key.getRollupKey(60000);
+        when(persistenceAdapter.getListing(seriesFile1)).thenReturn(new PartitionListing(Set.of(key), Set.of(sidecar)));
+        when(persistenceAdapter.getListing(seriesFile2)).thenReturn(new PartitionListing(Set.of(new PartitionKey("def", "123")), Set.of()));
+        when(persistenceAdapter.openPartition(sidecar)).thenReturn(PartitionByteBuffer.wrap(ByteBuffer.allocate(8)));
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+        assertThat(dataService.isReady()).isFalse();
+        assertThat(dataService.getLoadedSeriesCount()).isEqualTo(0);
+
+        try (BufferLease lease = dataService.getBuffer(sidecar).orElseThrow()) {
+            assertThat(lease.key()).isEqualTo(sidecar);
+        }
+        assertThat(dataService.getLoadedSeriesCount()).isEqualTo(1);
+        verify(persistenceAdapter, never()).getListing(seriesFile2);
+
+        dataService.loadPartitions();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!dataService.isReady() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(dataService.isReady()).isTrue();
+        assertThat(dataService.getLoadedSeriesCount()).isEqualTo(2);
+        assertThat(dataService.getPartitions("def")).containsExactly(new PartitionKey("def", "123"));
+        verify(persistenceAdapter).getListing(seriesFile1);
+        verify(persistenceAdapter).getListing(seriesFile2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSaveCatalog() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile1 = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        SeriesFile seriesFile2 = SeriesFile.builder().definition(SeriesDefinition.builder().id("def").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile1, seriesFile2));
+        PartitionKey key = new PartitionKey("abc", "123");
+        when(persistenceAdapter.getListing(seriesFile1)).thenReturn(new PartitionListing(Set.of(key), Set.of(key.getRollupKey(60000))));
+        when(persistenceAdapter.getModified("abc")).thenReturn(42L);
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+        dataService.getPartitions("abc");
+        dataService.saveCatalog();
+
+        ArgumentCaptor<Collection<CatalogEntry>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(persistenceAdapter).saveCatalog(anyLong(), captor.capture());
+        assertThat(captor.getValue()).containsExactly(new CatalogEntry(seriesFile1, 42L, Set.of(key), Set.of(key.getRollupKey(60000))));
+
+        dataService.close();
+        verify(persistenceAdapter, times(2)).saveCatalog(anyLong(), any());
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.setReadOnly(true);
+        persistenceAdapter = mock(PersistenceAdapter.class);
+        new DataService(properties, persistenceAdapter).saveCatalog();
+        verify(persistenceAdapter, never()).saveCatalog(anyLong(), any());
     }
 
     @Test
@@ -105,19 +193,19 @@ public class DataServiceTest {
 
         PartitionKey seriesFileKey1 = new PartitionKey("abc", "123");
         PartitionKey seriesFileKey2 = new PartitionKey("abc", "456");
-        when(persistenceAdapter.getPartitions(seriesFile)).thenReturn(Set.of(
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(
             seriesFileKey1,
             seriesFileKey2
-        ));
+        ), Set.of()));
 
         DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
         verify(persistenceAdapter).getSeries();
-        verify(persistenceAdapter).getPartitions(seriesFile);
 
         assertThat(dataService.getSeries()).containsExactly(seriesFile);
         assertThat(dataService.getSeries("abc")).isEqualTo(Optional.of(seriesFile));
 
         Set<PartitionKey> abcKeys = dataService.getPartitions("abc");
+        verify(persistenceAdapter).getListing(seriesFile);
         assertThat(abcKeys.size()).isEqualTo(2);
         assertThat(abcKeys).contains(seriesFileKey1, seriesFileKey2);
 
@@ -164,6 +252,7 @@ public class DataServiceTest {
         PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
         SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
         when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(), Set.of()));
 
         DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
         verify(persistenceAdapter).getSeries();
@@ -178,14 +267,52 @@ public class DataServiceTest {
         when(adapter.getTypeSize()).thenReturn(4);
 
         PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+
+        when(partitionByteBuffer.retain()).thenReturn(true);
         ByteBuffer byteBuffer = ByteBuffer.allocate(8);
         when(partitionByteBuffer.getByteBuffer()).thenReturn(byteBuffer);
 
         when(persistenceAdapter.openPartition(key)).thenReturn(partitionByteBuffer);
 
-        assertThat(dataService.getBuffer(key, 2L, adapter)).isEqualTo(byteBuffer);
+        assertThat(dataService.getBuffer(key, 2L, adapter).buffer()).isEqualTo(byteBuffer);
 
         verify(persistenceAdapter).createPartition(key, 8L);
+        verify(partitionByteBuffer).advise(AccessAdvice.RANDOM, 0, 8);
+    }
+
+    @Test
+    public void testGetBuffer_Rollup() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(), Set.of()));
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+
+        PartitionKey key = new PartitionKey("abc", "20241111");
+        PartitionKey rollupKey = key.getRollupKey(60000);
+        assertThat(dataService.getBuffer(rollupKey)).isEqualTo(Optional.empty());
+        verify(persistenceAdapter).getListing(seriesFile);
+
+        PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+
+        when(partitionByteBuffer.retain()).thenReturn(true);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(64);
+        when(partitionByteBuffer.getByteBuffer()).thenReturn(byteBuffer);
+        when(persistenceAdapter.openPartition(rollupKey)).thenReturn(partitionByteBuffer);
+
+        AtomicInteger initialized = new AtomicInteger();
+        assertThat(dataService.getOrCreateBuffer(rollupKey, 64, b -> initialized.incrementAndGet()).buffer()).isEqualTo(byteBuffer);
+        assertThat(dataService.getOrCreateBuffer(rollupKey, 64, b -> initialized.incrementAndGet()).buffer()).isEqualTo(byteBuffer);
+        assertThat(initialized.get()).isEqualTo(1);
+        verify(persistenceAdapter).createPartition(rollupKey, 64L);
+
+        assertThat(dataService.getBuffer(rollupKey).map(BufferLease::buffer)).isEqualTo(Optional.of(byteBuffer));
+        assertThat(dataService.getPartitions("abc")).isEqualTo(Set.of());
+
+        dataService.deleteSeries("abc");
+        verify(partitionByteBuffer).close();
+        assertThat(dataService.getBuffer(rollupKey)).isEqualTo(Optional.empty());
     }
 
     @Test
@@ -196,22 +323,464 @@ public class DataServiceTest {
         when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
 
         PartitionKey seriesFileKey = new PartitionKey("abc", "123");
-        when(persistenceAdapter.getPartitions(seriesFile)).thenReturn(Set.of(seriesFileKey));
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(seriesFileKey), Set.of()));
 
         DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
         verify(persistenceAdapter).getSeries();
-        verify(persistenceAdapter).getPartitions(seriesFile);
 
         PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+
+        when(partitionByteBuffer.retain()).thenReturn(true);
         ByteBuffer byteBuffer = ByteBuffer.allocate(8);
         when(partitionByteBuffer.getByteBuffer()).thenReturn(byteBuffer);
         when(persistenceAdapter.openPartition(seriesFileKey)).thenReturn(partitionByteBuffer);
 
-        assertThat(dataService.getBuffer(seriesFileKey)).isEqualTo(Optional.of(byteBuffer));
+        assertThat(dataService.getBuffer(seriesFileKey).map(BufferLease::buffer)).isEqualTo(Optional.of(byteBuffer));
+        verify(persistenceAdapter).getListing(seriesFile);
         dataService.deleteSeries("abc");
         verify(partitionByteBuffer).close();
     }
 
+    @Test
+    public void testGetBufferLease() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "123");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key), Set.of()));
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+
+        PartitionByteBuffer released = mock(PartitionByteBuffer.class);
+        when(released.retain()).thenReturn(false);
+        PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+        when(partitionByteBuffer.retain()).thenReturn(true);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(8);
+        when(partitionByteBuffer.getByteBuffer()).thenReturn(byteBuffer);
+        when(persistenceAdapter.openPartition(key)).thenReturn(released, partitionByteBuffer);
+
+        BufferLease lease = dataService.getBuffer(key).orElseThrow();
+        assertThat(lease.buffer()).isEqualTo(byteBuffer);
+        verify(released).close();
+
+        dataService.close();
+        verify(partitionByteBuffer).close();
+        verify(partitionByteBuffer, never()).release();
+        lease.close();
+        verify(partitionByteBuffer).release();
+    }
+
+    @Test
+    public void testPrefetch() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "123");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key), Set.of()));
+
+        PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+        when(partitionByteBuffer.retain()).thenReturn(true);
+        when(persistenceAdapter.openPartition(key)).thenReturn(partitionByteBuffer);
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+        dataService.prefetch(key);
+        dataService.prefetch(new PartitionKey("abc", "456"));
+        verify(partitionByteBuffer).load();
+        verify(partitionByteBuffer).release();
+        verify(persistenceAdapter).openPartition(key);
+        verify(persistenceAdapter, never()).openPartition(new PartitionKey("abc", "456"));
+    }
+
+    @Test
+    public void testSealPartition() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "123");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key), Set.of()));
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+
+        PartitionByteBuffer raw = mock(PartitionByteBuffer.class);
+
+        when(raw.retain()).thenReturn(true);
+        ByteBuffer rawBuffer = ByteBuffer.allocate(8);
+        when(raw.getByteBuffer()).thenReturn(rawBuffer);
+        PartitionByteBuffer sealed = mock(PartitionByteBuffer.class);
+        when(sealed.retain()).thenReturn(true);
+        ByteBuffer sealedBuffer = ByteBuffer.allocate(8).asReadOnlyBuffer();
+        when(sealed.getByteBuffer()).thenReturn(sealedBuffer);
+        when(persistenceAdapter.openPartition(key)).thenReturn(raw, sealed, raw);
+
+        assertThat(dataService.getBuffer(key).map(BufferLease::buffer)).isEqualTo(Optional.of(rawBuffer));
+
+        byte[] encoded = new byte[1];
+        when(persistenceAdapter.sealPartition(key, encoded)).thenReturn(true);
+        assertThat(dataService.sealPartition(key, encoded)).isTrue();
+        verify(raw).close();
+        assertThat(dataService.getBuffer(key).map(BufferLease::buffer)).isEqualTo(Optional.of(sealedBuffer));
+
+        when(persistenceAdapter.unsealPartition(key)).thenReturn(true);
+        PartitionAdapter adapter = mock(PartitionAdapter.class);
+        when(adapter.getTypeSize()).thenReturn(4);
+        assertThat(dataService.getBuffer(key, 2L, adapter).buffer()).isEqualTo(rawBuffer);
+        verify(sealed).close();
+        verify(persistenceAdapter, never()).createPartition(key, 8L);
+    }
+
+    @Test
+    public void testDeletePartition() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").partition(PartitionPeriod.DAY).build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "20241110");
+        PartitionKey other = new PartitionKey("abc", "20241111");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key, other), Set.of(key.getRollupKey(3600000), other.getRollupKey(3600000))));
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPinActive(false);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+
+        PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+        when(partitionByteBuffer.retain()).thenReturn(true);
+        when(partitionByteBuffer.getByteBuffer()).thenReturn(ByteBuffer.allocate(8));
+        when(persistenceAdapter.openPartition(key)).thenReturn(partitionByteBuffer);
+        dataService.getBuffer(key).orElseThrow().close();
+
+        assertThat(dataService.deletePartition(key)).isTrue();
+        verify(partitionByteBuffer).close();
+        verify(persistenceAdapter).deletePartition(key);
+        verify(persistenceAdapter).deletePartition(key.getRollupKey(3600000));
+        verify(persistenceAdapter, never()).deletePartition(other);
+        assertThat(dataService.getPartitions("abc")).containsExactly(other);
+        assertThat(dataService.getBuffer(key)).isEmpty();
+        assertThat(dataService.getBuffer(key.getRollupKey(3600000))).isEmpty();
+
+        assertThat(dataService.deletePartition(key)).isFalse();
+    }
+
+    @Test
+    public void testMigratePartition() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").partition(PartitionPeriod.DAY).build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "20241110");
+        PartitionKey rollupKey = key.getRollupKey(3600000);
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key), Set.of(rollupKey)));
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPinActive(false);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+
+        PartitionByteBuffer hot = mock(PartitionByteBuffer.class);
+        when(hot.retain()).thenReturn(true);
+        when(hot.getByteBuffer()).thenReturn(ByteBuffer.allocate(8));
+        PartitionByteBuffer hotRollup = mock(PartitionByteBuffer.class);
+        when(hotRollup.retain()).thenReturn(true);
+        when(hotRollup.getByteBuffer()).thenReturn(ByteBuffer.allocate(8));
+        when(persistenceAdapter.openPartition(key)).thenReturn(hot);
+        when(persistenceAdapter.openPartition(rollupKey)).thenReturn(hotRollup);
+        dataService.getBuffer(key).orElseThrow().close();
+        dataService.getBuffer(rollupKey).orElseThrow().close();
+
+        when(persistenceAdapter.isHot(key)).thenReturn(true);
+        when(persistenceAdapter.migratePartition(key)).thenReturn(true);
+        assertThat(dataService.isHot(key)).isTrue();
+        assertThat(dataService.migratePartition(key)).isTrue();
+        verify(hot).close();
+        verify(hotRollup).close();
+        assertThat(dataService.getPartitions("abc")).containsExactly(key);
+
+        assertThat(dataService.migratePartition(new PartitionKey("abc", "20241111"))).isFalse();
+        verify(persistenceAdapter, never()).migratePartition(new PartitionKey("abc", "20241111"));
+    }
+
+    @Test
+    public void testWriteAheadLog() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "123");
+        PartitionKey missing = new PartitionKey("abc", "456");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key), Set.of()));
+
+        PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+
+        when(partitionByteBuffer.retain()).thenReturn(true);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(8);
+        when(partitionByteBuffer.getByteBuffer()).thenReturn(byteBuffer);
+        when(persistenceAdapter.openPartition(key)).thenReturn(partitionByteBuffer);
+
+        WriteAheadLog writeAheadLog = mock(WriteAheadLog.class);
+        when(persistenceAdapter.getWriteAheadLog()).thenReturn(Optional.of(writeAheadLog));
+        doAnswer(invocation -> {
+            WriteAheadLog.RecordConsumer consumer = invocation.getArgument(0);
+            consumer.accept(key, 4, new byte[] {1, 2});
+            consumer.accept(missing, 0, new byte[] {3});
+            return null;
+        }).when(writeAheadLog).replay(any());
+        doAnswer(invocation -> {
+            invocation.<Consumer<Set<PartitionKey>>>getArgument(0).accept(Set.of(key));
+            return null;
+        }).when(writeAheadLog).checkpoint(any());
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+        assertThat(byteBuffer.get(4)).isEqualTo((byte) 1);
+        assertThat(byteBuffer.get(5)).isEqualTo((byte) 2);
+        verify(partitionByteBuffer, times(2)).force();
+        verify(writeAheadLog).checkpoint(any());
+
+        when(writeAheadLog.append(key, byteBuffer, 4, 2)).thenReturn(10L);
+        assertThat(dataService.logRegion(new BufferLease(key, partitionByteBuffer, byteBuffer), 4, 2)).isEqualTo(10L);
+        dataService.commit(10L);
+        verify(writeAheadLog).awaitCommit(10L);
+        dataService.commit(0L);
+        verify(writeAheadLog, never()).awaitCommit(0L);
+    }
+
+    @Test
+    public void testWithoutWriteAheadLog() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        when(persistenceAdapter.getWriteAheadLog()).thenReturn(Optional.empty());
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+        assertThat(dataService.logRegion(BufferLease.of(new PartitionKey("abc", "123"), ByteBuffer.allocate(8)), 0, 4)).isEqualTo(0L);
+        dataService.commit(0L);
+        dataService.checkpoint();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "NEVER,0,0",
+        "PERIODIC,1,1",
+        "ON_CLOSE,0,1",
+        "ON_EVICTION,0,0",
+    })
+    public void testFlushPolicy(FlushPolicy flushPolicy, int periodic, int closed) {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "123");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key), Set.of()));
+
+        PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+
+        when(partitionByteBuffer.retain()).thenReturn(true);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(8);
+        when(partitionByteBuffer.getByteBuffer()).thenReturn(byteBuffer);
+        when(persistenceAdapter.openPartition(key)).thenReturn(partitionByteBuffer);
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setFlushPolicy(flushPolicy);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+
+        try (BufferLease lease = dataService.getBuffer(key).orElseThrow()) {
+            assertThat(lease.buffer()).isEqualTo(byteBuffer);
+            dataService.logRegion(lease, 4, 4);
+        }
+        verify(partitionByteBuffer).markDirty(4, 4);
+
+        dataService.flush();
+        verify(partitionByteBuffer, times(periodic)).force();
+
+        dataService.close();
+        verify(partitionByteBuffer, times(periodic + closed)).force();
+        verify(partitionByteBuffer).close();
+    }
+
+    @Test
+    public void testFlushPolicyEviction() {
+        assertThat(FlushPolicy.ON_EVICTION.isForcedOnRemoval(true)).isTrue();
+        assertThat(FlushPolicy.ON_EVICTION.isForcedOnRemoval(false)).isFalse();
+        assertThat(FlushPolicy.NEVER.isForcedOnRemoval(true)).isFalse();
+    }
+
+    @Test
+    public void testCacheMemory() throws Exception {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        List<PartitionKey> keys = List.of(new PartitionKey("abc", "1"), new PartitionKey("abc", "2"), new PartitionKey("abc", "3"));
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.copyOf(keys), Set.of()));
+
+        CountDownLatch closed = new CountDownLatch(1);
+        for (PartitionKey key : keys) {
+            PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+            when(partitionByteBuffer.retain()).thenReturn(true);
+            when(partitionByteBuffer.byteSize()).thenReturn(8L);
+            doAnswer(invocation -> {
+                closed.countDown();
+                return null;
+            }).when(partitionByteBuffer).close();
+            when(persistenceAdapter.openPartition(key)).thenReturn(partitionByteBuffer);
+        }
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPartitionCacheMemory(16);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+        assertThat(dataService.getCacheMaximum()).isEqualTo(16);
+
+        for (PartitionKey key : keys) {
+            dataService.getBuffer(key).orElseThrow().close();
+        }
+
+        // Partitions are weighed once their open completes on the I/O executor
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dataService.getCacheWeight()).isEqualTo(16);
+        assertThat(dataService.getCacheStats().missCount()).isEqualTo(3);
+        assertThat(dataService.getCacheStats().evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey key = new PartitionKey("abc", "123");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(key), Set.of()));
+
+        PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+        when(partitionByteBuffer.retain()).thenReturn(true);
+        CountDownLatch opening = new CountDownLatch(1);
+        CountDownLatch opened = new CountDownLatch(1);
+        when(persistenceAdapter.openPartition(key)).thenAnswer(invocation -> {
+            opening.countDown();
+            opened.await();
+            return partitionByteBuffer;
+        });
+
+        DataService dataService = new DataService(new IotfsdbProperties(), persistenceAdapter);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<BufferLease>> leases = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                leases.add(executor.submit(() -> dataService.getBuffer(key).orElseThrow()));
+            }
+            assertThat(opening.await(5, TimeUnit.SECONDS)).isTrue();
+            opened.countDown();
+            for (Future<BufferLease> lease : leases) {
+                assertThat(lease.get().partition()).isSameAs(partitionByteBuffer);
+            }
+        }
+        verify(persistenceAdapter).openPartition(key);
+    }
+
+    @Test
+    public void testPinActive() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").partition(PartitionPeriod.DAY).build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        PartitionKey active = new PartitionKey("abc", "20241110");
+        PartitionKey previous = new PartitionKey("abc", "20241109");
+        PartitionKey old = new PartitionKey("abc", "20241101");
+        when(persistenceAdapter.getListing(seriesFile)).thenReturn(new PartitionListing(Set.of(active, previous, old), Set.of()));
+
+        Map<PartitionKey, PartitionByteBuffer> buffers = new HashMap<>();
+        for (PartitionKey key : List.of(active, previous, old)) {
+            PartitionByteBuffer partitionByteBuffer = mock(PartitionByteBuffer.class);
+            when(partitionByteBuffer.retain()).thenReturn(true);
+            when(partitionByteBuffer.byteSize()).thenReturn(8L);
+            when(persistenceAdapter.openPartition(key)).thenReturn(partitionByteBuffer);
+            buffers.put(key, partitionByteBuffer);
+        }
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPartitionCacheMemory(8);
+        properties.getPersistence().setPinLookback(Duration.ofHours(1));
+        DataService dataService = new DataService(properties, persistenceAdapter);
+
+        LocalDateTime now = LocalDateTime.of(2024, 11, 10, 0, 30);
+        dataService.updatePinned(now);
+        assertThat(dataService.isPinned(active)).isTrue();
+        assertThat(dataService.isPinned(active.getZoneMapKey(256))).isTrue();
+        assertThat(dataService.isPinned(previous)).isTrue();
+        assertThat(dataService.isPinned(old)).isFalse();
+
+        for (PartitionKey key : List.of(active, previous, old)) {
+            dataService.getBuffer(key).orElseThrow().close();
+        }
+        dataService.cleanUp();
+        assertThat(dataService.getPinnedWeight()).isEqualTo(16);
+        assertThat(dataService.getCacheWeight()).isEqualTo(8);
+        assertThat(dataService.getCacheStats().missCount()).isEqualTo(1);
+
+        dataService.updatePinned(now.plusHours(1));
+        assertThat(dataService.isPinned(previous)).isFalse();
+        verify(buffers.get(previous)).close();
+        verify(buffers.get(active), never()).close();
+        assertThat(dataService.getPinnedWeight()).isEqualTo(8);
+    }
+
+    @Test
+    public void testPinAhead() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").partition(PartitionPeriod.DAY).build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPrecreateAhead(Duration.ofMinutes(30));
+        DataService dataService = new DataService(properties, persistenceAdapter);
+
+        dataService.updatePinned(LocalDateTime.of(2024, 11, 10, 23, 0));
+        assertThat(dataService.isPinned(new PartitionKey("abc", "20241111"))).isFalse();
+        dataService.updatePinned(LocalDateTime.of(2024, 11, 10, 23, 45));
+        assertThat(dataService.isPinned(new PartitionKey("abc", "20241111"))).isTrue();
+        assertThat(dataService.isPinned(new PartitionKey("abc", "20241110"))).isTrue();
+    }
+
+    @Test
+    public void testPinActiveDisabled() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").partition(PartitionPeriod.DAY).build()).build();
+        when(persistenceAdapter.getSeries()).thenReturn(List.of(seriesFile));
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPinActive(false);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+        dataService.updatePinned(LocalDateTime.of(2024, 11, 10, 0, 30));
+        assertThat(dataService.isPinned(new PartitionKey("abc", "20241110"))).isFalse();
+    }
+
+    @Test
+    public void testAdaptCacheMaximum() {
+        PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
+        when(persistenceAdapter.getSeries()).thenReturn(List.of());
+
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPartitionCacheMemory(800);
+        properties.getPersistence().setPartitionCacheHeapLimit(0.5);
+        properties.getPersistence().setPartitionCacheOffHeapLimit(0.5);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+
+        dataService.adaptCacheMaximum(0.9, 0);
+        assertThat(dataService.getCacheMaximum()).isEqualTo(400);
+        dataService.adaptCacheMaximum(0.9, 0);
+        dataService.adaptCacheMaximum(0.9, 0);
+        dataService.adaptCacheMaximum(0.9, 0);
+        assertThat(dataService.getCacheMaximum()).isEqualTo(100);
+
+        dataService.adaptCacheMaximum(0.2, 0);
+        assertThat(dataService.getCacheMaximum()).isEqualTo(200);
+        for (int i = 0; i < 10; i++) {
+            dataService.adaptCacheMaximum(0.2, 0);
+        }
+        assertThat(dataService.getCacheMaximum()).isEqualTo(800);
+
+        // Off-heap pressure shrinks the cache even when the heap is fine
+        dataService.adaptCacheMaximum(0.2, 0.9);
+        assertThat(dataService.getCacheMaximum()).isEqualTo(400);
+        dataService.adaptCacheMaximum(0.2, 0.4);
+        assertThat(dataService.getCacheMaximum()).isEqualTo(500);
+    }
+
     @Test
     public void testCleanUp() {
         PersistenceAdapter persistenceAdapter = mock(PersistenceAdapter.class);
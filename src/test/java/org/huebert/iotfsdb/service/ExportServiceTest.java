@@ -62,7 +62,7 @@ public class ExportServiceTest {
             byteBuffer.asIntBuffer().put(i, (byte) i);
         }
 
-        when(dataService.getBuffer(key)).thenReturn(Optional.of(byteBuffer.slice(0, 8000)));
+        when(dataService.getBuffer(key)).thenReturn(Optional.of(BufferLease.of(key, byteBuffer.slice(0, 8000))));
 
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
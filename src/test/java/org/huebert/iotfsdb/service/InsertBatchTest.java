@@ -0,0 +1,91 @@
+package org.huebert.iotfsdb.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.Range;
+import org.huebert.iotfsdb.api.schema.Reducer;
+import org.huebert.iotfsdb.api.schema.SeriesData;
+import org.huebert.iotfsdb.partition.IntegerPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+public class InsertBatchTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2024-11-11T00:00:00Z");
+
+    private final IntegerPartition adapter = new IntegerPartition();
+
+    private final PartitionRange details = new PartitionRange(null, Range.closed(LocalDateTime.parse("2024-11-11T00:00:00"), LocalDateTime.parse("2024-11-12T00:00:00").minusNanos(1)), Duration.ofHours(1), adapter, new ReentrantReadWriteLock());
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(24 * Integer.BYTES);
+
+    @BeforeEach
+    public void beforeEach() {
+        adapter.putNulls(buffer, 0, 24);
+        adapter.put(buffer, 3, 10);
+    }
+
+    @Test
+    public void testWrite() {
+        InsertBatch batch = InsertBatch.of(details, List.of(
+            new SeriesData(START.plusHours(5), 5),
+            new SeriesData(START.plusHours(2), 2),
+            new SeriesData(START.plusHours(3), 7),
+            new SeriesData(START.plusHours(2), 4),
+            new SeriesData(START.plusHours(9), null)
+        ));
+        List<List<Integer>> runs = new ArrayList<>();
+        batch.write(adapter, buffer, null, (slot, length) -> runs.add(List.of(slot, length)));
+
+        assertThat(batch.getSlots()).containsExactly(2, 3, 5, 9);
+        assertThat(runs).containsExactly(List.of(2, 2), List.of(5, 1), List.of(9, 1));
+        assertThat(adapter.getStream(buffer, 1, 9).toList()).containsExactly(null, 4, 7, null, 5, null, null, null, null);
+    }
+
+    @Test
+    public void testWriteWithMerge() {
+        InsertBatch batch = InsertBatch.of(details, List.of(
+            new SeriesData(START.plusHours(4), 1),
+            new SeriesData(START.plusHours(3), 2),
+            new SeriesData(START.plusHours(3), null),
+            new SeriesData(START.plusHours(4), 6)
+        ));
+        List<List<Integer>> runs = new ArrayList<>();
+        batch.write(adapter, buffer, (a, b) -> (Double.isNaN(a) ? 0 : a) + (Double.isNaN(b) ? 0 : b), (slot, length) -> runs.add(List.of(slot, length)));
+
+        assertThat(runs).containsExactly(List.of(3, 2));
+        assertThat(adapter.getStream(buffer, 2, 4).toList()).containsExactly(null, 12, 7, null);
+    }
+
+    @Test
+    public void testWriteWithMerge_RoundsLikeCollector() {
+        ReducerService reducerService = new ReducerService();
+        List<Integer> inserted = List.of(-6, -3, 6);
+
+        ByteBuffer expected = ByteBuffer.allocate(24 * Integer.BYTES);
+        adapter.putNulls(expected, 0, 24);
+        adapter.put(expected, 3, -6);
+        Collector<Number, ?, Number> collector = reducerService.getCollector(Reducer.AVERAGE, false, null);
+        for (Integer value : inserted) {
+            adapter.put(expected, 3, Stream.concat(adapter.getStream(expected, 3, 1), Stream.of(value)).collect(collector));
+        }
+
+        adapter.put(buffer, 3, -6);
+        InsertBatch batch = InsertBatch.of(details, inserted.stream().map(v -> new SeriesData(START.plusHours(3), v)).toList());
+        batch.write(adapter, buffer, reducerService.getInsertMerge(Reducer.AVERAGE).orElseThrow(), (slot, length) -> {});
+
+        assertThat(adapter.getStream(expected, 3, 1).toList()).containsExactly(1);
+        assertThat(buffer).isEqualTo(expected);
+    }
+
+}
@@ -1,7 +1,11 @@
 package org.huebert.iotfsdb.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -9,12 +13,17 @@ import static org.mockito.Mockito.when;
 import com.google.common.collect.Range;
 import org.huebert.iotfsdb.IotfsdbProperties;
 import org.huebert.iotfsdb.api.schema.InsertRequest;
+import org.huebert.iotfsdb.api.schema.NumberType;
 import org.huebert.iotfsdb.api.schema.PartitionPeriod;
 import org.huebert.iotfsdb.api.schema.Reducer;
 import org.huebert.iotfsdb.api.schema.SeriesData;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.Aggregate;
+import org.huebert.iotfsdb.partition.IntegerPartition;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.partition.RollupPartition;
+import org.huebert.iotfsdb.persistence.MemoryPersistenceAdapter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -25,11 +34,15 @@ import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
@@ -86,11 +99,12 @@ public class InsertServiceTest {
         ByteBuffer byteBuffer3 = ByteBuffer.allocate(24);
         ByteBuffer byteBuffer4 = ByteBuffer.allocate(24);
 
-        when(dataService.getBuffer(key1, 24L, partitionAdapter)).thenReturn(byteBuffer1);
-        when(dataService.getBuffer(key2, 24L, partitionAdapter)).thenReturn(byteBuffer2);
-        when(dataService.getBuffer(key3, 24L, partitionAdapter)).thenReturn(byteBuffer3);
-        when(dataService.getBuffer(key4, 24L, partitionAdapter)).thenReturn(byteBuffer4);
+        when(dataService.getBuffer(key1, 24L, partitionAdapter)).thenReturn(BufferLease.of(key1, byteBuffer1));
+        when(dataService.getBuffer(key2, 24L, partitionAdapter)).thenReturn(BufferLease.of(key2, byteBuffer2));
+        when(dataService.getBuffer(key3, 24L, partitionAdapter)).thenReturn(BufferLease.of(key3, byteBuffer3));
+        when(dataService.getBuffer(key4, 24L, partitionAdapter)).thenReturn(BufferLease.of(key4, byteBuffer4));
 
+        mockPartitionTable();
         insertService.insert(new InsertRequest("123", List.of(
             new SeriesData(time1, 1),
             new SeriesData(time2, null),
@@ -134,10 +148,10 @@ public class InsertServiceTest {
         ByteBuffer byteBuffer3 = ByteBuffer.allocate(24);
         ByteBuffer byteBuffer4 = ByteBuffer.allocate(24);
 
-        when(dataService.getBuffer(key1, 24L, partitionAdapter)).thenReturn(byteBuffer1);
-        when(dataService.getBuffer(key2, 24L, partitionAdapter)).thenReturn(byteBuffer2);
-        when(dataService.getBuffer(key3, 24L, partitionAdapter)).thenReturn(byteBuffer3);
-        when(dataService.getBuffer(key4, 24L, partitionAdapter)).thenReturn(byteBuffer4);
+        when(dataService.getBuffer(key1, 24L, partitionAdapter)).thenReturn(BufferLease.of(key1, byteBuffer1));
+        when(dataService.getBuffer(key2, 24L, partitionAdapter)).thenReturn(BufferLease.of(key2, byteBuffer2));
+        when(dataService.getBuffer(key3, 24L, partitionAdapter)).thenReturn(BufferLease.of(key3, byteBuffer3));
+        when(dataService.getBuffer(key4, 24L, partitionAdapter)).thenReturn(BufferLease.of(key4, byteBuffer4));
 
         when(reducerService.getCollector(Reducer.AVERAGE, false, null)).thenCallRealMethod();
         when(partitionAdapter.getStream(byteBuffer1, 6, 1)).thenReturn(Stream.of(new Double[] {null}));
@@ -145,6 +159,7 @@ public class InsertServiceTest {
         when(partitionAdapter.getStream(byteBuffer3, 8, 1)).thenReturn(Stream.of(8));
         when(partitionAdapter.getStream(byteBuffer4, 9, 1)).thenReturn(Stream.of(new Double[] {null}));
 
+        mockPartitionTable();
         insertService.insert(new InsertRequest("123", List.of(
             new SeriesData(time1, null),
             new SeriesData(time2, null),
@@ -158,6 +173,41 @@ public class InsertServiceTest {
         verify(partitionAdapter).put(byteBuffer4, 9, 3.0);
     }
 
+    @Test
+    public void testInsertBatchWithReducer() {
+
+        when(dataService.getSeries("123")).thenReturn(Optional.of(SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .partition(PartitionPeriod.DAY)
+                .interval(3600000L)
+                .build())
+            .build()));
+
+        PartitionKey key = new PartitionKey("123", "20241111");
+        IntegerPartition adapter = new IntegerPartition();
+        when(partitionService.getRange(key)).thenReturn(new PartitionRange(key, Range.closed(LocalDateTime.parse("2024-11-11T00:00:00"), LocalDateTime.parse("2024-11-12T00:00:00").minusNanos(1)), Duration.ofHours(1), adapter, new ReentrantReadWriteLock()));
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(24 * Integer.BYTES);
+        adapter.putNulls(byteBuffer, 0, 24);
+        adapter.put(byteBuffer, 2, 10);
+        when(dataService.getBuffer(key, 24L, adapter)).thenReturn(BufferLease.of(key, byteBuffer));
+        when(dataService.logRegion(any(), anyInt(), anyInt())).thenReturn(1L);
+        when(reducerService.getInsertMerge(Reducer.SUM)).thenCallRealMethod();
+
+        mockPartitionTable();
+        insertService.insert(new InsertRequest("123", List.of(
+            new SeriesData(ZonedDateTime.parse("2024-11-11T03:00:00Z"), 3),
+            new SeriesData(ZonedDateTime.parse("2024-11-11T02:00:00Z"), 1),
+            new SeriesData(ZonedDateTime.parse("2024-11-11T03:00:00Z"), 4),
+            new SeriesData(ZonedDateTime.parse("2024-11-11T06:00:00Z"), 2)
+        ), Reducer.SUM));
+
+        assertThat(adapter.getStream(byteBuffer, 1, 6).toList()).containsExactly(null, 11, 7, null, null, 2);
+        verify(dataService).logRegion(any(), eq(2 * Integer.BYTES), eq(2 * Integer.BYTES));
+        verify(dataService).logRegion(any(), eq(6 * Integer.BYTES), eq(Integer.BYTES));
+        verify(dataService).commit(1L);
+    }
+
     @Test
     public void testInsertWithCreateOnInsert() {
 
@@ -197,9 +247,10 @@ public class InsertServiceTest {
         );
 
         ByteBuffer byteBuffer = ByteBuffer.allocate(24);
-        when(dataService.getBuffer(key, 24L, partitionAdapter)).thenReturn(byteBuffer);
+        when(dataService.getBuffer(key, 24L, partitionAdapter)).thenReturn(BufferLease.of(key, byteBuffer));
 
         // Execute insert
+        mockPartitionTable();
         insertService.insert(new InsertRequest(seriesId, List.of(
             new SeriesData(time1, 1)
         ), null));
@@ -268,4 +319,307 @@ public class InsertServiceTest {
         verify(dataService, never()).saveSeries(any());
     }
 
+    @Test
+    public void testInsertWithRollups() {
+
+        when(dataService.getSeries("123")).thenReturn(Optional.of(SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .partition(PartitionPeriod.DAY)
+                .interval(3600000L)
+                .build())
+            .build()));
+
+        PartitionKey key = new PartitionKey("123", "20241111");
+        List<RollupRange> rollups = List.of(
+            new RollupRange(key.getRollupKey(21600000), 4, 6, 6),
+            new RollupRange(key.getRollupKey(86400000), 1, 4, 24)
+        );
+        IntegerPartition adapter = new IntegerPartition();
+        when(partitionService.getRange(key)).thenReturn(new PartitionRange(key, Range.closed(LocalDateTime.parse("2024-11-11T00:00:00"), LocalDateTime.parse("2024-11-12T00:00:00").minusNanos(1)), Duration.ofHours(1), adapter, new ReentrantReadWriteLock(), rollups, null));
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(24 * Integer.BYTES);
+        for (int i = 0; i < 24; i++) {
+            adapter.put(byteBuffer, i, null);
+        }
+        adapter.put(byteBuffer, 20, 5);
+        when(dataService.getPartitions("123")).thenReturn(Set.of(key));
+        when(dataService.getBuffer(key, 24L, adapter)).thenReturn(BufferLease.of(key, byteBuffer));
+
+        ByteBuffer quarters = ByteBuffer.allocate(4 * RollupPartition.BUCKET_SIZE);
+        ByteBuffer days = ByteBuffer.allocate(RollupPartition.BUCKET_SIZE);
+        when(dataService.getOrCreateBuffer(eq(rollups.get(0).key()), eq(rollups.get(0).getByteSize()), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<ByteBuffer>>getArgument(2).accept(quarters);
+            return BufferLease.of(rollups.get(0).key(), quarters);
+        });
+        when(dataService.getOrCreateBuffer(eq(rollups.get(1).key()), eq(rollups.get(1).getByteSize()), any())).thenReturn(BufferLease.of(rollups.get(1).key(), days));
+
+        mockPartitionTable();
+        insertService.insert(new InsertRequest("123", List.of(
+            new SeriesData(ZonedDateTime.parse("2024-11-11T01:00:00Z"), 1),
+            new SeriesData(ZonedDateTime.parse("2024-11-11T02:00:00Z"), 3)
+        ), null));
+
+        Aggregate quarter = new Aggregate();
+        RollupPartition.aggregate(quarters, 0, 1, quarter);
+        assertThat(quarter.getCount()).isEqualTo(2);
+        assertThat(quarter.getSum()).isEqualTo(4.0);
+        assertThat(quarter.getMin()).isEqualTo(1.0);
+        assertThat(quarter.getMax()).isEqualTo(3.0);
+
+        Aggregate last = new Aggregate();
+        RollupPartition.aggregate(quarters, 3, 1, last);
+        assertThat(last.getCount()).isEqualTo(1);
+        assertThat(last.getSum()).isEqualTo(5.0);
+
+        Aggregate day = new Aggregate();
+        RollupPartition.aggregate(days, 0, 1, day);
+        assertThat(day.getCount()).isEqualTo(3);
+        assertThat(day.getSum()).isEqualTo(9.0);
+    }
+
+    @Test
+    public void testInsertWithZoneMap() {
+
+        when(dataService.getSeries("123")).thenReturn(Optional.of(SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .partition(PartitionPeriod.DAY)
+                .interval(3600000L)
+                .build())
+            .build()));
+
+        PartitionKey key = new PartitionKey("123", "20241111");
+        RollupRange zoneMap = new RollupRange(key.getZoneMapKey(10), 3, 10, 10);
+        IntegerPartition adapter = new IntegerPartition();
+        when(partitionService.getRange(key)).thenReturn(new PartitionRange(key, Range.closed(LocalDateTime.parse("2024-11-11T00:00:00"), LocalDateTime.parse("2024-11-12T00:00:00").minusNanos(1)), Duration.ofHours(1), adapter, new ReentrantReadWriteLock(), List.of(), zoneMap));
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(24 * Integer.BYTES);
+        for (int i = 0; i < 24; i++) {
+            adapter.put(byteBuffer, i, null);
+        }
+        adapter.put(byteBuffer, 22, 5);
+        when(dataService.getPartitions("123")).thenReturn(Set.of(key));
+        when(dataService.getBuffer(key, 24L, adapter)).thenReturn(BufferLease.of(key, byteBuffer));
+
+        ByteBuffer zones = ByteBuffer.allocate((int) zoneMap.getByteSize());
+        when(dataService.getOrCreateBuffer(eq(zoneMap.key()), eq(zoneMap.getByteSize()), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<ByteBuffer>>getArgument(2).accept(zones);
+            return BufferLease.of(zoneMap.key(), zones);
+        });
+        when(dataService.logRegion(eq(BufferLease.of(key, byteBuffer)), anyInt(), anyInt())).thenReturn(5L);
+        when(dataService.logRegion(eq(BufferLease.of(zoneMap.key(), zones)), anyInt(), eq(RollupPartition.BUCKET_SIZE))).thenReturn(7L);
+
+        mockPartitionTable();
+        insertService.insert(new InsertRequest("123", List.of(
+            new SeriesData(ZonedDateTime.parse("2024-11-11T01:00:00Z"), 1),
+            new SeriesData(ZonedDateTime.parse("2024-11-11T02:00:00Z"), 3)
+        ), null));
+
+        assertThat(RollupPartition.getCount(zones, 0)).isEqualTo(2);
+        assertThat(RollupPartition.getCount(zones, 1)).isEqualTo(0);
+        assertThat(RollupPartition.getCount(zones, 2)).isEqualTo(1);
+
+        verify(dataService).logRegion(BufferLease.of(key, byteBuffer), 4, 2 * Integer.BYTES);
+        verify(dataService).logRegion(BufferLease.of(zoneMap.key(), zones), 0, RollupPartition.BUCKET_SIZE);
+        verify(dataService).commit(7L);
+    }
+
+    @Test
+    public void testInsertWithZoneMapNewPartition() {
+
+        when(dataService.getSeries("123")).thenReturn(Optional.of(SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .partition(PartitionPeriod.DAY)
+                .interval(3600000L)
+                .build())
+            .build()));
+
+        PartitionKey key = new PartitionKey("123", "20241111");
+        RollupRange zoneMap = new RollupRange(key.getZoneMapKey(10), 3, 10, 10);
+        IntegerPartition adapter = new IntegerPartition();
+        when(partitionService.getRange(key)).thenReturn(new PartitionRange(key, Range.closed(LocalDateTime.parse("2024-11-11T00:00:00"), LocalDateTime.parse("2024-11-12T00:00:00").minusNanos(1)), Duration.ofHours(1), adapter, new ReentrantReadWriteLock(), List.of(), zoneMap));
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(24 * Integer.BYTES);
+        adapter.putNulls(byteBuffer, 0, 24);
+        when(dataService.getPartitions("123")).thenReturn(Set.of());
+        when(dataService.getBuffer(key, 24L, adapter)).thenReturn(BufferLease.of(key, byteBuffer));
+
+        ByteBuffer zones = ByteBuffer.allocate((int) zoneMap.getByteSize());
+        zones.putLong(2 * RollupPartition.BUCKET_SIZE, 7);
+        when(dataService.getOrCreateBuffer(eq(zoneMap.key()), eq(zoneMap.getByteSize()), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<ByteBuffer>>getArgument(2).accept(zones);
+            return BufferLease.of(zoneMap.key(), zones);
+        });
+
+        mockPartitionTable();
+        insertService.insert(new InsertRequest("123", List.of(
+            new SeriesData(ZonedDateTime.parse("2024-11-11T01:00:00Z"), 1)
+        ), null));
+
+        assertThat(RollupPartition.getCount(zones, 0)).isEqualTo(1);
+        assertThat(RollupPartition.getCount(zones, 2)).isEqualTo(7);
+    }
+
+    @Test
+    public void testCreatePartition() {
+
+        PartitionKey key = new PartitionKey("123", "20241111");
+        RollupRange zoneMap = new RollupRange(key.getZoneMapKey(10), 3, 10, 10);
+        List<RollupRange> rollups = List.of(new RollupRange(key.getRollupKey(86400000), 1, 24, 24));
+        IntegerPartition adapter = new IntegerPartition();
+        when(partitionService.getRange(key)).thenReturn(new PartitionRange(key, Range.closed(LocalDateTime.parse("2024-11-11T00:00:00"), LocalDateTime.parse("2024-11-12T00:00:00").minusNanos(1)), Duration.ofHours(1), adapter, new ReentrantReadWriteLock(), rollups, zoneMap));
+        when(dataService.getPartitions("123")).thenReturn(Set.of());
+        when(dataService.getBuffer(key, 24L, adapter)).thenReturn(BufferLease.of(key, ByteBuffer.allocate(24 * Integer.BYTES)));
+        when(dataService.getOrCreateBuffer(eq(zoneMap.key()), eq(zoneMap.getByteSize()), any())).thenReturn(BufferLease.of(zoneMap.key(), ByteBuffer.allocate(8)));
+        when(dataService.getOrCreateBuffer(eq(rollups.getFirst().key()), eq(rollups.getFirst().getByteSize()), any())).thenReturn(BufferLease.of(rollups.getFirst().key(), ByteBuffer.allocate(8)));
+
+        assertThat(insertService.createPartition(key)).isTrue();
+        verify(dataService).getOrCreateBuffer(eq(zoneMap.key()), eq(zoneMap.getByteSize()), any());
+        verify(dataService).getOrCreateBuffer(eq(rollups.getFirst().key()), eq(rollups.getFirst().getByteSize()), any());
+
+        when(dataService.getPartitions("123")).thenReturn(Set.of(key));
+        assertThat(insertService.createPartition(key)).isFalse();
+        verify(dataService).getBuffer(key, 24L, adapter);
+    }
+
+    private void mockPartitionTable() {
+        when(partitionService.getPartitionTable(any(), any())).thenAnswer(invocation -> new PartitionTable(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    @Test
+    public void testInsertAfterZoneMapsDisabled() {
+        MemoryPersistenceAdapter persistenceAdapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
+        SeriesFile seriesFile = SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .id("abc")
+                .type(NumberType.INTEGER4)
+                .interval(3600000L)
+                .partition(PartitionPeriod.DAY)
+                .build())
+            .metadata(new HashMap<>())
+            .build();
+        ZonedDateTime start = ZonedDateTime.parse("2024-11-11T00:00:00Z");
+
+        insertWithZoneMaps(persistenceAdapter, 4, seriesFile, IntStream.range(0, 12).mapToObj(i -> new SeriesData(start.plusHours(i), 1)).toList());
+        assertThat(persistenceAdapter.getListing(seriesFile).sidecars()).containsExactly(new PartitionKey("abc", "20241111.z4"));
+
+        // Writes without zone maps delete the zone map that they leave stale
+        List<SeriesData> values = Stream.concat(
+            Stream.of(new SeriesData(start, 50)),
+            IntStream.range(12, 24).mapToObj(i -> new SeriesData(start.plusHours(i), 100))
+        ).toList();
+        insertWithZoneMaps(persistenceAdapter, 0, null, values);
+        assertThat(persistenceAdapter.getListing(seriesFile).sidecars()).isEmpty();
+
+        insertWithZoneMaps(persistenceAdapter, 8, null, List.of(new SeriesData(start.plusHours(2), 3)));
+        assertThat(persistenceAdapter.getListing(seriesFile).sidecars()).containsExactly(new PartitionKey("abc", "20241111.z8"));
+
+        Aggregate aggregate = insertWithZoneMaps(persistenceAdapter, 4, null, List.of(new SeriesData(start.plusHours(1), 2)));
+        assertThat(persistenceAdapter.getListing(seriesFile).sidecars()).containsExactly(new PartitionKey("abc", "20241111.z4"));
+        assertThat(aggregate.getCount()).isEqualTo(24);
+        assertThat(aggregate.getSum()).isEqualTo(50 + 2 + 3 + 9 + 12 * 100);
+        assertThat(aggregate.getMin()).isEqualTo(1);
+        assertThat(aggregate.getMax()).isEqualTo(100);
+        persistenceAdapter.close();
+    }
+
+    @Test
+    public void testInsertAfterRollupsChanged() {
+        MemoryPersistenceAdapter persistenceAdapter = new MemoryPersistenceAdapter(new IotfsdbProperties());
+        SeriesFile seriesFile = SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .id("abc")
+                .type(NumberType.INTEGER4)
+                .interval(3600000L)
+                .partition(PartitionPeriod.DAY)
+                .rollups(List.of(21600000L, 86400000L))
+                .build())
+            .metadata(new HashMap<>())
+            .build();
+        SeriesFile withoutTier = SeriesFile.builder()
+            .definition(seriesFile.getDefinition().toBuilder().rollups(List.of(86400000L)).build())
+            .metadata(new HashMap<>())
+            .build();
+        ZonedDateTime start = ZonedDateTime.parse("2024-11-11T00:00:00Z");
+
+        insertWithRollups(persistenceAdapter, seriesFile, IntStream.range(0, 12).mapToObj(i -> new SeriesData(start.plusHours(i), 1)).toList());
+        assertThat(persistenceAdapter.getListing(seriesFile).sidecars()).containsExactlyInAnyOrder(new PartitionKey("abc", "20241111.21600000"), new PartitionKey("abc", "20241111.86400000"));
+
+        // Writes without a tier delete it, since it would be left stale
+        List<SeriesData> values = Stream.concat(
+            Stream.of(new SeriesData(start, 50)),
+            IntStream.range(12, 24).mapToObj(i -> new SeriesData(start.plusHours(i), 100))
+        ).toList();
+        insertWithRollups(persistenceAdapter, withoutTier, values);
+        assertThat(persistenceAdapter.getListing(seriesFile).sidecars()).containsExactly(new PartitionKey("abc", "20241111.86400000"));
+
+        // Tiers after a tier that is added again are rebuilt from the raw slots as well
+        Aggregate aggregate = insertWithRollups(persistenceAdapter, seriesFile, List.of(new SeriesData(start.plusHours(1), 2)));
+        assertThat(persistenceAdapter.getListing(seriesFile).sidecars()).containsExactlyInAnyOrder(new PartitionKey("abc", "20241111.21600000"), new PartitionKey("abc", "20241111.86400000"));
+        assertThat(aggregate.getCount()).isEqualTo(24);
+        assertThat(aggregate.getSum()).isEqualTo(50 + 2 + 10 + 12 * 100);
+        assertThat(aggregate.getMin()).isEqualTo(1);
+        assertThat(aggregate.getMax()).isEqualTo(100);
+        persistenceAdapter.close();
+    }
+
+    /**
+     * Inserts values with the rollups of the series, as if the series was saved with them, and returns the aggregate of
+     * the whole partition read through its rollups.
+     */
+    private static Aggregate insertWithRollups(MemoryPersistenceAdapter persistenceAdapter, SeriesFile seriesFile, List<SeriesData> values) {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setZoneMapBlockSize(0);
+        properties.getPersistence().setPinActive(false);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+        try {
+            dataService.saveSeries(seriesFile);
+            PartitionService partitionService = new PartitionService(properties, dataService);
+            new InsertService(dataService, partitionService, mock(ReducerService.class), properties).insert(new InsertRequest("abc", values, null));
+
+            PartitionRange details = partitionService.getRange(new PartitionKey("abc", "20241111"));
+            List<BufferLease> rollupLeases = details.getRollups().stream()
+                .map(rollup -> dataService.getBuffer(rollup.key()).orElseThrow())
+                .toList();
+            Aggregate aggregate = new Aggregate();
+            try (BufferLease lease = dataService.getBuffer(details.getKey()).orElseThrow()) {
+                details.aggregate(lease.buffer(), null, rollupLeases.stream().map(BufferLease::buffer).toList(), details.getRange(), aggregate);
+            } finally {
+                rollupLeases.forEach(BufferLease::close);
+            }
+            return aggregate;
+        } finally {
+            dataService.close();
+        }
+    }
+
+    /**
+     * Inserts values with services that use a zone map block size, as if the database was restarted with it, and returns
+     * the aggregate of the whole partition read through its zone map.
+     */
+    private static Aggregate insertWithZoneMaps(MemoryPersistenceAdapter persistenceAdapter, int blockSize, SeriesFile seriesFile, List<SeriesData> values) {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setZoneMapBlockSize(blockSize);
+        properties.getPersistence().setPinActive(false);
+        DataService dataService = new DataService(properties, persistenceAdapter);
+        try {
+            if (seriesFile != null) {
+                dataService.saveSeries(seriesFile);
+            }
+            PartitionService partitionService = new PartitionService(properties, dataService);
+            new InsertService(dataService, partitionService, mock(ReducerService.class), properties).insert(new InsertRequest("abc", values, null));
+
+            PartitionRange details = partitionService.getRange(new PartitionKey("abc", "20241111"));
+            Aggregate aggregate = new Aggregate();
+            if (details.getZoneMap() != null) {
+                try (BufferLease lease = dataService.getBuffer(details.getKey()).orElseThrow();
+                     BufferLease zoneLease = dataService.getBuffer(details.getZoneMap().key()).orElseThrow()) {
+                    details.aggregate(lease.buffer(), zoneLease.buffer(), List.of(), details.getRange(), aggregate);
+                }
+            }
+            return aggregate;
+        } finally {
+            dataService.close();
+        }
+    }
+
 }
@@ -0,0 +1,85 @@
+package org.huebert.iotfsdb.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.NumberType;
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+import org.huebert.iotfsdb.api.schema.SeriesDefinition;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+public class MigrationServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 11, 20, 12, 0);
+
+    private static final SeriesFile SERIES = SeriesFile.builder()
+        .definition(SeriesDefinition.builder()
+            .id("abc")
+            .type(NumberType.INTEGER4)
+            .interval(60000L)
+            .partition(PartitionPeriod.DAY)
+            .build())
+        .build();
+
+    private final DataService dataService = mock(DataService.class);
+
+    private final PartitionService partitionService = mock(PartitionService.class);
+
+    @Test
+    public void testDisabled() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setMigrateAfter(Duration.ofDays(7));
+        new MigrationService(properties, dataService, partitionService).migratePartitions(NOW);
+        verifyNoInteractions(dataService, partitionService);
+    }
+
+    @Test
+    public void testReadOnly() {
+        IotfsdbProperties properties = getProperties();
+        properties.setReadOnly(true);
+        new MigrationService(properties, dataService, partitionService).migratePartitions(NOW);
+        verifyNoInteractions(dataService, partitionService);
+    }
+
+    @Test
+    public void testMigratePartitions() {
+        PartitionKey old = new PartitionKey("abc", "20241101");
+        PartitionKey migrated = new PartitionKey("abc", "20241102");
+        PartitionKey failed = new PartitionKey("abc", "20241103");
+        PartitionKey recent = new PartitionKey("abc", "20241115");
+        when(dataService.getSeries()).thenReturn(List.of(SERIES));
+        when(dataService.getPartitions("abc")).thenReturn(Set.of(old, migrated, failed, recent));
+        for (PartitionKey key : List.of(old, migrated, failed, recent)) {
+            when(partitionService.getRange(key)).thenReturn(PartitionService.calculateRange(SERIES.getDefinition(), key));
+        }
+        when(dataService.isHot(old)).thenReturn(true);
+        when(dataService.isHot(failed)).thenReturn(true);
+        when(dataService.migratePartition(failed)).thenThrow(new IllegalStateException());
+
+        new MigrationService(getProperties(), dataService, partitionService).migratePartitions(NOW);
+
+        verify(dataService).migratePartition(old);
+        verify(dataService, never()).migratePartition(migrated);
+        verify(dataService, never()).migratePartition(recent);
+        verify(dataService, never()).isHot(recent);
+    }
+
+    private static IotfsdbProperties getProperties() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setMigrateAfter(Duration.ofDays(7));
+        properties.getPersistence().setColdRoots(List.of(Path.of("cold")));
+        return properties;
+    }
+
+}
@@ -15,4 +15,19 @@ public class PartitionKeyTest {
         assertThat(key).isEqualTo(new PartitionKey("123", "202411"));
     }
 
+    @Test
+    public void testGetSidecarKeys() {
+        PartitionKey key = new PartitionKey("123", "202411");
+        assertThat(key.isSidecar()).isFalse();
+        PartitionKey rollupKey = key.getRollupKey(60000);
+        assertThat(rollupKey).isEqualTo(new PartitionKey("123", "202411.60000"));
+        assertThat(rollupKey.isSidecar()).isTrue();
+        PartitionKey zoneMapKey = key.getZoneMapKey(256);
+        assertThat(zoneMapKey).isEqualTo(new PartitionKey("123", "202411.z256"));
+        assertThat(zoneMapKey.isSidecar()).isTrue();
+        assertThat(zoneMapKey.isZoneMap()).isTrue();
+        assertThat(rollupKey.isZoneMap()).isFalse();
+        assertThat(key.isZoneMap()).isFalse();
+    }
+
 }
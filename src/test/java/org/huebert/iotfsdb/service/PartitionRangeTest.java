@@ -1,14 +1,26 @@
 package org.huebert.iotfsdb.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import com.google.common.collect.Range;
+import org.huebert.iotfsdb.partition.Aggregate;
+import org.huebert.iotfsdb.partition.IntegerPartition;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
+import org.huebert.iotfsdb.partition.RollupPartition;
+import org.huebert.iotfsdb.persistence.AccessAdvice;
+import org.huebert.iotfsdb.persistence.PartitionByteBuffer;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class PartitionRangeTest {
@@ -25,6 +37,36 @@ public class PartitionRangeTest {
         }
     }
 
+    @Test
+    public void testGetIndexEpochMillis() {
+        LocalDateTime from = LocalDateTime.parse("2024-11-11T00:00:00");
+        LocalDateTime to = from.plusDays(1).minusNanos(1);
+        PartitionRange partitionRange = new PartitionRange(null, Range.closed(from, to), Duration.ofHours(1), mock(PartitionAdapter.class), new ReentrantReadWriteLock());
+        assertThat(partitionRange.getLowerMillis()).isEqualTo(TimeConverter.toEpochMillis(from));
+        assertThat(partitionRange.getUpperMillis()).isEqualTo(TimeConverter.toEpochMillis(from.plusDays(1)) - 1);
+        assertThat(partitionRange.getIndex(partitionRange.getUpperMillis())).isEqualTo(23);
+        assertThat(partitionRange.getIndex(TimeConverter.toEpochMillis(from.plusMinutes(90)))).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetStreamEpochMillis() {
+        LocalDateTime from = LocalDateTime.parse("2024-11-11T00:00:00");
+        LocalDateTime to = from.plusDays(1).minusNanos(1);
+        IntegerPartition adapter = new IntegerPartition();
+        PartitionRange partitionRange = new PartitionRange(null, Range.closed(from, to), Duration.ofHours(1), adapter, new ReentrantReadWriteLock());
+        ByteBuffer buffer = ByteBuffer.allocate(24 * adapter.getTypeSize());
+        for (int i = 0; i < 24; i++) {
+            adapter.put(buffer, i, i);
+        }
+        long lower = partitionRange.getLowerMillis();
+        long hour = Duration.ofHours(1).toMillis();
+        assertThat(partitionRange.getStream(buffer, lower + 2 * hour, lower + 4 * hour - 1).toList()).containsExactly(2, 3);
+        assertThat(partitionRange.getStream(buffer, lower - hour, lower + hour - 1).toList()).containsExactly(0);
+        assertThat(partitionRange.getDoubleStream(buffer, lower + 22 * hour, lower + 30 * hour).toArray()).containsExactly(22, 23);
+        assertThat(partitionRange.getStream(buffer, lower + 5 * hour, lower + 7 * hour - 1).toList())
+            .isEqualTo(partitionRange.getStream(buffer, Range.closed(from.plusHours(5), from.plusHours(7).minusNanos(1))).toList());
+    }
+
     @Test
     public void testGetSize() {
         LocalDateTime from = LocalDateTime.parse("2024-11-11T00:00:00");
@@ -35,4 +77,109 @@ public class PartitionRangeTest {
         assertThat(partitionRange.getSize()).isEqualTo(24);
     }
 
+    @Test
+    public void testAdviseScan() {
+        LocalDateTime from = LocalDateTime.parse("2024-11-11T00:00:00");
+        LocalDateTime to = from.plusDays(1).minusNanos(1);
+        PartitionRange partitionRange = new PartitionRange(null, Range.closed(from, to), Duration.ofHours(1), new IntegerPartition(), new ReentrantReadWriteLock());
+
+        PartitionByteBuffer partition = mock(PartitionByteBuffer.class);
+        partitionRange.adviseScan(partition, Range.closed(from.plusHours(2), from.plusHours(5)));
+        verify(partition).advise(AccessAdvice.WILLNEED, 8, 16);
+        verify(partition, never()).advise(eq(AccessAdvice.SEQUENTIAL), anyLong(), anyLong());
+
+        partitionRange.adviseScan(partition, Range.closed(from.minusDays(1), to.plusDays(1)));
+        verify(partition).advise(AccessAdvice.SEQUENTIAL, 0, 96);
+        verify(partition).advise(AccessAdvice.WILLNEED, 0, 96);
+    }
+
+    @Test
+    public void testAggregateRollups() {
+        LocalDateTime from = LocalDateTime.parse("2024-11-11T00:00:00");
+        LocalDateTime to = from.plusDays(1).minusNanos(1);
+        PartitionKey key = new PartitionKey("abc", "20241111");
+        List<RollupRange> rollups = List.of(
+            new RollupRange(key.getRollupKey(900000), 96, 15, 15),
+            new RollupRange(key.getRollupKey(3600000), 24, 4, 60)
+        );
+        PartitionRange partitionRange = new PartitionRange(key, Range.closed(from, to), Duration.ofMinutes(1), new IntegerPartition(), new ReentrantReadWriteLock(), rollups, null);
+
+        Random random = new Random(42);
+        ByteBuffer buffer = ByteBuffer.allocate(1440 * Integer.BYTES);
+        for (int i = 0; i < 1440; i++) {
+            partitionRange.getAdapter().put(buffer, i, random.nextInt(5) == 0 ? null : random.nextInt(1000) - 500);
+        }
+
+        ByteBuffer minutes = ByteBuffer.allocate((int) rollups.get(0).getByteSize());
+        for (int i = 0; i < 96; i++) {
+            partitionRange.updateRollup(0, buffer, minutes, i);
+        }
+        ByteBuffer hours = ByteBuffer.allocate((int) rollups.get(1).getByteSize());
+        for (int i = 0; i < 24; i++) {
+            partitionRange.updateRollup(1, minutes, hours, i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime start = from.plusMinutes(random.nextInt(1440));
+            Range<LocalDateTime> current = Range.closed(start, start.plusMinutes(random.nextInt(600)).minusNanos(1));
+            Aggregate expected = new Aggregate();
+            partitionRange.aggregate(buffer, current, expected);
+            for (List<ByteBuffer> rollupBuffers : List.of(List.of(minutes), List.of(minutes, hours))) {
+                Aggregate actual = new Aggregate();
+                partitionRange.aggregate(buffer, null, rollupBuffers, current, actual);
+                assertThat(actual.getSlots()).isEqualTo(expected.getSlots());
+                assertThat(actual.getCount()).isEqualTo(expected.getCount());
+                assertThat(actual.getSum()).isEqualTo(expected.getSum());
+                assertThat(actual.getMin()).isEqualTo(expected.getMin());
+                assertThat(actual.getMax()).isEqualTo(expected.getMax());
+            }
+        }
+    }
+
+    @Test
+    public void testAggregateZoneMap() {
+        LocalDateTime from = LocalDateTime.parse("2024-11-11T00:00:00");
+        LocalDateTime to = from.plusDays(1).minusNanos(1);
+        PartitionKey key = new PartitionKey("abc", "20241111");
+        RollupRange zoneMap = new RollupRange(key.getZoneMapKey(64), 23, 64, 64);
+        List<RollupRange> rollups = List.of(new RollupRange(key.getRollupKey(3600000), 24, 60, 60));
+        PartitionRange partitionRange = new PartitionRange(key, Range.closed(from, to), Duration.ofMinutes(1), new IntegerPartition(), new ReentrantReadWriteLock(), rollups, zoneMap);
+
+        Random random = new Random(42);
+        ByteBuffer buffer = ByteBuffer.allocate(1440 * Integer.BYTES);
+        for (int i = 0; i < 1440; i++) {
+            boolean sparse = i < 300 || (i >= 700 && i < 900);
+            partitionRange.getAdapter().put(buffer, i, sparse || random.nextInt(5) == 0 ? null : random.nextInt(1000) - 500);
+        }
+
+        ByteBuffer zones = ByteBuffer.allocate((int) zoneMap.getByteSize());
+        for (int i = 0; i < 23; i++) {
+            partitionRange.updateZone(buffer, zones, i);
+        }
+        Aggregate first = new Aggregate();
+        RollupPartition.aggregate(zones, 0, 4, first);
+        assertThat(first.getCount()).isEqualTo(0);
+
+        ByteBuffer hours = ByteBuffer.allocate((int) rollups.getFirst().getByteSize());
+        for (int i = 0; i < 24; i++) {
+            partitionRange.updateRollup(0, buffer, hours, i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime start = from.plusMinutes(random.nextInt(1440));
+            Range<LocalDateTime> current = Range.closed(start, start.plusMinutes(random.nextInt(600)).minusNanos(1));
+            Aggregate expected = new Aggregate();
+            partitionRange.aggregate(buffer, current, expected);
+            for (List<ByteBuffer> rollupBuffers : List.of(List.<ByteBuffer>of(), List.of(hours))) {
+                Aggregate actual = new Aggregate();
+                partitionRange.aggregate(buffer, zones, rollupBuffers, current, actual);
+                assertThat(actual.getSlots()).isEqualTo(expected.getSlots());
+                assertThat(actual.getCount()).isEqualTo(expected.getCount());
+                assertThat(actual.getSum()).isEqualTo(expected.getSum());
+                assertThat(actual.getMin()).isEqualTo(expected.getMin());
+                assertThat(actual.getMax()).isEqualTo(expected.getMax());
+            }
+        }
+    }
+
 }
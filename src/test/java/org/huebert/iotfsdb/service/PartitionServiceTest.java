@@ -27,14 +27,36 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
 
 @ExtendWith(MockitoExtension.class)
 public class PartitionServiceTest {
 
+    @Test
+    public void testGetPartitionTable() {
+        PartitionService partitionService = new PartitionService(new IotfsdbProperties(), mock(DataService.class));
+        PartitionTable table = partitionService.getPartitionTable("123", PartitionPeriod.DAY);
+        assertThat(partitionService.getPartitionTable("123", PartitionPeriod.DAY)).isSameAs(table);
+        assertThat(partitionService.getPartitionTable("456", PartitionPeriod.DAY)).isNotSameAs(table);
+        PartitionTable replaced = partitionService.getPartitionTable("123", PartitionPeriod.MONTH);
+        assertThat(replaced.getPeriod()).isEqualTo(PartitionPeriod.MONTH);
+        assertThat(partitionService.getPartitionTable("123", PartitionPeriod.MONTH)).isSameAs(replaced);
+    }
+
+    @Test
+    public void testGetPartitionTable_Concurrent() {
+        PartitionService partitionService = new PartitionService(new IotfsdbProperties(), mock(DataService.class));
+        Set<PartitionTable> tables = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 1000).parallel().forEach(i -> tables.add(partitionService.getPartitionTable("123", PartitionPeriod.DAY)));
+        assertThat(tables).hasSize(1);
+    }
+
     @Test
     public void testGetRange() {
 
@@ -58,6 +80,8 @@ public class PartitionServiceTest {
         assertThat(range.getRange()).isEqualTo(expected.getRange());
         assertThat(range.getInterval()).isEqualTo(expected.getInterval());
         assertThat(range.getAdapter()).isOfAnyClassIn(BytePartition.class);
+        assertThat(range.getRollups()).isEqualTo(List.of());
+        assertThat(range.getZoneMap()).isEqualTo(new RollupRange(key.getZoneMapKey(256), 1, 256, 256));
 
         when(dataService.getPartitions("123")).thenReturn(Set.of(range.getKey()));
 
@@ -65,6 +89,25 @@ public class PartitionServiceTest {
         assertThat(rangeMap.asMapOfRanges()).isEqualTo(Map.of(range.getRange(), range));
     }
 
+    @Test
+    public void testCalculateRange_Rollups() {
+        SeriesDefinition definition = SeriesDefinition.builder()
+            .partition(PartitionPeriod.MONTH)
+            .interval(60000L)
+            .type(NumberType.FLOAT4)
+            .rollups(List.of(3600000L, 86400000L))
+            .build();
+        PartitionKey key = new PartitionKey("123", "202411");
+        PartitionRange range = PartitionService.calculateRange(definition, key, 1000);
+        assertThat(range.getSize()).isEqualTo(43200);
+        assertThat(range.getRollups()).isEqualTo(List.of(
+            new RollupRange(key.getRollupKey(3600000), 720, 60, 60),
+            new RollupRange(key.getRollupKey(86400000), 30, 24, 1440)
+        ));
+        assertThat(range.getZoneMap()).isEqualTo(new RollupRange(key.getZoneMapKey(1000), 44, 1000, 1000));
+        assertThat(PartitionService.calculateRange(definition, key).getZoneMap()).isNull();
+    }
+
     @Test
     public void testGetAdapter() {
 
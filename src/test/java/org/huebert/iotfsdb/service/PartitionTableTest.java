@@ -0,0 +1,41 @@
+package org.huebert.iotfsdb.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+public class PartitionTableTest {
+
+    @Test
+    public void testGetKey() {
+        PartitionTable table = new PartitionTable("123", PartitionPeriod.DAY);
+        LocalDateTime dateTime = LocalDateTime.parse("2024-11-11T12:34:56");
+
+        PartitionKey key = table.getKey(dateTime);
+        assertThat(key).isEqualTo(PartitionKey.getKey("123", PartitionPeriod.DAY, dateTime));
+        assertThat(table.getKey(dateTime.plusHours(11))).isSameAs(key);
+
+        PartitionKey next = table.getKey(dateTime.plusDays(1));
+        assertThat(next).isEqualTo(new PartitionKey("123", "20241112"));
+        assertThat(table.getKey(dateTime.minusHours(12))).isSameAs(key);
+        assertThat(table.getKey(dateTime.plusDays(1).plusHours(1))).isSameAs(next);
+    }
+
+    @Test
+    public void testGetKeyEpochMillis() {
+        PartitionTable table = new PartitionTable("123", PartitionPeriod.MONTH);
+        LocalDateTime start = LocalDateTime.parse("2024-02-01T00:00:00");
+        long millis = TimeConverter.toEpochMillis(start);
+
+        PartitionKey key = table.getKey(millis);
+        assertThat(key).isEqualTo(new PartitionKey("123", "202402"));
+        assertThat(table.getKey(TimeConverter.toEpochMillis(start.plusMonths(1)) - 1)).isSameAs(key);
+        assertThat(table.getKey(millis - 1)).isEqualTo(new PartitionKey("123", "202401"));
+        assertThat(table.getKey(start.plusMonths(1))).isEqualTo(new PartitionKey("123", "202403"));
+        assertThat(table.getKey(millis)).isSameAs(key);
+    }
+
+}
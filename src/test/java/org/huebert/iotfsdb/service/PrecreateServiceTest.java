@@ -0,0 +1,83 @@
+package org.huebert.iotfsdb.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+import org.huebert.iotfsdb.api.schema.SeriesDefinition;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+public class PrecreateServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 11, 10, 23, 50);
+
+    private final DataService dataService = mock(DataService.class);
+
+    private final InsertService insertService = mock(InsertService.class);
+
+    @Test
+    public void testDisabled() {
+        new PrecreateService(new IotfsdbProperties(), dataService, insertService).precreatePartitions(NOW);
+        verifyNoInteractions(dataService, insertService);
+    }
+
+    @Test
+    public void testReadOnly() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.setReadOnly(true);
+        properties.getPersistence().setPrecreateAhead(Duration.ofMinutes(30));
+        new PrecreateService(properties, dataService, insertService).precreatePartitions(NOW);
+        verifyNoInteractions(dataService, insertService);
+    }
+
+    @Test
+    public void testPrecreatePartitions() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPrecreateAhead(Duration.ofMinutes(30));
+
+        when(dataService.getSeries()).thenReturn(List.of(getSeries("active", PartitionPeriod.DAY), getSeries("idle", PartitionPeriod.DAY), getSeries("monthly", PartitionPeriod.MONTH), getSeries("done", PartitionPeriod.DAY)));
+        when(dataService.getPartitions("active")).thenReturn(Set.of(new PartitionKey("active", "20241110")));
+        when(dataService.getPartitions("idle")).thenReturn(Set.of(new PartitionKey("idle", "20241109")));
+        when(dataService.getPartitions("monthly")).thenReturn(Set.of(new PartitionKey("monthly", "202411")));
+        when(dataService.getPartitions("done")).thenReturn(Set.of(new PartitionKey("done", "20241110"), new PartitionKey("done", "20241111")));
+        when(insertService.createPartition(any())).thenReturn(true);
+
+        new PrecreateService(properties, dataService, insertService).precreatePartitions(NOW);
+
+        verify(insertService).createPartition(new PartitionKey("active", "20241111"));
+        verify(insertService, never()).createPartition(new PartitionKey("idle", "20241111"));
+        verify(insertService, never()).createPartition(new PartitionKey("monthly", "202412"));
+        verify(insertService, never()).createPartition(new PartitionKey("done", "20241111"));
+    }
+
+    @Test
+    public void testPrecreateFailure() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setPrecreateAhead(Duration.ofMinutes(30));
+
+        when(dataService.getSeries()).thenReturn(List.of(getSeries("a", PartitionPeriod.DAY), getSeries("b", PartitionPeriod.DAY)));
+        when(dataService.getPartitions("a")).thenReturn(Set.of(new PartitionKey("a", "20241110")));
+        when(dataService.getPartitions("b")).thenReturn(Set.of(new PartitionKey("b", "20241110")));
+        when(insertService.createPartition(new PartitionKey("a", "20241111"))).thenThrow(new IllegalStateException());
+
+        new PrecreateService(properties, dataService, insertService).precreatePartitions(NOW);
+
+        verify(insertService).createPartition(new PartitionKey("b", "20241111"));
+    }
+
+    private static SeriesFile getSeries(String id, PartitionPeriod period) {
+        return SeriesFile.builder().definition(SeriesDefinition.builder().id(id).partition(period).build()).build();
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.huebert.iotfsdb.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Range;
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.partition.IntegerPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+public class PrefetchServiceTest {
+
+    private final DataService dataService = mock(DataService.class);
+
+    private static PartitionRange createRange(int day) {
+        LocalDateTime from = LocalDateTime.parse("2024-11-01T00:00:00").plusDays(day);
+        PartitionKey key = new PartitionKey("abc", from.toLocalDate().toString().replace("-", ""));
+        List<RollupRange> rollups = List.of(new RollupRange(key.getRollupKey(3600000), 24, 60, 60));
+        RollupRange zoneMap = new RollupRange(key.getZoneMapKey(256), 6, 256, 256);
+        return new PartitionRange(key, Range.closed(from, from.plusDays(1).minusNanos(1)), Duration.ofMinutes(1), new IntegerPartition(), new ReentrantReadWriteLock(), rollups, zoneMap);
+    }
+
+    private static IotfsdbProperties createProperties(int prefetchPartitions, int prefetchConcurrency) {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getQuery().setPrefetchPartitions(prefetchPartitions);
+        properties.getQuery().setPrefetchConcurrency(prefetchConcurrency);
+        return properties;
+    }
+
+    @Test
+    public void testPrefetch() {
+        PrefetchService prefetchService = new PrefetchService(createProperties(2, 8), dataService);
+        PartitionRange partitionRange = createRange(0);
+        prefetchService.prefetch(partitionRange);
+        verify(dataService, timeout(5000)).prefetch(partitionRange.getKey());
+        verify(dataService, timeout(5000)).prefetch(partitionRange.getZoneMap().key());
+        verify(dataService, timeout(5000)).prefetch(partitionRange.getRollups().getFirst().key());
+        prefetchService.close();
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            latch.await();
+            return null;
+        }).when(dataService).prefetch(any());
+
+        PrefetchService prefetchService = new PrefetchService(createProperties(2, 1), dataService);
+        PartitionRange first = createRange(0);
+        PartitionRange second = createRange(1);
+        prefetchService.prefetch(first);
+        prefetchService.prefetch(second);
+        verify(dataService, timeout(5000)).prefetch(first.getKey());
+        latch.countDown();
+        prefetchService.close();
+        verify(dataService, never()).prefetch(second.getKey());
+    }
+
+    @Test
+    public void testWindow() {
+        PrefetchService prefetchService = mock(PrefetchService.class);
+        when(prefetchService.getLookAhead()).thenReturn(2);
+        List<PartitionRange> plan = IntStream.range(0, 5).mapToObj(PrefetchServiceTest::createRange).toList();
+        PrefetchWindow prefetchWindow = new PrefetchWindow(prefetchService, plan);
+
+        prefetchWindow.visit(List.of(plan.get(0)));
+        verify(prefetchService).prefetch(plan.get(1));
+        verify(prefetchService).prefetch(plan.get(2));
+        verify(prefetchService, never()).prefetch(plan.get(3));
+
+        prefetchWindow.visit(List.of(plan.get(0)));
+        prefetchWindow.visit(List.of(plan.get(1), plan.get(2)));
+        verify(prefetchService).prefetch(plan.get(3));
+        verify(prefetchService).prefetch(plan.get(4));
+
+        prefetchWindow.visit(List.of(createRange(10)));
+        verify(prefetchService, never()).prefetch(plan.get(0));
+    }
+
+    @Test
+    public void testWindowDisabled() {
+        PrefetchService prefetchService = new PrefetchService(createProperties(0, 8), dataService);
+        List<PartitionRange> plan = IntStream.range(0, 3).mapToObj(PrefetchServiceTest::createRange).toList();
+        new PrefetchWindow(prefetchService, plan).visit(List.of(plan.get(0)));
+        prefetchService.close();
+        verify(dataService, never()).prefetch(any());
+    }
+
+}
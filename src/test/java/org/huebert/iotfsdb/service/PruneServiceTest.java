@@ -0,0 +1,166 @@
+package org.huebert.iotfsdb.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.Range;
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.InsertRequest;
+import org.huebert.iotfsdb.api.schema.NumberType;
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+import org.huebert.iotfsdb.api.schema.SeriesData;
+import org.huebert.iotfsdb.api.schema.SeriesDefinition;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.RollupPartition;
+import org.huebert.iotfsdb.persistence.MemoryPersistenceAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class PruneServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 11, 10, 0, 0);
+
+    private static final long ROLLUP = Duration.ofHours(6).toMillis();
+
+    private final IotfsdbProperties properties = new IotfsdbProperties();
+
+    private final MemoryPersistenceAdapter persistenceAdapter;
+
+    private final DataService dataService;
+
+    private final PartitionService partitionService;
+
+    private final PruneService pruneService;
+
+    public PruneServiceTest() {
+        properties.getPersistence().setZoneMapBlockSize(4);
+        properties.getPersistence().setPinActive(false);
+        persistenceAdapter = new MemoryPersistenceAdapter(properties);
+        dataService = new DataService(properties, persistenceAdapter);
+        partitionService = new PartitionService(properties, dataService);
+        pruneService = new PruneService(properties, dataService, partitionService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataService.close();
+        persistenceAdapter.close();
+    }
+
+    @Test
+    public void testPrune() {
+        createSeries("abc", null);
+        createSeries("def", null);
+
+        pruneService.prune("abc", Range.closedOpen(START.plusHours(12), START.plusDays(2)));
+
+        PartitionKey first = new PartitionKey("abc", "20241110");
+        assertThat(dataService.getPartitions("abc")).containsExactlyInAnyOrder(first, new PartitionKey("abc", "20241112"));
+        assertThat(dataService.getBuffer(new PartitionKey("abc", "20241111").getRollupKey(ROLLUP))).isEmpty();
+        assertThat(dataService.getPartitions("def")).hasSize(3);
+
+        PartitionRange details = partitionService.getRange(first);
+        try (BufferLease lease = dataService.getBuffer(first).orElseThrow()) {
+            List<Number> values = details.getStream(lease.buffer()).toList();
+            assertThat(values.subList(0, 12)).doesNotContainNull();
+            assertThat(values.subList(12, 24)).containsOnlyNulls();
+        }
+        try (BufferLease lease = dataService.getBuffer(details.getZoneMap().key()).orElseThrow()) {
+            assertThat(getCounts(lease.buffer(), 6)).containsExactly(4L, 4L, 4L, 0L, 0L, 0L);
+        }
+        try (BufferLease lease = dataService.getBuffer(first.getRollupKey(ROLLUP)).orElseThrow()) {
+            assertThat(getCounts(lease.buffer(), 4)).containsExactly(6L, 6L, 0L, 0L);
+        }
+    }
+
+    @Test
+    public void testPruneNotFound() {
+        assertThrows(IllegalArgumentException.class, () -> pruneService.prune("abc", Range.all()));
+    }
+
+    @Test
+    public void testDeletePartition() {
+        createSeries("abc", null);
+        PartitionKey key = new PartitionKey("abc", "20241111");
+
+        assertThat(pruneService.deletePartition(key)).isTrue();
+        assertThat(pruneService.deletePartition(key)).isFalse();
+        assertThat(dataService.getPartitions("abc")).doesNotContain(key);
+        assertThat(persistenceAdapter.getListing(dataService.getSeries("abc").orElseThrow()).sidecars()).hasSize(4);
+        assertThrows(IllegalArgumentException.class, () -> pruneService.deletePartition(key.getRollupKey(ROLLUP)));
+    }
+
+    @Test
+    public void testEnforceRetention() {
+        createSeries("abc", Duration.ofDays(1).toMillis());
+        createSeries("def", null);
+
+        pruneService.enforceRetention(START.plusDays(2).plusHours(6));
+
+        assertThat(dataService.getPartitions("abc")).containsExactlyInAnyOrder(new PartitionKey("abc", "20241111"), new PartitionKey("abc", "20241112"));
+        assertThat(dataService.getPartitions("def")).hasSize(3);
+    }
+
+    @Test
+    public void testEnforceRetentionReadOnly() {
+        createSeries("abc", Duration.ofDays(1).toMillis());
+        properties.setReadOnly(true);
+
+        new PruneService(properties, dataService, partitionService).enforceRetention(START.plusDays(3));
+
+        assertThat(dataService.getPartitions("abc")).hasSize(3);
+    }
+
+    @Test
+    public void testPruneReadOnly() {
+        createSeries("abc", null);
+        properties.setReadOnly(true);
+
+        PruneService readOnly = new PruneService(properties, dataService, partitionService);
+        assertThrows(IllegalStateException.class, () -> readOnly.prune("abc", Range.all()));
+        assertThrows(IllegalStateException.class, () -> readOnly.deletePartition(new PartitionKey("abc", "20241111")));
+
+        assertThat(dataService.getPartitions("abc")).hasSize(3);
+    }
+
+    /**
+     * Creates a series with a value every hour for three days.
+     */
+    private void createSeries(String id, Long retention) {
+        dataService.saveSeries(SeriesFile.builder()
+            .definition(SeriesDefinition.builder()
+                .id(id)
+                .type(NumberType.INTEGER4)
+                .interval(Duration.ofHours(1).toMillis())
+                .partition(PartitionPeriod.DAY)
+                .rollups(List.of(ROLLUP))
+                .retention(retention)
+                .build())
+            .metadata(new HashMap<>())
+            .build());
+        List<SeriesData> values = new ArrayList<>();
+        for (int i = 0; i < 72; i++) {
+            values.add(new SeriesData(TimeConverter.toUtc(START.plusHours(i)), i));
+        }
+        InsertService insertService = new InsertService(dataService, partitionService, mock(ReducerService.class), properties);
+        insertService.insert(new InsertRequest(id, values, null));
+        assertThat(dataService.getPartitions(id)).hasSize(3);
+    }
+
+    private static List<Long> getCounts(ByteBuffer buffer, int size) {
+        List<Long> counts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            counts.add(RollupPartition.getCount(buffer, i));
+        }
+        return counts;
+    }
+
+}
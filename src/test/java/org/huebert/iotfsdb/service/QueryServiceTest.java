@@ -3,6 +3,8 @@ package org.huebert.iotfsdb.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.Range;
@@ -16,6 +18,7 @@ import org.huebert.iotfsdb.api.schema.SeriesData;
 import org.huebert.iotfsdb.api.schema.SeriesDefinition;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
 import org.huebert.iotfsdb.collectors.CountingCollector;
+import org.huebert.iotfsdb.partition.IntegerPartition;
 import org.huebert.iotfsdb.partition.PartitionAdapter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,6 +33,7 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
 @ExtendWith(MockitoExtension.class)
@@ -53,6 +57,9 @@ public class QueryServiceTest {
     @Mock
     private SeriesService seriesService;
 
+    @Mock
+    private PrefetchService prefetchService;
+
     @InjectMocks
     private QueryService queryService;
 
@@ -78,7 +85,7 @@ public class QueryServiceTest {
         when(partitionService.getRangeMap("abc")).thenReturn(rangeMap);
 
         ByteBuffer byteBuffer = ByteBuffer.allocate(8);
-        when(dataService.getBuffer(key)).thenReturn(Optional.of(byteBuffer));
+        when(dataService.getBuffer(key)).thenReturn(Optional.of(BufferLease.of(key, byteBuffer)));
 
         when(partitionAdapter.getStream(byteBuffer, 8, 1)).thenReturn(IntStream.range(0, 100).mapToObj(a -> a));
         when(partitionAdapter.getStream(byteBuffer, 9, 1)).thenReturn(IntStream.range(0, 10).mapToObj(a -> a));
@@ -120,7 +127,7 @@ public class QueryServiceTest {
         when(partitionService.getRangeMap("abc")).thenReturn(rangeMap);
 
         ByteBuffer byteBuffer = ByteBuffer.allocate(8);
-        when(dataService.getBuffer(key)).thenReturn(Optional.of(byteBuffer));
+        when(dataService.getBuffer(key)).thenReturn(Optional.of(BufferLease.of(key, byteBuffer)));
 
         when(partitionAdapter.getStream(byteBuffer, 8, 1)).thenReturn(IntStream.range(0, 100).mapToObj(a -> a));
         when(partitionAdapter.getStream(byteBuffer, 9, 1)).thenReturn(IntStream.range(0, 10).mapToObj(a -> a));
@@ -147,4 +154,86 @@ public class QueryServiceTest {
         assertThat(response.getFirst().getData().get(1)).isEqualTo(new SeriesData(findStart.plusHours(1), 11L));
     }
 
+    @Test
+    void testFindData_DoubleReducer() {
+
+        FindDataRequest request = new FindDataRequest();
+        ZonedDateTime findStart = ZonedDateTime.parse("2024-11-10T02:00:00-06:00");
+        request.setFrom(findStart);
+        request.setTo(findStart.plusHours(2));
+
+        when(intervalService.getIntervalRanges(request)).thenReturn(List.of(
+            Range.closed(findStart, findStart.plusHours(1).minusNanos(1)),
+            Range.closed(findStart.plusHours(1), findStart.plusHours(2).minusNanos(1))
+        ));
+
+        PartitionKey key = new PartitionKey("abc", "20241110");
+        LocalDateTime partitionStart = LocalDateTime.parse("2024-11-10T00:00:00");
+        Range<LocalDateTime> range = Range.closed(partitionStart, partitionStart.plusDays(1).minusNanos(1));
+
+        RangeMap<LocalDateTime, PartitionRange> rangeMap = TreeRangeMap.create();
+        rangeMap.put(range, new PartitionRange(key, range, Duration.ofHours(1), partitionAdapter, new ReentrantReadWriteLock()));
+        when(partitionService.getRangeMap("abc")).thenReturn(rangeMap);
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(8);
+        when(dataService.getBuffer(key)).thenReturn(Optional.of(BufferLease.of(key, byteBuffer)));
+
+        when(partitionAdapter.getDoubleStream(byteBuffer, 8, 1)).thenReturn(DoubleStream.of(1.0, Double.NaN, 2.0));
+        when(partitionAdapter.getDoubleStream(byteBuffer, 9, 1)).thenReturn(DoubleStream.of(Double.NaN));
+
+        when(reducerService.getDoubleReducer(eq(request), eq(Reducer.AVERAGE))).thenReturn(Optional.of(s -> s.filter(v -> !Double.isNaN(v)).sum()));
+
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(seriesService.findSeries(any(FindSeriesRequest.class))).thenReturn(List.of(seriesFile));
+
+        List<FindDataResponse> response = queryService.findData(request);
+        assertThat(response.size()).isEqualTo(1);
+        assertThat(response.getFirst().getData().size()).isEqualTo(2);
+        assertThat(response.getFirst().getData().get(0)).isEqualTo(new SeriesData(findStart, 3.0));
+        assertThat(response.getFirst().getData().get(1)).isEqualTo(new SeriesData(findStart.plusHours(1), 0.0));
+        verify(reducerService, never()).getCollector(any(FindDataRequest.class), any(Reducer.class));
+    }
+
+    @Test
+    void testFindData_AggregateReducer() {
+
+        FindDataRequest request = new FindDataRequest();
+        ZonedDateTime findStart = ZonedDateTime.parse("2024-11-10T02:00:00-06:00");
+        request.setFrom(findStart);
+        request.setTo(findStart.plusHours(2));
+
+        when(intervalService.getIntervalRanges(request)).thenReturn(List.of(
+            Range.closed(findStart, findStart.plusHours(1).minusNanos(1)),
+            Range.closed(findStart.plusHours(1), findStart.plusHours(2).minusNanos(1))
+        ));
+
+        PartitionKey key = new PartitionKey("abc", "20241110");
+        LocalDateTime partitionStart = LocalDateTime.parse("2024-11-10T00:00:00");
+        Range<LocalDateTime> range = Range.closed(partitionStart, partitionStart.plusDays(1).minusNanos(1));
+
+        IntegerPartition adapter = new IntegerPartition();
+        RangeMap<LocalDateTime, PartitionRange> rangeMap = TreeRangeMap.create();
+        rangeMap.put(range, new PartitionRange(key, range, Duration.ofHours(1), adapter, new ReentrantReadWriteLock()));
+        when(partitionService.getRangeMap("abc")).thenReturn(rangeMap);
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(24 * Integer.BYTES);
+        for (int i = 0; i < 24; i++) {
+            adapter.put(byteBuffer, i, null);
+        }
+        adapter.put(byteBuffer, 8, 7);
+        when(dataService.getBuffer(key)).thenReturn(Optional.of(BufferLease.of(key, byteBuffer)));
+
+        when(reducerService.getAggregateReducer(eq(request), eq(Reducer.AVERAGE))).thenReturn(Optional.of(a -> a.getSum() + a.getSlots()));
+
+        SeriesFile seriesFile = SeriesFile.builder().definition(SeriesDefinition.builder().id("abc").build()).build();
+        when(seriesService.findSeries(any(FindSeriesRequest.class))).thenReturn(List.of(seriesFile));
+
+        List<FindDataResponse> response = queryService.findData(request);
+        assertThat(response.size()).isEqualTo(1);
+        assertThat(response.getFirst().getData().size()).isEqualTo(2);
+        assertThat(response.getFirst().getData().get(0)).isEqualTo(new SeriesData(findStart, 8.0));
+        assertThat(response.getFirst().getData().get(1)).isEqualTo(new SeriesData(findStart.plusHours(1), 1.0));
+        verify(reducerService, never()).getDoubleReducer(any(FindDataRequest.class), any(Reducer.class));
+        verify(reducerService, never()).getCollector(any(FindDataRequest.class), any(Reducer.class));
+    }
 }
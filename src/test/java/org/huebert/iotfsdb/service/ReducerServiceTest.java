@@ -7,6 +7,8 @@ import org.huebert.iotfsdb.api.schema.FindDataResponse;
 import org.huebert.iotfsdb.api.schema.Reducer;
 import org.huebert.iotfsdb.api.schema.SeriesData;
 import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.Aggregate;
+import org.huebert.iotfsdb.partition.NumberConverter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -17,6 +19,8 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
@@ -303,4 +307,84 @@ public class ReducerServiceTest {
         request.setNullValue(5);
         assertThat(reduce(request, Stream.of(null, 3, 1, 1, 4, null), Reducer.SUM)).isEqualTo(Optional.of(19.0));
     }
+
+    @Test
+    public void testDoubleReducer() {
+        for (Reducer reducer : List.of(Reducer.AVERAGE, Reducer.COUNT, Reducer.MAXIMUM, Reducer.MINIMUM, Reducer.MULTIPLY, Reducer.SQUARE_SUM, Reducer.SUM)) {
+            assertThat(reduceDoubles(request, DoubleStream.of(), reducer)).isEqualTo(reduce(request, Stream.of(), reducer));
+            assertThat(reduceDoubles(request, DoubleStream.of(Double.NaN, 3, 1, 1, 4, Double.NaN), reducer)).isEqualTo(reduce(request, Stream.of(null, 3, 1, 1, 4, null), reducer));
+        }
+    }
+
+    @Test
+    public void testDoubleReducer_WithNullValue() {
+        request.setNullValue(5);
+        assertThat(reduceDoubles(request, DoubleStream.of(Double.NaN, 3, 1, 1, 4, Double.NaN), Reducer.SUM)).isEqualTo(Optional.of(19.0));
+        assertThat(reduceDoubles(request, DoubleStream.of(Double.NaN, 3, 1, 1, 4, Double.NaN), Reducer.COUNT)).isEqualTo(Optional.of((long) 6));
+    }
+
+    @Test
+    public void testDoubleReducer_NotSupported() {
+        assertThat(reducerService.getDoubleReducer(request, Reducer.MEDIAN)).isEmpty();
+        assertThat(reducerService.getDoubleReducer(request, Reducer.FIRST)).isEmpty();
+        request.setUseBigDecimal(true);
+        assertThat(reducerService.getDoubleReducer(request, Reducer.SUM)).isEmpty();
+    }
+
+    @Test
+    public void testAggregateReducer() {
+        for (Reducer reducer : List.of(Reducer.AVERAGE, Reducer.COUNT, Reducer.MAXIMUM, Reducer.MINIMUM, Reducer.SUM)) {
+            assertThat(reduceAggregate(request, reducer)).isEqualTo(reduce(request, Stream.of(), reducer));
+            assertThat(reduceAggregate(request, reducer, Double.NaN, 3, 1, 1, 4, Double.NaN)).isEqualTo(reduce(request, Stream.of(null, 3, 1, 1, 4, null), reducer));
+        }
+    }
+
+    @Test
+    public void testAggregateReducer_WithNullValue() {
+        request.setNullValue(5);
+        assertThat(reduceAggregate(request, Reducer.SUM, Double.NaN, 3, 1, 1, 4, Double.NaN)).isEqualTo(Optional.of(19.0));
+        assertThat(reduceAggregate(request, Reducer.COUNT, Double.NaN, 3, 1, 1, 4, Double.NaN)).isEqualTo(Optional.of((long) 6));
+        assertThat(reduceAggregate(request, Reducer.MAXIMUM, Double.NaN, 3, 1, 1, 4, Double.NaN)).isEqualTo(Optional.of(5.0));
+    }
+
+    @Test
+    public void testAggregateReducer_NotSupported() {
+        assertThat(reducerService.getAggregateReducer(request, Reducer.MULTIPLY)).isEmpty();
+        assertThat(reducerService.getAggregateReducer(request, Reducer.MEDIAN)).isEmpty();
+        request.setUseBigDecimal(true);
+        assertThat(reducerService.getAggregateReducer(request, Reducer.SUM)).isEmpty();
+    }
+
+    @Test
+    public void testInsertMerge() {
+        double[] existing = {Double.NaN, 3, -2};
+        double[] inserted = {Double.NaN, 5, 3};
+        for (Reducer reducer : List.of(Reducer.AVERAGE, Reducer.COUNT, Reducer.FIRST, Reducer.LAST, Reducer.MAXIMUM, Reducer.MINIMUM, Reducer.MULTIPLY, Reducer.SQUARE_SUM, Reducer.SUM)) {
+            DoubleBinaryOperator merge = reducerService.getInsertMerge(reducer).orElseThrow();
+            for (double a : existing) {
+                for (double b : inserted) {
+                    Number expected = Stream.of(NumberConverter.fromDouble(a), NumberConverter.fromDouble(b)).collect(reducerService.getCollector(reducer, false, null));
+                    assertThat(NumberConverter.fromDouble(merge.applyAsDouble(a, b))).isEqualTo(expected == null ? null : expected.doubleValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInsertMerge_NotSupported() {
+        assertThat(reducerService.getInsertMerge(Reducer.MEDIAN)).isEmpty();
+        assertThat(reducerService.getInsertMerge(Reducer.MODE)).isEmpty();
+        assertThat(reducerService.getInsertMerge(Reducer.COUNT_DISTINCT)).isEmpty();
+    }
+
+    private Optional<Number> reduceAggregate(FindDataRequest request, Reducer reducer, double... values) {
+        Aggregate aggregate = new Aggregate();
+        aggregate.addSlots(values.length);
+        DoubleStream.of(values).filter(v -> !Double.isNaN(v)).forEach(aggregate::accumulate);
+        return Optional.ofNullable(reducerService.getAggregateReducer(request, reducer).orElseThrow().apply(aggregate));
+    }
+
+    private Optional<Number> reduceDoubles(FindDataRequest request, DoubleStream stream, Reducer reducer) {
+        return Optional.ofNullable(reducerService.getDoubleReducer(request, reducer).orElseThrow().apply(stream));
+    }
 }
@@ -0,0 +1,108 @@
+package org.huebert.iotfsdb.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.huebert.iotfsdb.IotfsdbProperties;
+import org.huebert.iotfsdb.api.schema.NumberType;
+import org.huebert.iotfsdb.api.schema.PartitionPeriod;
+import org.huebert.iotfsdb.api.schema.SeriesDefinition;
+import org.huebert.iotfsdb.api.schema.SeriesFile;
+import org.huebert.iotfsdb.partition.IntegerPartition;
+import org.huebert.iotfsdb.partition.PartitionCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+public class SealServiceTest {
+
+    private static final SeriesFile SERIES = SeriesFile.builder()
+        .definition(SeriesDefinition.builder()
+            .id("abc")
+            .type(NumberType.INTEGER4)
+            .interval(60000L)
+            .partition(PartitionPeriod.DAY)
+            .build())
+        .build();
+
+    private final DataService dataService = mock(DataService.class);
+
+    private final PartitionService partitionService = mock(PartitionService.class);
+
+    @Test
+    public void testDisabled() {
+        new SealService(new IotfsdbProperties(), dataService, partitionService).sealPartitions();
+        verifyNoInteractions(dataService, partitionService);
+    }
+
+    @Test
+    public void testReadOnly() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.setReadOnly(true);
+        properties.getPersistence().setSealAfter(Duration.ofDays(1));
+        new SealService(properties, dataService, partitionService).sealPartitions();
+        verifyNoInteractions(dataService, partitionService);
+    }
+
+    @Test
+    public void testSealPartitions() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setSealAfter(Duration.ofDays(1));
+
+        PartitionKey old = new PartitionKey("abc", "20241111");
+        PartitionKey current = new PartitionKey("abc", "29991111");
+        when(dataService.getSeries()).thenReturn(List.of(SERIES));
+        when(dataService.getPartitions("abc")).thenReturn(Set.of(old, current));
+        when(partitionService.getRange(old)).thenReturn(PartitionService.calculateRange(SERIES.getDefinition(), old));
+        when(partitionService.getRange(current)).thenReturn(PartitionService.calculateRange(SERIES.getDefinition(), current));
+
+        IntegerPartition adapter = new IntegerPartition();
+        ByteBuffer buffer = ByteBuffer.allocate(1440 * Integer.BYTES);
+        adapter.putNulls(buffer, 0, 1440);
+        adapter.put(buffer, 10, 5);
+        when(dataService.getBuffer(old)).thenReturn(Optional.of(BufferLease.of(old, buffer)));
+        when(dataService.sealPartition(eq(old), any())).thenReturn(true);
+
+        new SealService(properties, dataService, partitionService).sealPartitions();
+
+        verify(dataService).sealPartition(old, PartitionCodec.DELTA.encode(buffer, Integer.BYTES));
+        verify(dataService, never()).getBuffer(current);
+        verify(dataService, never()).sealPartition(eq(current), any());
+    }
+
+    @Test
+    public void testIncompressible() {
+        IotfsdbProperties properties = new IotfsdbProperties();
+        properties.getPersistence().setSealAfter(Duration.ofDays(1));
+
+        PartitionKey old = new PartitionKey("abc", "20241111");
+        when(dataService.getSeries()).thenReturn(List.of(SERIES));
+        when(dataService.getPartitions("abc")).thenReturn(Set.of(old));
+        when(partitionService.getRange(old)).thenReturn(PartitionService.calculateRange(SERIES.getDefinition(), old));
+
+        byte[] bytes = new byte[1440 * Integer.BYTES];
+        new Random(1).nextBytes(bytes);
+        when(dataService.getBuffer(old)).thenReturn(Optional.of(BufferLease.of(old, ByteBuffer.wrap(bytes))));
+
+        SealService sealService = new SealService(properties, dataService, partitionService);
+        sealService.sealPartitions();
+        sealService.sealPartitions();
+
+        verify(dataService, times(1)).getBuffer(old);
+        verify(dataService, never()).sealPartition(any(), any());
+        assertThat(PartitionService.getCodec(SERIES.getDefinition())).isEqualTo(PartitionCodec.DELTA);
+    }
+
+}
@@ -33,4 +33,12 @@ public class TimeConverterTest {
         assertThat(TimeConverter.toUtc(Range.closed(test1, test2))).isEqualTo(Range.closed(expected1, expected2));
     }
 
+    @Test
+    public void testToEpochMillis() {
+        ZonedDateTime test = ZonedDateTime.parse(("2024-11-11T21:30:28.123456789-06:00"));
+        assertThat(TimeConverter.toEpochMillis(test)).isEqualTo(test.toInstant().toEpochMilli());
+        assertThat(TimeConverter.toEpochMillis(TimeConverter.toUtc(test))).isEqualTo(test.toInstant().toEpochMilli());
+        assertThat(TimeConverter.toEpochMillis(LocalDateTime.parse("1969-12-31T23:59:59.999"))).isEqualTo(-1);
+    }
+
 }
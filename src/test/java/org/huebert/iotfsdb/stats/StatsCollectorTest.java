@@ -10,6 +10,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.huebert.iotfsdb.IotfsdbProperties;
 import org.huebert.iotfsdb.api.schema.InsertRequest;
@@ -139,15 +140,47 @@ class StatsCollectorTest {
     @Test
     void testCalculateMeasurementsWithEmptyStats() {
 
+        when(dataService.getCacheStats()).thenReturn(CacheStats.empty());
+
         // Act
         statsCollector.calculateMeasurements();
 
         // Assert
-        // Should only insert memory usage, no series should be saved
-        verify(insertService, times(1)).insert(any()); // Memory usage insert
+        // Should only insert memory usage and cache stats, no series should be saved
+        verify(insertService, times(6)).insert(any()); // Memory usage and cache inserts
         verify(dataService, never()).saveSeries(any());
     }
 
+    @Test
+    void testCalculateMeasurementsCacheStats() {
+
+        when(dataService.getCacheStats())
+            .thenReturn(CacheStats.of(10, 2, 2, 0, 100, 1, 1))
+            .thenReturn(CacheStats.of(15, 2, 2, 0, 200, 4, 4));
+        when(dataService.getCacheWeight()).thenReturn(1024L * 1024L);
+
+        statsCollector.calculateMeasurements();
+        statsCollector.calculateMeasurements();
+
+        ArgumentCaptor<InsertRequest> insertCaptor = ArgumentCaptor.forClass(InsertRequest.class);
+        verify(insertService, times(12)).insert(insertCaptor.capture());
+
+        // Each measurement records the counts since the previous one
+        List<Number> hits = getValues(insertCaptor.getAllValues(), "iotfsdb-cache-partition-hits");
+        assertEquals(List.of(10L, 5L), hits);
+        List<Number> evictions = getValues(insertCaptor.getAllValues(), "iotfsdb-cache-partition-evictions");
+        assertEquals(List.of(1L, 3L), evictions);
+        List<Number> used = getValues(insertCaptor.getAllValues(), "iotfsdb-cache-partition-used");
+        assertEquals(List.of(1.0, 1.0), used);
+    }
+
+    private static List<Number> getValues(List<InsertRequest> inserts, String seriesId) {
+        return inserts.stream()
+            .filter(insert -> insert.getSeries().equals(seriesId))
+            .map(insert -> insert.getValues().getFirst().getValue())
+            .toList();
+    }
+
     @Test
     void testCalculateMeasurementsWhenDisabled() {
         // Arrange - create a disabled stats collector
@@ -171,6 +204,7 @@ class StatsCollectorTest {
         when(joinPoint.proceed()).thenReturn("test result");
         statsCollector.captureExecutionTime(joinPoint, captureStats);
         when(dataService.getSeries(anyString())).thenReturn(Optional.empty());
+        when(dataService.getCacheStats()).thenReturn(CacheStats.empty());
 
         // Act
         statsCollector.calculateMeasurements();
@@ -183,12 +217,12 @@ class StatsCollectorTest {
         List<SeriesFile> capturedSeries = seriesCaptor.getAllValues();
         assertEquals(4, capturedSeries.size()); // Should have 4 series (MIN, MAX, MEAN, COUNT)
 
-        // Verify that values were inserted (4 stats + 1 memory usage)
+        // Verify that values were inserted (4 stats + 1 memory usage + 5 cache)
         ArgumentCaptor<InsertRequest> insertCaptor = ArgumentCaptor.forClass(InsertRequest.class);
-        verify(insertService, times(5)).insert(insertCaptor.capture());
+        verify(insertService, times(10)).insert(insertCaptor.capture());
 
         List<InsertRequest> capturedInserts = insertCaptor.getAllValues();
-        assertEquals(5, capturedInserts.size());
+        assertEquals(10, capturedInserts.size());
 
         // Verify memory usage insert is present
         assertTrue(capturedInserts.stream().anyMatch(insert ->
@@ -208,6 +242,7 @@ class StatsCollectorTest {
             .metadata(Map.of("existing", "metadata"))
             .build();
         when(dataService.getSeries(anyString())).thenReturn(Optional.of(existingSeries));
+        when(dataService.getCacheStats()).thenReturn(CacheStats.empty());
 
         // Act
         statsCollector.calculateMeasurements();
@@ -223,12 +258,12 @@ class StatsCollectorTest {
         // Metadata should be merged with existing
         assertTrue(capturedSeries.getFirst().getMetadata().containsKey("existing"));
 
-        // Verify that values were inserted (4 stats + 1 memory usage)
+        // Verify that values were inserted (4 stats + 1 memory usage + 5 cache)
         ArgumentCaptor<InsertRequest> insertCaptor = ArgumentCaptor.forClass(InsertRequest.class);
-        verify(insertService, times(5)).insert(insertCaptor.capture());
+        verify(insertService, times(10)).insert(insertCaptor.capture());
 
         List<InsertRequest> capturedInserts = insertCaptor.getAllValues();
-        assertEquals(5, capturedInserts.size());
+        assertEquals(10, capturedInserts.size());
 
         // Verify memory usage insert is present
         assertTrue(capturedInserts.stream().anyMatch(insert ->
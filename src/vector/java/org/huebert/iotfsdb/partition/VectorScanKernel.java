@@ -0,0 +1,191 @@
+package org.huebert.iotfsdb.partition;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ScanKernel} built on the incubating Vector API. Only load this class when the {@code jdk.incubator.vector}
+ * module is present. Values that do not fill a whole vector are handed to {@link ScalarScanKernel}.
+ */
+public class VectorScanKernel implements ScanKernel {
+
+    private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Short> SHORT_SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Iterations after which widened int sums of byte and short lanes are drained into a long before they can overflow.
+     */
+    private static final int BYTE_DRAIN_INTERVAL = 1 << 20;
+
+    private static final int SHORT_DRAIN_INTERVAL = 1 << 14;
+
+    private final ScanKernel scalar = new ScalarScanKernel();
+
+    @Override
+    public void aggregateBytes(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        MemorySegment segment = MemorySegment.ofBuffer(buffer);
+        int bound = BYTE_SPECIES.loopBound(length);
+        int parts = BYTE_SPECIES.length() / INT_SPECIES.length();
+        long count = 0;
+        long sum = 0;
+        IntVector sumVector = IntVector.zero(INT_SPECIES);
+        ByteVector minVector = ByteVector.broadcast(BYTE_SPECIES, Byte.MAX_VALUE);
+        ByteVector maxVector = ByteVector.broadcast(BYTE_SPECIES, Byte.MIN_VALUE);
+        for (int i = 0, iteration = 1; i < bound; i += BYTE_SPECIES.length(), iteration++) {
+            ByteVector vector = ByteVector.fromMemorySegment(BYTE_SPECIES, segment, index + i, buffer.order());
+            VectorMask<Byte> nulls = vector.eq(Byte.MIN_VALUE);
+            count += BYTE_SPECIES.length() - nulls.trueCount();
+            ByteVector zeroed = vector.blend((byte) 0, nulls);
+            for (int part = 0; part < parts; part++) {
+                sumVector = sumVector.add((IntVector) zeroed.convertShape(VectorOperators.B2I, INT_SPECIES, part));
+            }
+            if (iteration % BYTE_DRAIN_INTERVAL == 0) {
+                sum += sumVector.reduceLanesToLong(VectorOperators.ADD);
+                sumVector = IntVector.zero(INT_SPECIES);
+            }
+            minVector = minVector.min(vector.blend(Byte.MAX_VALUE, nulls));
+            maxVector = maxVector.max(vector);
+        }
+        sum += sumVector.reduceLanesToLong(VectorOperators.ADD);
+        aggregate.accumulate(count, sum, minVector.reduceLanes(VectorOperators.MIN), maxVector.reduceLanes(VectorOperators.MAX));
+        scalar.aggregateBytes(buffer, index + bound, length - bound, aggregate);
+    }
+
+    @Override
+    public void aggregateShorts(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        MemorySegment segment = MemorySegment.ofBuffer(buffer);
+        int bound = SHORT_SPECIES.loopBound(length);
+        int parts = SHORT_SPECIES.length() / INT_SPECIES.length();
+        long count = 0;
+        long sum = 0;
+        IntVector sumVector = IntVector.zero(INT_SPECIES);
+        ShortVector minVector = ShortVector.broadcast(SHORT_SPECIES, Short.MAX_VALUE);
+        ShortVector maxVector = ShortVector.broadcast(SHORT_SPECIES, Short.MIN_VALUE);
+        for (int i = 0, iteration = 1; i < bound; i += SHORT_SPECIES.length(), iteration++) {
+            ShortVector vector = ShortVector.fromMemorySegment(SHORT_SPECIES, segment, (long) (index + i) * Short.BYTES, buffer.order());
+            VectorMask<Short> nulls = vector.eq(Short.MIN_VALUE);
+            count += SHORT_SPECIES.length() - nulls.trueCount();
+            ShortVector zeroed = vector.blend((short) 0, nulls);
+            for (int part = 0; part < parts; part++) {
+                sumVector = sumVector.add((IntVector) zeroed.convertShape(VectorOperators.S2I, INT_SPECIES, part));
+            }
+            if (iteration % SHORT_DRAIN_INTERVAL == 0) {
+                sum += sumVector.reduceLanesToLong(VectorOperators.ADD);
+                sumVector = IntVector.zero(INT_SPECIES);
+            }
+            minVector = minVector.min(vector.blend(Short.MAX_VALUE, nulls));
+            maxVector = maxVector.max(vector);
+        }
+        sum += sumVector.reduceLanesToLong(VectorOperators.ADD);
+        aggregate.accumulate(count, sum, minVector.reduceLanes(VectorOperators.MIN), maxVector.reduceLanes(VectorOperators.MAX));
+        scalar.aggregateShorts(buffer, index + bound, length - bound, aggregate);
+    }
+
+    @Override
+    public void aggregateInts(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        MemorySegment segment = MemorySegment.ofBuffer(buffer);
+        int bound = INT_SPECIES.loopBound(length);
+        int parts = INT_SPECIES.length() / LONG_SPECIES.length();
+        long count = 0;
+        LongVector sumVector = LongVector.zero(LONG_SPECIES);
+        IntVector minVector = IntVector.broadcast(INT_SPECIES, Integer.MAX_VALUE);
+        IntVector maxVector = IntVector.broadcast(INT_SPECIES, Integer.MIN_VALUE);
+        for (int i = 0; i < bound; i += INT_SPECIES.length()) {
+            IntVector vector = IntVector.fromMemorySegment(INT_SPECIES, segment, (long) (index + i) * Integer.BYTES, buffer.order());
+            VectorMask<Integer> nulls = vector.eq(Integer.MIN_VALUE);
+            count += INT_SPECIES.length() - nulls.trueCount();
+            IntVector zeroed = vector.blend(0, nulls);
+            for (int part = 0; part < parts; part++) {
+                sumVector = sumVector.add((LongVector) zeroed.convertShape(VectorOperators.I2L, LONG_SPECIES, part));
+            }
+            minVector = minVector.min(vector.blend(Integer.MAX_VALUE, nulls));
+            maxVector = maxVector.max(vector);
+        }
+        aggregate.accumulate(count, sumVector.reduceLanes(VectorOperators.ADD), minVector.reduceLanes(VectorOperators.MIN), maxVector.reduceLanes(VectorOperators.MAX));
+        scalar.aggregateInts(buffer, index + bound, length - bound, aggregate);
+    }
+
+    @Override
+    public void aggregateLongs(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        MemorySegment segment = MemorySegment.ofBuffer(buffer);
+        int bound = LONG_SPECIES.loopBound(length);
+        long count = 0;
+        DoubleVector sumVector = DoubleVector.zero(DOUBLE_SPECIES);
+        LongVector minVector = LongVector.broadcast(LONG_SPECIES, Long.MAX_VALUE);
+        LongVector maxVector = LongVector.broadcast(LONG_SPECIES, Long.MIN_VALUE);
+        for (int i = 0; i < bound; i += LONG_SPECIES.length()) {
+            LongVector vector = LongVector.fromMemorySegment(LONG_SPECIES, segment, (long) (index + i) * Long.BYTES, buffer.order());
+            VectorMask<Long> nulls = vector.eq(Long.MIN_VALUE);
+            count += LONG_SPECIES.length() - nulls.trueCount();
+            sumVector = sumVector.add((DoubleVector) vector.blend(0L, nulls).convert(VectorOperators.L2D, 0));
+            minVector = minVector.min(vector.blend(Long.MAX_VALUE, nulls));
+            maxVector = maxVector.max(vector);
+        }
+        aggregate.accumulate(count, sumVector.reduceLanes(VectorOperators.ADD), minVector.reduceLanes(VectorOperators.MIN), maxVector.reduceLanes(VectorOperators.MAX));
+        scalar.aggregateLongs(buffer, index + bound, length - bound, aggregate);
+    }
+
+    @Override
+    public void aggregateFloats(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        MemorySegment segment = MemorySegment.ofBuffer(buffer);
+        int bound = FLOAT_SPECIES.loopBound(length);
+        int parts = FLOAT_SPECIES.length() / DOUBLE_SPECIES.length();
+        long count = 0;
+        DoubleVector sumVector = DoubleVector.zero(DOUBLE_SPECIES);
+        FloatVector minVector = FloatVector.broadcast(FLOAT_SPECIES, Float.POSITIVE_INFINITY);
+        FloatVector maxVector = FloatVector.broadcast(FLOAT_SPECIES, Float.NEGATIVE_INFINITY);
+        for (int i = 0; i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector vector = FloatVector.fromMemorySegment(FLOAT_SPECIES, segment, (long) (index + i) * Float.BYTES, buffer.order());
+            VectorMask<Float> nulls = vector.test(VectorOperators.IS_NAN);
+            count += FLOAT_SPECIES.length() - nulls.trueCount();
+            FloatVector zeroed = vector.blend(0.0f, nulls);
+            for (int part = 0; part < parts; part++) {
+                sumVector = sumVector.add((DoubleVector) zeroed.convertShape(VectorOperators.F2D, DOUBLE_SPECIES, part));
+            }
+            minVector = minVector.min(vector.blend(Float.POSITIVE_INFINITY, nulls));
+            maxVector = maxVector.max(vector.blend(Float.NEGATIVE_INFINITY, nulls));
+        }
+        aggregate.accumulate(count, sumVector.reduceLanes(VectorOperators.ADD), minVector.reduceLanes(VectorOperators.MIN), maxVector.reduceLanes(VectorOperators.MAX));
+        scalar.aggregateFloats(buffer, index + bound, length - bound, aggregate);
+    }
+
+    @Override
+    public void aggregateDoubles(ByteBuffer buffer, int index, int length, Aggregate aggregate) {
+        MemorySegment segment = MemorySegment.ofBuffer(buffer);
+        int bound = DOUBLE_SPECIES.loopBound(length);
+        long count = 0;
+        DoubleVector sumVector = DoubleVector.zero(DOUBLE_SPECIES);
+        DoubleVector minVector = DoubleVector.broadcast(DOUBLE_SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector maxVector = DoubleVector.broadcast(DOUBLE_SPECIES, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < bound; i += DOUBLE_SPECIES.length()) {
+            DoubleVector vector = DoubleVector.fromMemorySegment(DOUBLE_SPECIES, segment, (long) (index + i) * Double.BYTES, buffer.order());
+            VectorMask<Double> nulls = vector.test(VectorOperators.IS_NAN);
+            count += DOUBLE_SPECIES.length() - nulls.trueCount();
+            sumVector = sumVector.add(vector.blend(0.0, nulls));
+            minVector = minVector.min(vector.blend(Double.POSITIVE_INFINITY, nulls));
+            maxVector = maxVector.max(vector.blend(Double.NEGATIVE_INFINITY, nulls));
+        }
+        aggregate.accumulate(count, sumVector.reduceLanes(VectorOperators.ADD), minVector.reduceLanes(VectorOperators.MIN), maxVector.reduceLanes(VectorOperators.MAX));
+        scalar.aggregateDoubles(buffer, index + bound, length - bound, aggregate);
+    }
+
+}